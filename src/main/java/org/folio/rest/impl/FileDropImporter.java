@@ -0,0 +1,319 @@
+package org.folio.rest.impl;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.jaxrs.model.UserdataimportCollection;
+import org.folio.rest.model.ImportRejectedException;
+import org.folio.rest.util.ConfigurationUtil;
+import org.folio.rest.util.CsvColumnMapping;
+import org.folio.rest.util.CsvUserReader;
+import org.folio.rest.util.ImportMetrics;
+import org.folio.rest.util.JsonUserReader;
+import org.folio.rest.util.MappedFileInputStream;
+import org.folio.rest.util.UserSource;
+
+import com.google.common.base.Strings;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Imports users from files in a local directory, e.g. a mounted volume.
+ *
+ * Files are read through memory mapped windows and streamed through the same pipeline as HTTP imports. The response
+ * of an import is written next to the file as <code>{file}.report.json</code>. Files are imported through the
+ * POST /user-import/file endpoint or by watching the directory. The directory is polled instead of using a
+ * WatchService, as mounted network volumes often do not deliver file system events. A polled file is imported once
+ * its size and modification time did not change for one interval, so files still being copied are not read.
+ */
+public class FileDropImporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileDropImporter.class);
+  private static final Map<Vertx, FileDropImporter> instances = new WeakHashMap<>();
+
+  public static final String REPORT_SUFFIX = ".report.json";
+  private static final String GZIP_SUFFIX = ".gz";
+
+  private final Path directory;
+  private final UserImportAPI userImportAPI = new UserImportAPI();
+  private final Set<Path> importing = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean watching = new AtomicBoolean();
+  private Map<Path, String> lastSignatures = new HashMap<>();
+
+  FileDropImporter(Path directory) {
+    this.directory = directory == null ? null : directory.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Get the module wide file importer of the Vert.x instance, created from the configuration of the given context on first use.
+   */
+  public static synchronized FileDropImporter getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> {
+      String directory = ConfigurationUtil.getString(context, CONFIG_FILE_DROP_DIRECTORY, null);
+      return new FileDropImporter(Strings.isNullOrEmpty(directory) ? null : Paths.get(directory));
+    });
+  }
+
+  public boolean isEnabled() {
+    return directory != null;
+  }
+
+  /**
+   * Resolve a path relative to the import directory.
+   * @return the file, or null if the path leaves the import directory or does not name an import file
+   */
+  public Path resolve(String path) {
+    if (directory == null || Strings.isNullOrEmpty(path)) {
+      return null;
+    }
+    Path file = directory.resolve(path).normalize();
+    if (!file.startsWith(directory) || file.equals(directory) || !isImportFile(file.getFileName().toString())) {
+      return null;
+    }
+    return file;
+  }
+
+  /**
+   * Check whether a file name has one of the supported formats: .csv, .tsv or .json, optionally gzip compressed.
+   * Hidden files and reports are never imported.
+   */
+  static boolean isImportFile(String name) {
+    String format = name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+    return !name.startsWith(".") && !name.endsWith(REPORT_SUFFIX)
+      && (format.endsWith(".csv") || format.endsWith(".tsv") || format.endsWith(".json"));
+  }
+
+  static Path getReportFile(Path file) {
+    return file.resolveSibling(file.getFileName() + REPORT_SUFFIX);
+  }
+
+  /**
+   * Import the users of a file and write the report next to it.
+   * @param file a file resolved by {@link #resolve(String)}
+   * @param options the options of the import, JSON files may set further options before their users
+   * @param delimiter the value separator of CSV files, null to choose it by the file extension
+   * @param mapping the column mapping of CSV files
+   * @return the response of the import, also written as report when the file could not be read,
+   *         a future failed with ImportRejectedException when the import was rejected,
+   *         IllegalStateException when the file is already being imported or NoSuchFileException when it does not exist
+   */
+  public Future<ImportResponse> importFile(Path file, UserdataimportCollection options, Character delimiter, CsvColumnMapping mapping,
+    Map<String, String> okapiHeaders, Context context) {
+    Future<ImportResponse> future = Future.future();
+    if (!importing.add(file)) {
+      future.fail(new IllegalStateException(IMPORT_FILE_IN_PROGRESS + directory.relativize(file)));
+      return future;
+    }
+    Future<OpenFile> opened = Future.future();
+    context.executeBlocking(open -> {
+      try {
+        open.complete(new OpenFile(file, options, delimiter, mapping));
+      } catch (IOException e) {
+        open.fail(e);
+      }
+    }, false, opened.completer());
+
+    long importCost = UserImportAPI.estimateStreamingCost(context);
+    opened.compose(openFile -> {
+      Future<ImportResponse> imported = Future.future();
+      userImportAPI.importUsers(openFile.userCollection, openFile.userSource, importCost, okapiHeaders, context).setHandler(ar -> {
+        openFile.close();
+        imported.handle(ar);
+      });
+      return imported;
+    }).recover(cause -> {
+      if (cause instanceof IOException && !(cause instanceof NoSuchFileException)) {
+        return Future.succeededFuture(new ImportResponse()
+          .withMessage(FAILED_TO_IMPORT_USERS)
+          .withError(FAILED_TO_READ_USERS + " " + cause.getMessage())
+          .withTotalRecords(0)
+          .withCreatedRecords(0)
+          .withUpdatedRecords(0)
+          .withFailedRecords(0)
+          .withFailedUsers(new ArrayList<>()));
+      }
+      return Future.failedFuture(cause);
+    }).compose(response -> {
+      Future<ImportResponse> reported = Future.future();
+      context.executeBlocking(write -> {
+        try {
+          writeReport(file, response);
+        } catch (IOException e) {
+          ImportMetrics.increment("fileDrop.reportFailed");
+          LOGGER.error("Failed to write the report of " + file + ": " + e.getMessage());
+        }
+        write.complete(response);
+      }, false, reported.completer());
+      return reported;
+    }).setHandler(ar -> {
+      importing.remove(file);
+      if (ar.succeeded() && ar.result().getError() == null) {
+        ImportMetrics.increment("fileDrop.imported");
+        LOGGER.info("Imported " + file + ", report: " + getReportFile(file));
+      } else if (ar.succeeded() || !(ar.cause() instanceof ImportRejectedException)) {
+        ImportMetrics.increment("fileDrop.failed");
+        LOGGER.error("Failed to import " + file + ": " + (ar.succeeded() ? ar.result().getError() : ar.cause().getMessage()));
+      }
+      future.handle(ar);
+    });
+    return future;
+  }
+
+  private static void writeReport(Path file, ImportResponse response) throws IOException {
+    Path report = getReportFile(file);
+    Path temporary = report.resolveSibling("." + report.getFileName() + ".tmp");
+    Files.write(temporary, JsonObject.mapFrom(response).encodePrettily().getBytes(StandardCharsets.UTF_8));
+    Files.move(temporary, report, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Poll the import directory and import the new files one after the other.
+   * @param okapiHeaders the tenant, Okapi URL and token used for the imports
+   * @param intervalMs the polling interval
+   */
+  public void watch(Map<String, String> okapiHeaders, long intervalMs, Context context) {
+    if (watching.compareAndSet(false, true)) {
+      LOGGER.info("Watching " + directory + " for user imports every " + intervalMs + " ms.");
+      scheduleScan(okapiHeaders, intervalMs, context);
+    }
+  }
+
+  private void scheduleScan(Map<String, String> okapiHeaders, long intervalMs, Context context) {
+    context.owner().setTimer(intervalMs, id -> scan(okapiHeaders, intervalMs, context));
+  }
+
+  private void scan(Map<String, String> okapiHeaders, long intervalMs, Context context) {
+    Future<Deque<Path>> listed = Future.future();
+    context.executeBlocking(list -> {
+      try {
+        list.complete(listStableFiles());
+      } catch (IOException e) {
+        list.fail(e);
+      }
+    }, false, listed.completer());
+    listed.setHandler(ar -> {
+      if (ar.failed()) {
+        LOGGER.error("Failed to list " + directory + ": " + ar.cause().getMessage());
+        scheduleScan(okapiHeaders, intervalMs, context);
+      } else {
+        importNext(ar.result(), okapiHeaders, intervalMs, context);
+      }
+    });
+  }
+
+  private void importNext(Deque<Path> files, Map<String, String> okapiHeaders, long intervalMs, Context context) {
+    Path file = files.poll();
+    if (file == null) {
+      scheduleScan(okapiHeaders, intervalMs, context);
+      return;
+    }
+    UserdataimportCollection options = new UserdataimportCollection()
+      .withDeactivateMissingUsers(false)
+      .withUpdateOnlyPresentFields(false);
+    CsvColumnMapping mapping;
+    try {
+      mapping = CsvColumnMapping.parse(ConfigurationUtil.getString(context, CONFIG_CSV_COLUMN_MAPPING, null));
+    } catch (IllegalArgumentException e) {
+      LOGGER.error("Invalid " + CONFIG_CSV_COLUMN_MAPPING + ": " + e.getMessage());
+      mapping = CsvColumnMapping.parse(null);
+    }
+    importFile(file, options, null, mapping, okapiHeaders, context)
+      .setHandler(ar -> importNext(files, okapiHeaders, intervalMs, context));
+  }
+
+  /**
+   * List the import files without a report that did not change since the previous scan.
+   */
+  private synchronized Deque<Path> listStableFiles() throws IOException {
+    Map<Path, String> signatures = new HashMap<>();
+    Deque<Path> files = new ArrayDeque<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (Path file : stream) {
+        if (!Files.isRegularFile(file) || !isImportFile(file.getFileName().toString())
+          || Files.exists(getReportFile(file)) || importing.contains(file)) {
+          continue;
+        }
+        String signature = Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+        signatures.put(file, signature);
+        if (signature.equals(lastSignatures.get(file))) {
+          files.add(file);
+        }
+      }
+    }
+    lastSignatures = signatures;
+    return files;
+  }
+
+  /*
+   * An opened import file and its user source.
+   */
+  private static class OpenFile {
+    private final FileChannel channel;
+    private final UserSource userSource;
+    private final UserdataimportCollection userCollection;
+
+    OpenFile(Path file, UserdataimportCollection options, Character delimiter, CsvColumnMapping mapping) throws IOException {
+      String name = file.getFileName().toString();
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+      try {
+        InputStream in = new MappedFileInputStream(channel);
+        if (name.endsWith(GZIP_SUFFIX)) {
+          in = new GZIPInputStream(in, 65536);
+          name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        userCollection = new UserdataimportCollection()
+          .withUsers(new ArrayList<>())
+          .withTotalRecords(0);
+        if (name.endsWith(".json")) {
+          JsonUserReader jsonReader = new JsonUserReader(in);
+          UserImportAPI.mergeOptions(userCollection, options, jsonReader.getOptions());
+          userSource = jsonReader;
+        } else {
+          UserImportAPI.mergeOptions(userCollection, options, new UserdataimportCollection());
+          char separator = delimiter != null ? delimiter : name.endsWith(".tsv") ? '\t' : ',';
+          userSource = new CsvUserReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 65536), separator, mapping);
+        }
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close import file: " + e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package org.folio.rest.impl;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.folio.rest.resource.interfaces.InitAPI;
+import org.folio.rest.util.ConfigurationUtil;
+import org.folio.rest.util.WarmUp;
+
+import com.google.common.base.Strings;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Module start. Starts watching the import directory if file imports are enabled and a watch interval is set, and
+ * runs the {@link WarmUp} of the module. The module start completes when the warm-up is finished, or after
+ * userImport.warmUp.maxWaitMs if the warm-up takes longer, e.g. because Okapi does not answer.
+ */
+public class InitAPIs implements InitAPI {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InitAPIs.class);
+
+  @Override
+  public void init(Vertx vertx, Context context, Handler<AsyncResult<Boolean>> handler) {
+    FileDropImporter fileDropImporter = FileDropImporter.getInstance(context);
+    long intervalMs = ConfigurationUtil.getLong(context, CONFIG_FILE_DROP_WATCH_INTERVAL_MS, DEFAULT_FILE_DROP_WATCH_INTERVAL_MS);
+    if (fileDropImporter.isEnabled() && intervalMs > 0) {
+      String tenant = ConfigurationUtil.getString(context, CONFIG_FILE_DROP_TENANT, null);
+      String okapiUrl = ConfigurationUtil.getString(context, CONFIG_FILE_DROP_OKAPI_URL, null);
+      if (Strings.isNullOrEmpty(tenant) || Strings.isNullOrEmpty(okapiUrl)) {
+        LOGGER.error("Not watching the import directory, " + CONFIG_FILE_DROP_TENANT + " and " + CONFIG_FILE_DROP_OKAPI_URL + " are required.");
+      } else {
+        Map<String, String> okapiHeaders = new HashMap<>();
+        okapiHeaders.put(OKAPI_TENANT_HEADER, tenant);
+        okapiHeaders.put(OKAPI_URL_HEADER, okapiUrl);
+        okapiHeaders.put(OKAPI_TOKEN_HEADER, ConfigurationUtil.getString(context, CONFIG_FILE_DROP_TOKEN, ""));
+        fileDropImporter.watch(okapiHeaders, intervalMs, context);
+      }
+    }
+    Future<Boolean> started = Future.future();
+    long maxWaitMs = ConfigurationUtil.getPositiveLong(context, CONFIG_WARM_UP_MAX_WAIT_MS, DEFAULT_WARM_UP_MAX_WAIT_MS);
+    long timerId = vertx.setTimer(maxWaitMs, id -> {
+      if (!started.isComplete()) {
+        LOGGER.warn("The warm-up is not finished after " + maxWaitMs + " ms, starting the module anyway.");
+        started.complete(true);
+      }
+    });
+    WarmUp.getInstance(context).run(getWarmUpHeaders(context), context).setHandler(warmUp -> context.runOnContext(v -> {
+      vertx.cancelTimer(timerId);
+      if (!started.isComplete()) {
+        started.complete(true);
+      }
+    }));
+    started.setHandler(handler);
+  }
+
+  /**
+   * Get the headers of the tenant whose reference data is preloaded by the warm-up.
+   * @return the headers, null if no warm-up tenant is configured
+   */
+  private static Map<String, String> getWarmUpHeaders(Context context) {
+    String tenant = ConfigurationUtil.getString(context, CONFIG_WARM_UP_TENANT, null);
+    String okapiUrl = ConfigurationUtil.getString(context, CONFIG_WARM_UP_OKAPI_URL, null);
+    if (Strings.isNullOrEmpty(tenant) || Strings.isNullOrEmpty(okapiUrl)) {
+      return null;
+    }
+    Map<String, String> okapiHeaders = new HashMap<>();
+    okapiHeaders.put(OKAPI_TENANT_HEADER, tenant);
+    okapiHeaders.put(OKAPI_URL_HEADER, okapiUrl);
+    okapiHeaders.put(OKAPI_TOKEN_HEADER, ConfigurationUtil.getString(context, CONFIG_WARM_UP_TOKEN, ""));
+    return okapiHeaders;
+  }
+}
@@ -1,33 +1,73 @@
 package org.folio.rest.impl;
 
-import static org.folio.rest.util.AddressTypeManager.*;
+import static org.folio.rest.util.ConfigurationUtil.*;
 import static org.folio.rest.util.HttpClientUtil.*;
-import static org.folio.rest.util.PatronGroupManager.*;
 import static org.folio.rest.util.UserDataUtil.*;
 import static org.folio.rest.util.UserImportAPIConstants.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 
 import org.folio.rest.jaxrs.model.FailedUser;
 import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.jaxrs.model.Metric;
+import org.folio.rest.jaxrs.model.MetricsCollection;
 import org.folio.rest.jaxrs.model.User;
 import org.folio.rest.jaxrs.model.UserdataimportCollection;
+import org.folio.rest.jaxrs.model.UserdataimportCollection.ReferenceDataPolicy;
 import org.folio.rest.jaxrs.resource.UserImportResource;
+import org.folio.rest.model.DeactivationResult;
+import org.folio.rest.model.IdempotencyKeyReusedException;
+import org.folio.rest.model.ImportCancellation;
+import org.folio.rest.model.ImportRejectedException;
+import org.folio.rest.model.MappedPartition;
 import org.folio.rest.model.UserImportData;
 import org.folio.rest.model.UserMappingFailedException;
-import org.folio.rest.tools.client.HttpClientFactory;
+import org.folio.rest.model.ValidatedPartition;
 import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+import org.folio.rest.util.AdmissionController;
+import org.folio.rest.util.ContentEncoding;
+import org.folio.rest.util.CqlQueryBuilder;
+import org.folio.rest.util.CqlQueryBuilder.UserSearchQuery;
+import org.folio.rest.util.CsvColumnMapping;
+import org.folio.rest.util.CsvUserReader;
+import org.folio.rest.util.DuplicateDetector;
+import org.folio.rest.util.ExternalSystemIdSet;
+import org.folio.rest.util.IdempotencyStore;
+import org.folio.rest.util.ImportMetrics;
+import org.folio.rest.util.JsonUserReader;
+import org.folio.rest.util.LatencyWindow;
+import org.folio.rest.util.MappingExecutor;
+import org.folio.rest.util.ReferenceDataCache;
+import org.folio.rest.util.ReferenceDataResolver;
 import org.folio.rest.util.SingleUserImportResponse;
+import org.folio.rest.util.SyncSessionStore;
+import org.folio.rest.util.TenantImportScheduler;
+import org.folio.rest.util.UserDeactivator;
+import org.folio.rest.util.UserExporter;
 import org.folio.rest.util.UserRecordImportStatus;
+import org.folio.rest.util.UserSource;
+import org.folio.rest.util.UserValidator;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.Lists;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
@@ -35,6 +75,8 @@ import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
@@ -44,8 +86,8 @@ import io.vertx.ext.web.RoutingContext;
 public class UserImportAPI implements UserImportResource {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(UserImportAPI.class);
-  private static final int CONN_TO = 5000;
-  private static final int IDLE_TO = 10000;
+  private static final LatencyWindow UPSERT_LATENCY = LatencyWindow.register("upsert.latency", 1000);
+  private static final int CREATE_RETRIES = 2;
 
   /*
    * Fake endpoint. Workaround for raml-module-builder.
@@ -57,6 +99,49 @@ public class UserImportAPI implements UserImportResource {
       .handle(Future.succeededFuture(GetUserImportResponse.withPlainBadRequest("This is a fake endpoint.")));
   }
 
+  /**
+   * List the counters and gauges of the module.
+   */
+  @Override
+  public void getUserImportMetrics(RoutingContext routingContext, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    List<Metric> metrics = new ArrayList<>();
+    ImportMetrics.getCounters().forEach((name, value) -> metrics.add(new Metric().withName(name).withType(ImportMetrics.COUNTER).withValue(value.doubleValue())));
+    ImportMetrics.getGauges().forEach((name, value) -> metrics.add(new Metric().withName(name).withType(ImportMetrics.GAUGE).withValue(value.doubleValue())));
+    MetricsCollection metricsCollection = new MetricsCollection()
+      .withMetrics(metrics)
+      .withTotalRecords(metrics.size());
+    asyncResultHandler
+      .handle(Future.succeededFuture(GetUserImportMetricsResponse.withJsonOK(metricsCollection)));
+  }
+
+  /**
+   * Stream the users of a sourceType. The users are written to the response directly, the result handler is only
+   * used for responses sent before the streaming starts.
+   */
+  @Override
+  public void getUserImportExport(String sourceType, String format, String fields, RoutingContext routingContext,
+    Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    UserExporter exporter;
+    try {
+      exporter = new UserExporter(createHttpClient(okapiHeaders, null, vertxContext), okapiHeaders, sourceType, format, fields,
+        getPositiveInt(vertxContext, CONFIG_EXPORT_PAGE_SIZE, DEFAULT_EXPORT_PAGE_SIZE));
+    } catch (IllegalArgumentException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(GetUserImportExportResponse.withPlainBadRequest(e.getMessage())));
+      return;
+    }
+    exporter.export(routingContext.response()).setHandler(handler -> {
+      if (handler.succeeded()) {
+        LOGGER.info("Exported " + handler.result() + " users of sourceType " + sourceType);
+      } else if (!routingContext.response().headWritten()) {
+        LOGGER.error(FAILED_TO_EXPORT_USERS + handler.cause().getMessage());
+        asyncResultHandler
+          .handle(Future.succeededFuture(GetUserImportExportResponse.withPlainInternalServerError(FAILED_TO_EXPORT_USERS + handler.cause().getMessage())));
+      }
+    });
+  }
+
   /**
    * User import entry point.
    */
@@ -72,42 +157,584 @@ public class UserImportAPI implements UserImportResource {
       asyncResultHandler
         .handle(Future.succeededFuture(PostUserImportResponse.withJsonOK(emptyResponse)));
     } else {
+      long importCost = AdmissionController.estimateCost(Math.max(userCollection.getTotalRecords(), userCollection.getUsers().size()),
+        getContentLength(routingContext));
+      runImport(userCollection, cancellation -> importUsers(userCollection, UserSource.of(userCollection.getUsers()), importCost, null,
+        cancellation, okapiHeaders, vertxContext),
+        routingContext, getIdempotencyKey(routingContext), getRequestFingerprint(routingContext, userCollection, false), okapiHeaders,
+        asyncResultHandler, vertxContext,
+        PostUserImportResponse::withJsonOK, PostUserImportResponse::withJsonInternalServerError);
+    }
+  }
+
+  /**
+   * Single user import entry point. The user is created or updated right away, outside the admission control and the
+   * import scheduler, with the pooled client of the tenant and reference data from the {@link ReferenceDataCache}.
+   * The search for the existing user runs while the user is validated. The latency of every request is recorded.
+   */
+  @Override
+  public void postUserImportUser(String sourceType, boolean updateOnlyPresentFields, String referenceDataPolicy, User entity,
+    RoutingContext routingContext, Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
+    Context vertxContext) throws Exception {
+    long start = System.currentTimeMillis();
+    ReferenceDataPolicy policy;
+    try {
+      policy = parseReferenceDataPolicy(referenceDataPolicy);
+    } catch (IllegalArgumentException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportUserResponse.withPlainBadRequest(e.getMessage())));
+      return;
+    }
+    UserdataimportCollection userCollection = new UserdataimportCollection()
+      .withUsers(Collections.singletonList(entity))
+      .withTotalRecords(1)
+      .withSourceType(sourceType)
+      .withUpdateOnlyPresentFields(updateOnlyPresentFields)
+      .withReferenceDataPolicy(policy);
+    upsertUser(userCollection, okapiHeaders, vertxContext).setHandler(handler -> {
+      long latencyMs = System.currentTimeMillis() - start;
+      ImportMetrics.increment("upsert.requests");
+      ImportMetrics.add("upsert.timeMs", latencyMs);
+      UPSERT_LATENCY.record(latencyMs);
+      Response response;
+      if (handler.failed()) {
+        ImportMetrics.increment("upsert.failed");
+        response = PostUserImportUserResponse.withJsonInternalServerError(processErrorResponse(userCollection, handler.cause().getMessage()));
+      } else if (handler.result().getFailedRecords() > 0) {
+        ImportMetrics.increment("upsert.failed");
+        response = PostUserImportUserResponse.withJsonUnprocessableEntity(handler.result().withMessage(FAILED_TO_IMPORT_USERS));
+      } else {
+        response = PostUserImportUserResponse.withJsonOK(handler.result().withMessage(USER_WAS_IMPORTED_SUCCESSFULLY));
+      }
+      asyncResultHandler.handle(Future.succeededFuture(response));
+    });
+  }
+
+  /**
+   * CSV user import entry point. The rows are read lazily and imported in partitions like the users of a JSON import.
+   */
+  @Override
+  public void postUserImportCsv(String sourceType, boolean deactivateMissingUsers, boolean updateOnlyPresentFields,
+    String referenceDataPolicy, int timeoutMs, String delimiter, String columnMapping, InputStream entity, RoutingContext routingContext, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    CsvColumnMapping mapping;
+    ReferenceDataPolicy policy;
+    try {
+      mapping = CsvColumnMapping.parse(Strings.isNullOrEmpty(columnMapping) ? getString(vertxContext, CONFIG_CSV_COLUMN_MAPPING, null) : columnMapping);
+      policy = parseReferenceDataPolicy(referenceDataPolicy);
+    } catch (IllegalArgumentException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportCsvResponse.withPlainBadRequest(e.getMessage())));
+      return;
+    }
+    String separator = "\\t".equals(delimiter) ? "\t" : Strings.isNullOrEmpty(delimiter) ? "," : delimiter;
+    if (separator.length() != 1) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportCsvResponse.withPlainBadRequest(INVALID_CSV_DELIMITER + delimiter)));
+      return;
+    }
+
+    String contentEncoding = routingContext.request().getHeader(HTTP_HEADER_CONTENT_ENCODING);
+    if (!ContentEncoding.isSupported(contentEncoding)) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportCsvResponse.withPlainUnsupportedMediaType(UNSUPPORTED_CONTENT_ENCODING + contentEncoding)));
+      return;
+    }
+    InputStream body;
+    try {
+      body = ContentEncoding.decode(entity, contentEncoding);
+    } catch (IOException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportCsvResponse.withPlainBadRequest(INVALID_COMPRESSED_BODY + e.getMessage())));
+      return;
+    }
+
+    UserdataimportCollection userCollection = new UserdataimportCollection()
+      .withUsers(new ArrayList<>())
+      .withTotalRecords(0)
+      .withSourceType(sourceType)
+      .withDeactivateMissingUsers(deactivateMissingUsers)
+      .withUpdateOnlyPresentFields(updateOnlyPresentFields)
+      .withReferenceDataPolicy(policy)
+      .withTimeoutMs(timeoutMs > 0 ? timeoutMs : null);
+    CsvUserReader userSource = new CsvUserReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), separator.charAt(0), mapping);
+    try {
+      userSource.readHeader();
+    } catch (IOException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportCsvResponse.withPlainBadRequest(e.getMessage())));
+      return;
+    }
+    long importCost = estimateStreamingCost(vertxContext);
+    runImport(userCollection, cancellation -> importUsers(userCollection, userSource, importCost, null,
+      cancellation, okapiHeaders, vertxContext),
+      routingContext, getIdempotencyKey(routingContext), getRequestFingerprint(routingContext, userCollection, true), okapiHeaders,
+      asyncResultHandler, vertxContext,
+      PostUserImportCsvResponse::withJsonOK, PostUserImportCsvResponse::withJsonInternalServerError);
+  }
+
+  /**
+   * Streaming JSON user import entry point. The body has the format of POST /user-import, but the users are read
+   * lazily and the body may be compressed. The query parameters are combined with the options given in the body.
+   */
+  @Override
+  public void postUserImportJson(String sourceType, boolean deactivateMissingUsers, boolean updateOnlyPresentFields,
+    String referenceDataPolicy, int timeoutMs, InputStream entity, RoutingContext routingContext, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    ReferenceDataPolicy policy;
+    try {
+      policy = parseReferenceDataPolicy(referenceDataPolicy);
+    } catch (IllegalArgumentException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportJsonResponse.withPlainBadRequest(e.getMessage())));
+      return;
+    }
+    String contentEncoding = routingContext.request().getHeader(HTTP_HEADER_CONTENT_ENCODING);
+    if (!ContentEncoding.isSupported(contentEncoding)) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportJsonResponse.withPlainUnsupportedMediaType(UNSUPPORTED_CONTENT_ENCODING + contentEncoding)));
+      return;
+    }
+    JsonUserReader userSource;
+    try {
+      userSource = new JsonUserReader(ContentEncoding.decode(entity, contentEncoding));
+    } catch (IOException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportJsonResponse.withPlainBadRequest(INVALID_COMPRESSED_BODY + e.getMessage())));
+      return;
+    }
+
+    UserdataimportCollection userCollection = new UserdataimportCollection()
+      .withUsers(new ArrayList<>())
+      .withTotalRecords(0);
+    mergeOptions(userCollection, new UserdataimportCollection()
+      .withSourceType(sourceType)
+      .withDeactivateMissingUsers(deactivateMissingUsers)
+      .withUpdateOnlyPresentFields(updateOnlyPresentFields)
+      .withReferenceDataPolicy(policy)
+      .withTimeoutMs(timeoutMs > 0 ? timeoutMs : null), userSource.getOptions());
+    long importCost = estimateStreamingCost(vertxContext);
+    runImport(userCollection, cancellation -> importUsers(userCollection, userSource, importCost, null,
+      cancellation, okapiHeaders, vertxContext),
+      routingContext, getIdempotencyKey(routingContext), getRequestFingerprint(routingContext, userCollection, true), okapiHeaders,
+      asyncResultHandler, vertxContext,
+      PostUserImportJsonResponse::withJsonOK, PostUserImportJsonResponse::withJsonInternalServerError);
+  }
+
+  /**
+   * Import users from a file in the import directory of the module, see {@link FileDropImporter}.
+   */
+  @Override
+  public void postUserImportFile(String path, String sourceType, boolean deactivateMissingUsers, boolean updateOnlyPresentFields,
+    String referenceDataPolicy, int timeoutMs, String delimiter, String columnMapping, RoutingContext routingContext, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    FileDropImporter fileDropImporter = FileDropImporter.getInstance(vertxContext);
+    if (!fileDropImporter.isEnabled()) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportFileResponse.withPlainBadRequest(FILE_DROP_DISABLED)));
+      return;
+    }
+    Path file = fileDropImporter.resolve(path);
+    if (file == null) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportFileResponse.withPlainBadRequest(INVALID_IMPORT_FILE_PATH + path)));
+      return;
+    }
+    CsvColumnMapping mapping;
+    ReferenceDataPolicy policy;
+    try {
+      mapping = CsvColumnMapping.parse(Strings.isNullOrEmpty(columnMapping) ? getString(vertxContext, CONFIG_CSV_COLUMN_MAPPING, null) : columnMapping);
+      policy = parseReferenceDataPolicy(referenceDataPolicy);
+    } catch (IllegalArgumentException e) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportFileResponse.withPlainBadRequest(e.getMessage())));
+      return;
+    }
+    String separator = "\\t".equals(delimiter) ? "\t" : delimiter;
+    if (!Strings.isNullOrEmpty(separator) && separator.length() != 1) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportFileResponse.withPlainBadRequest(INVALID_CSV_DELIMITER + delimiter)));
+      return;
+    }
+
+    UserdataimportCollection options = new UserdataimportCollection()
+      .withUsers(new ArrayList<>())
+      .withTotalRecords(0)
+      .withSourceType(sourceType)
+      .withDeactivateMissingUsers(deactivateMissingUsers)
+      .withUpdateOnlyPresentFields(updateOnlyPresentFields)
+      .withReferenceDataPolicy(policy)
+      .withTimeoutMs(timeoutMs > 0 ? timeoutMs : null);
+    fileDropImporter.importFile(file, options, Strings.isNullOrEmpty(separator) ? null : separator.charAt(0), mapping, okapiHeaders, vertxContext)
+      .setHandler(handler -> {
+        if (handler.failed() && handler.cause() instanceof ImportRejectedException) {
+          asyncResultHandler
+            .handle(Future.succeededFuture(createRejectedResponse(options, handler.cause())));
+        } else if (handler.failed() && handler.cause() instanceof NoSuchFileException) {
+          asyncResultHandler
+            .handle(Future.succeededFuture(PostUserImportFileResponse.withPlainNotFound(IMPORT_FILE_NOT_FOUND + path)));
+        } else if (handler.failed() && handler.cause() instanceof IllegalStateException) {
+          asyncResultHandler
+            .handle(Future.succeededFuture(PostUserImportFileResponse.withPlainBadRequest(handler.cause().getMessage())));
+        } else if (handler.failed()) {
+          asyncResultHandler
+            .handle(Future.succeededFuture(PostUserImportFileResponse.withJsonInternalServerError(processErrorResponse(options,
+              handler.cause().getMessage()))));
+        } else if (handler.result().getError() == null) {
+          asyncResultHandler
+            .handle(Future.succeededFuture(PostUserImportFileResponse.withJsonOK(handler.result())));
+        } else {
+          asyncResultHandler
+            .handle(Future.succeededFuture(PostUserImportFileResponse.withJsonInternalServerError(handler.result())));
+        }
+      });
+  }
+
+  /**
+   * Open a sync session, see {@link SyncSessionStore}.
+   */
+  @Override
+  public void postUserImportSessions(String sourceType, RoutingContext routingContext, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    SyncSessionStore.Session session = SyncSessionStore.getInstance(vertxContext)
+      .open(okapiHeaders.get(OKAPI_TENANT_HEADER), Strings.emptyToNull(sourceType));
+    asyncResultHandler
+      .handle(Future.succeededFuture(PostUserImportSessionsResponse.withJsonCreated(session.toSyncSession())));
+  }
+
+  /**
+   * Import a chunk of a sync session. The externalSystemIds of its users are added to the session, no users are
+   * deactivated. The Idempotency-Key of a chunk is scoped to its session.
+   */
+  @Override
+  public void postUserImportSessionsBySessionId(String sessionId, UserdataimportCollection userCollection, RoutingContext routingContext,
+    Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    SyncSessionStore.Session session = SyncSessionStore.getInstance(vertxContext).get(okapiHeaders.get(OKAPI_TENANT_HEADER), sessionId);
+    if (session == null) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportSessionsBySessionIdResponse.withPlainNotFound(SYNC_SESSION_NOT_FOUND + sessionId)));
+      return;
+    }
+    userCollection
+      .withSourceType(session.getSourceType())
+      .withDeactivateMissingUsers(false);
+    long importCost = AdmissionController.estimateCost(Math.max(userCollection.getTotalRecords(), userCollection.getUsers().size()),
+      getContentLength(routingContext));
+    String idempotencyKey = getIdempotencyKey(routingContext);
+    runImport(userCollection, cancellation -> {
+      Future<ImportResponse> chunk = Future.future();
+      session.chunkStarted();
+      importUsers(userCollection, UserSource.of(userCollection.getUsers()), importCost, session.getSeenExternalSystemIds(),
+        cancellation, okapiHeaders, vertxContext)
+        .setHandler(handler -> {
+          session.chunkFinished(handler.succeeded() ? handler.result() : null);
+          chunk.handle(handler);
+        });
+      return chunk;
+    }, routingContext, idempotencyKey == null ? null : sessionId + ":" + idempotencyKey,
+      getRequestFingerprint(routingContext, userCollection, false), okapiHeaders, asyncResultHandler, vertxContext,
+      PostUserImportSessionsBySessionIdResponse::withJsonOK, PostUserImportSessionsBySessionIdResponse::withJsonInternalServerError);
+  }
+
+  /**
+   * Abort a sync session, the users already imported by its chunks are kept.
+   */
+  @Override
+  public void deleteUserImportSessionsBySessionId(String sessionId, RoutingContext routingContext, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    if (SyncSessionStore.getInstance(vertxContext).remove(okapiHeaders.get(OKAPI_TENANT_HEADER), sessionId) == null) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(DeleteUserImportSessionsBySessionIdResponse.withPlainNotFound(SYNC_SESSION_NOT_FOUND + sessionId)));
+    } else {
+      asyncResultHandler
+        .handle(Future.succeededFuture(DeleteUserImportSessionsBySessionIdResponse.withNoContent()));
+    }
+  }
 
-      HttpClientInterface httpClient = HttpClientFactory.getHttpClient(getOkapiUrl(okapiHeaders), -1, okapiHeaders.get(OKAPI_TENANT_HEADER), true, CONN_TO, IDLE_TO,false,30L);
-      startUserImport(httpClient, okapiHeaders, userCollection).setHandler(handler -> {
-        if (handler.succeeded() && handler.result() != null && handler.result().getError() == null) {
+  /**
+   * Commit a sync session. The users of its sourceType missing from all chunks are deactivated like the missing users
+   * of an import with deactivateMissingUsers.
+   */
+  @Override
+  public void postUserImportSessionsCommitBySessionId(String sessionId, RoutingContext routingContext, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) throws Exception {
+    SyncSessionStore sessionStore = SyncSessionStore.getInstance(vertxContext);
+    String tenant = okapiHeaders.get(OKAPI_TENANT_HEADER);
+    SyncSessionStore.Session session = sessionStore.get(tenant, sessionId);
+    if (session == null) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportSessionsCommitBySessionIdResponse.withPlainNotFound(SYNC_SESSION_NOT_FOUND + sessionId)));
+      return;
+    }
+    if (session.getChunksInFlight() > 0) {
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportSessionsCommitBySessionIdResponse.withPlainBadRequest(SYNC_SESSION_CHUNKS_RUNNING + sessionId)));
+      return;
+    }
+    sessionStore.remove(tenant, sessionId);
+    ImportResponse sessionResponse = session.getResponse();
+    if (!session.isComplete()) {
+      LOGGER.warn("Failed to import all users of sync session " + sessionId + ", skipping deactivation.");
+      sessionResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY + " " + USER_DEACTIVATION_SKIPPED);
+      asyncResultHandler
+        .handle(Future.succeededFuture(PostUserImportSessionsCommitBySessionIdResponse.withJsonOK(sessionResponse)));
+      return;
+    }
+
+    HttpClientInterface httpClient = createHttpClient(okapiHeaders, null, vertxContext);
+    UserImportData userImportData = new UserImportData(new UserdataimportCollection()
+      .withSourceType(session.getSourceType())
+      .withDeactivateMissingUsers(true));
+    userImportData.setTenant(tenant);
+    userImportData.setMappingExecutor(MappingExecutor.getInstance(vertxContext));
+    userImportData.setDeactivator(new UserDeactivator(vertxContext, httpClient, okapiHeaders));
+    userImportData.setSeenExternalSystemIds(session.getSeenExternalSystemIds());
+    listExistingUsers(httpClient, okapiHeaders, session.getSourceType(), userImportData).setHandler(listingResult ->
+      deactivateMissingUsers(sessionResponse, listingResult, true, userImportData).setHandler(handler -> {
+        if (handler.failed()) {
+          String error = FAILED_TO_DEACTIVATE_USERS + extractErrorMessage(handler);
+          LOGGER.error(error);
+          sessionResponse.setError(error);
           asyncResultHandler
-            .handle(Future.succeededFuture(PostUserImportResponse.withJsonOK(handler.result())));
+            .handle(Future.succeededFuture(PostUserImportSessionsCommitBySessionIdResponse.withJsonInternalServerError(sessionResponse)));
+        } else if (handler.result().getError() == null) {
+          asyncResultHandler
+            .handle(Future.succeededFuture(PostUserImportSessionsCommitBySessionIdResponse.withJsonOK(handler.result())));
         } else {
           asyncResultHandler
-            .handle(Future.succeededFuture(PostUserImportResponse.withJsonInternalServerError(handler.result())));
+            .handle(Future.succeededFuture(PostUserImportSessionsCommitBySessionIdResponse.withJsonInternalServerError(handler.result())));
         }
+      }));
+  }
+
+  /**
+   * Set the options of a streamed import from its query parameters and the options given in its body.
+   * A source type, reference data policy or timeout of the query overrides the body, flags are set if either sets them.
+   */
+  static void mergeOptions(UserdataimportCollection userCollection, UserdataimportCollection query, UserdataimportCollection body) {
+    userCollection
+      .withSourceType(Strings.isNullOrEmpty(query.getSourceType()) ? body.getSourceType() : query.getSourceType())
+      .withDeactivateMissingUsers(Boolean.TRUE.equals(query.getDeactivateMissingUsers()) || Boolean.TRUE.equals(body.getDeactivateMissingUsers()))
+      .withUpdateOnlyPresentFields(Boolean.TRUE.equals(query.getUpdateOnlyPresentFields()) || Boolean.TRUE.equals(body.getUpdateOnlyPresentFields()))
+      .withReferenceDataPolicy(query.getReferenceDataPolicy() == null ? body.getReferenceDataPolicy() : query.getReferenceDataPolicy())
+      .withDefaultPatronGroup(body.getDefaultPatronGroup())
+      .withDefaultAddressType(body.getDefaultAddressType())
+      .withTimeoutMs(query.getTimeoutMs() == null ? body.getTimeoutMs() : query.getTimeoutMs());
+  }
+
+  /**
+   * Parse the reference data policy query parameter of an import.
+   * @return the policy, null if the parameter is not given
+   * @throws IllegalArgumentException if the policy is not drop, fail or default
+   */
+  private static ReferenceDataPolicy parseReferenceDataPolicy(String referenceDataPolicy) {
+    return Strings.isNullOrEmpty(referenceDataPolicy) ? null : ReferenceDataResolver.parsePolicy(referenceDataPolicy);
+  }
+
+  /**
+   * Run an import and send its response. An import with the Idempotency-Key of a running or recently finished import
+   * of the tenant is not run again, it gets the response of that import. The import is stopped when the clients of
+   * all requests waiting for it disconnect before their responses are sent, no further partitions are started and
+   * the running ones are finished. A request reusing the Idempotency-Key of another request gets a 422 response.
+   * @param importer starts the import with its cancellation, see {@link #importUsers}
+   * @param routingContext the request of the import
+   * @param fingerprint the fingerprint of the request, see {@link #getRequestFingerprint}
+   */
+  private void runImport(UserdataimportCollection userCollection, Function<ImportCancellation, Future<ImportResponse>> importer,
+    RoutingContext routingContext, String idempotencyKey, String fingerprint, Map<String, String> okapiHeaders,
+    Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext, Function<ImportResponse, Response> okResponse, Function<ImportResponse, Response> errorResponse) {
+    ImportCancellation cancellation = createCancellation(userCollection, vertxContext);
+    Consumer<Runnable> closeHandler = disconnected -> routingContext.response().closeHandler(v -> {
+      if (!routingContext.response().ended()) {
+        disconnected.run();
+      }
+    });
+    Runnable abandonHandler = () -> {
+      LOGGER.warn("The client disconnected, stopping the import.");
+      ImportMetrics.increment("import.clientDisconnected");
+      cancellation.cancel(CLIENT_DISCONNECTED);
+    };
+    IdempotencyStore.getInstance(vertxContext).execute(okapiHeaders.get(OKAPI_TENANT_HEADER), idempotencyKey, fingerprint,
+      () -> importer.apply(cancellation), closeHandler, abandonHandler).setHandler(handler -> {
+      if (handler.failed() && handler.cause() instanceof ImportRejectedException) {
+        asyncResultHandler
+          .handle(Future.succeededFuture(createRejectedResponse(userCollection, handler.cause())));
+      } else if (handler.failed() && handler.cause() instanceof IdempotencyKeyReusedException) {
+        asyncResultHandler
+          .handle(Future.succeededFuture(Response.status(HTTP_STATUS_UNPROCESSABLE_ENTITY)
+            .type(MediaType.APPLICATION_JSON)
+            .entity(processErrorResponse(userCollection, handler.cause().getMessage()))
+            .build()));
+      } else if (handler.succeeded() && handler.result() != null && handler.result().getError() == null) {
+        asyncResultHandler
+          .handle(Future.succeededFuture(okResponse.apply(handler.result())));
+      } else if (handler.failed() || handler.result() == null) {
+        String error = FAILED_TO_IMPORT_USERS + extractErrorMessage(handler);
+        LOGGER.error(error);
+        asyncResultHandler
+          .handle(Future.succeededFuture(errorResponse.apply(processErrorResponse(userCollection, error))));
+      } else {
+        asyncResultHandler
+          .handle(Future.succeededFuture(errorResponse.apply(handler.result())));
+      }
+    });
+  }
+
+  /**
+   * Run a standalone import within the admission control, without a client connection to watch.
+   */
+  Future<ImportResponse> importUsers(UserdataimportCollection userCollection, UserSource userSource, long importCost,
+    Map<String, String> okapiHeaders, Context vertxContext) {
+    return importUsers(userCollection, userSource, importCost, null, createCancellation(userCollection, vertxContext),
+      okapiHeaders, vertxContext);
+  }
+
+  /**
+   * Run an import within the admission control.
+   * @param seenExternalSystemIds collects the externalSystemIds of the imported users for a later deactivation, null
+   *   for a standalone import
+   * @param cancellation stops the import, see {@link #createCancellation}
+   * @return the response of the import, a future failed with ImportRejectedException when the import was rejected
+   */
+  Future<ImportResponse> importUsers(UserdataimportCollection userCollection, UserSource userSource, long importCost,
+    ExternalSystemIdSet seenExternalSystemIds, ImportCancellation cancellation, Map<String, String> okapiHeaders, Context vertxContext) {
+    Future<ImportResponse> future = Future.future();
+    AdmissionController admissionController = AdmissionController.getInstance(vertxContext);
+    admissionController.acquire(importCost).setHandler(admission -> {
+      if (admission.failed()) {
+        future.fail(admission.cause());
+        return;
+      }
+      if (cancellation.isCancelled()) {
+        LOGGER.warn("The import was stopped before it started: " + cancellation.getReason());
+        admissionController.release(importCost);
+        future.complete(processErrorResponse(userCollection, cancellation.getReason()));
+        return;
+      }
 
+      HttpClientInterface httpClient = createHttpClient(okapiHeaders, cancellation, vertxContext);
+      startUserImport(httpClient, okapiHeaders, userCollection, userSource, seenExternalSystemIds, cancellation, vertxContext).setHandler(handler -> {
+        admissionController.release(importCost);
+        future.handle(handler);
       });
+    });
+    return future;
+  }
+
+  /**
+   * Create the cancellation of an import with the deadline of the import, see {@link #runImport} for stopping an
+   * import when its clients disconnect.
+   */
+  private ImportCancellation createCancellation(UserdataimportCollection userCollection, Context vertxContext) {
+    Integer timeoutMs = userCollection.getTimeoutMs();
+    return new ImportCancellation(timeoutMs != null && timeoutMs > 0
+      ? timeoutMs : getLong(vertxContext, CONFIG_IMPORT_TIMEOUT_MS, 0));
+  }
+
+  private String getIdempotencyKey(RoutingContext routingContext) {
+    return Strings.emptyToNull(routingContext.request().getHeader(HTTP_HEADER_IDEMPOTENCY_KEY));
+  }
+
+  /**
+   * Get the fingerprint of a request with an Idempotency-Key from its path, query and body.
+   * @param userCollection the parsed body of the request, for a streamed body the options of the import
+   * @param streamed whether the body is read while importing, it is represented by its length and encoding
+   * @return the fingerprint, null if the request has no Idempotency-Key
+   */
+  private String getRequestFingerprint(RoutingContext routingContext, UserdataimportCollection userCollection, boolean streamed) {
+    if (getIdempotencyKey(routingContext) == null) {
+      return null;
+    }
+    HttpServerRequest request = routingContext.request();
+    return IdempotencyStore.fingerprint(request.uri(), Json.encode(userCollection),
+      streamed ? request.getHeader(HTTP_HEADER_CONTENT_LENGTH) : null,
+      streamed ? request.getHeader(HTTP_HEADER_CONTENT_ENCODING) : null);
+  }
+
+  /**
+   * Estimate the admission cost of a streamed import from the configured partition size and partitions in flight.
+   */
+  static long estimateStreamingCost(Context vertxContext) {
+    return AdmissionController.estimateStreamingCost(getPositiveInt(vertxContext, CONFIG_PARTITION_SIZE, DEFAULT_PARTITION_SIZE),
+      getPositiveInt(vertxContext, CONFIG_MAX_PARTITIONS_IN_FLIGHT, DEFAULT_MAX_PARTITIONS_IN_FLIGHT));
+  }
+
+  /**
+   * Get the length of the request body.
+   * @return the value of the Content-Length header or -1 if it is not present
+   */
+  private long getContentLength(RoutingContext routingContext) {
+    String contentLength = routingContext.request().getHeader(HTTP_HEADER_CONTENT_LENGTH);
+    if (Strings.isNullOrEmpty(contentLength)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentLength);
+    } catch (NumberFormatException e) {
+      return -1;
     }
   }
 
+  /**
+   * Create the 429 response of a rejected import. The failed users are not listed, the whole import needs to be retried.
+   */
+  private Response createRejectedResponse(UserdataimportCollection userCollection, Throwable cause) {
+    long retryAfter = cause instanceof ImportRejectedException ? ((ImportRejectedException) cause).getRetryAfterSeconds() : DEFAULT_ADMISSION_RETRY_AFTER_SECONDS;
+    ImportResponse rejectedResponse = new ImportResponse()
+      .withMessage(FAILED_TO_IMPORT_USERS)
+      .withError(IMPORT_REJECTED)
+      .withTotalRecords(userCollection.getTotalRecords())
+      .withCreatedRecords(0)
+      .withUpdatedRecords(0)
+      .withFailedRecords(userCollection.getTotalRecords())
+      .withFailedUsers(new ArrayList<>());
+    return Response.status(HTTP_STATUS_TOO_MANY_REQUESTS)
+      .header(HTTP_HEADER_RETRY_AFTER, retryAfter)
+      .type(MediaType.APPLICATION_JSON)
+      .entity(rejectedResponse)
+      .build();
+  }
+
   /**
    * Start user import by getting address types and patron groups from the system.
    */
-  private Future<ImportResponse> startUserImport(HttpClientInterface httpClient, Map<String, String> okapiHeaders, UserdataimportCollection userCollection) {
+  private Future<ImportResponse> startUserImport(HttpClientInterface httpClient, Map<String, String> okapiHeaders, UserdataimportCollection userCollection,
+    UserSource userSource, ExternalSystemIdSet seenExternalSystemIds, ImportCancellation cancellation, Context vertxContext) {
 
     Future<ImportResponse> future = Future.future();
 
-    getAddressTypes(httpClient, okapiHeaders).setHandler(addressTypeResultHandler -> {
+    ReferenceDataCache referenceDataCache = ReferenceDataCache.getInstance(vertxContext);
+    referenceDataCache.getAddressTypes(httpClient, okapiHeaders).setHandler(addressTypeResultHandler -> {
       if (addressTypeResultHandler.failed()) {
         LOGGER.error(FAILED_TO_LIST_ADDRESS_TYPES + extractErrorMessage(addressTypeResultHandler));
         ImportResponse addressTypeListingFailureResponse = processErrorResponse(userCollection, FAILED_TO_LIST_ADDRESS_TYPES + extractErrorMessage(addressTypeResultHandler));
         future.complete(addressTypeListingFailureResponse);
       } else {
-        getPatronGroups(httpClient, okapiHeaders).setHandler(patronGroupResultHandler -> {
+        referenceDataCache.getPatronGroups(httpClient, okapiHeaders).setHandler(patronGroupResultHandler -> {
 
           if (patronGroupResultHandler.succeeded()) {
             UserImportData userImportData = new UserImportData(userCollection);
             userImportData.setAddressTypes(addressTypeResultHandler.result());
             userImportData.setPatronGroups(patronGroupResultHandler.result());
-
-            if (userImportData.getDeactivateMissingUsers()) {
+            userImportData.setPartitionSize(getPositiveInt(vertxContext, CONFIG_PARTITION_SIZE, DEFAULT_PARTITION_SIZE));
+            userImportData.setQueryBuilder(new CqlQueryBuilder(getPositiveInt(vertxContext, CONFIG_MAX_URL_LENGTH, CqlQueryBuilder.DEFAULT_MAX_URL_LENGTH)));
+            userImportData.setTenant(okapiHeaders.get(OKAPI_TENANT_HEADER));
+            userImportData.setScheduler(TenantImportScheduler.getInstance(vertxContext));
+            userImportData.setMappingExecutor(MappingExecutor.getInstance(vertxContext));
+            userImportData.setDeactivator(new UserDeactivator(vertxContext, httpClient, okapiHeaders));
+            userImportData.setUserSource(userSource);
+            userImportData.setCancellation(cancellation);
+            userImportData.setMaxPartitionsInFlight(getPositiveInt(vertxContext, CONFIG_MAX_PARTITIONS_IN_FLIGHT, DEFAULT_MAX_PARTITIONS_IN_FLIGHT));
+            userImportData.setDuplicateDetector(new DuplicateDetector());
+            userImportData.setCollisionCheck(getBoolean(vertxContext, CONFIG_COLLISION_CHECK, true));
+            userImportData.setDeterministicIds(getBoolean(vertxContext, CONFIG_DETERMINISTIC_IDS, false));
+            userImportData.setReferenceDataResolver(createReferenceDataResolver(userCollection, addressTypeResultHandler.result(),
+              patronGroupResultHandler.result(), vertxContext));
+
+            if (seenExternalSystemIds != null) {
+              userImportData.setSeenExternalSystemIds(seenExternalSystemIds);
+              startImport(httpClient, userCollection, userImportData, okapiHeaders).setHandler(future.completer());
+            } else if (userImportData.getDeactivateMissingUsers()) {
               startImportWithDeactivatingUsers(httpClient, okapiHeaders, userCollection, userImportData).setHandler(
                 future.completer());
             } else {
@@ -127,92 +754,412 @@ public class UserImportAPI implements UserImportResource {
   }
 
   /**
-   * Start importing users if deactivation is needed. In this case all users should be queried to be able to tell which ones need to be deactivated after the import.
+   * Create the lookup tables of the reference data of an import. The policy and the defaults of the import override
+   * the ones of the module configuration, an invalid configured policy falls back to fail.
+   */
+  private ReferenceDataResolver createReferenceDataResolver(UserdataimportCollection userCollection, Map<String, String> addressTypes,
+    Map<String, String> patronGroups, Context vertxContext) {
+    ReferenceDataPolicy policy = userCollection.getReferenceDataPolicy();
+    if (policy == null) {
+      try {
+        policy = ReferenceDataResolver.parsePolicy(getString(vertxContext, CONFIG_REFERENCE_DATA_POLICY, ReferenceDataPolicy.FAIL.toString()));
+      } catch (IllegalArgumentException e) {
+        LOGGER.error(e.getMessage());
+        policy = ReferenceDataPolicy.FAIL;
+      }
+    }
+    String defaultPatronGroup = Strings.isNullOrEmpty(userCollection.getDefaultPatronGroup())
+      ? getString(vertxContext, CONFIG_DEFAULT_PATRON_GROUP, null) : userCollection.getDefaultPatronGroup();
+    String defaultAddressType = Strings.isNullOrEmpty(userCollection.getDefaultAddressType())
+      ? getString(vertxContext, CONFIG_DEFAULT_ADDRESS_TYPE, null) : userCollection.getDefaultAddressType();
+    return new ReferenceDataResolver(patronGroups, addressTypes, policy, defaultPatronGroup, defaultAddressType);
+  }
+
+  /**
+   * Create or update the single user of a collection. The user is validated and mapped on the event loop, which
+   * costs less than handing a single user to the mapping executor. The username and barcode of a new user are not
+   * looked up, mod-users rejects a colliding user.
+   * @return the response of the import, failed if the user could not be searched or the reference data listed
+   */
+  private Future<ImportResponse> upsertUser(UserdataimportCollection userCollection, Map<String, String> okapiHeaders, Context vertxContext) {
+    Future<ImportResponse> future = Future.future();
+    HttpClientInterface httpClient = getPooledHttpClient(okapiHeaders, vertxContext);
+    UserImportData userImportData = new UserImportData(userCollection);
+    userImportData.setQueryBuilder(new CqlQueryBuilder(getPositiveInt(vertxContext, CONFIG_MAX_URL_LENGTH, CqlQueryBuilder.DEFAULT_MAX_URL_LENGTH)));
+    userImportData.setTenant(okapiHeaders.get(OKAPI_TENANT_HEADER));
+    userImportData.setDeterministicIds(getBoolean(vertxContext, CONFIG_DETERMINISTIC_IDS, false));
+
+    Future<List<Map>> search = listUsers(httpClient, userCollection.getUsers(), userImportData);
+    Future<ValidatedPartition> validation = validateUser(httpClient, okapiHeaders, userCollection, userImportData, vertxContext);
+
+    CompositeFuture.join(search, validation).setHandler(joined -> {
+      if (validation.failed()) {
+        future.fail(validation.cause().getMessage());
+        return;
+      }
+      if (!validation.result().getInvalidUsers().isEmpty()) {
+        future.complete(validation.result().getInvalidUsersResponse());
+        return;
+      }
+      if (search.failed()) {
+        LOGGER.error(FAILED_TO_PROCESS_USER_SEARCH_RESULT + extractErrorMessage(search));
+        future.fail(FAILED_TO_PROCESS_USER_SEARCH_RESULT + extractErrorMessage(search));
+        return;
+      }
+      Map<String, User> existingUsers;
+      try {
+        existingUsers = extractExistingUsers(search.result());
+      } catch (UserMappingFailedException e) {
+        future.fail(FAILED_TO_PROCESS_USER_SEARCH_RESULT + USER_SCHEMA_MISMATCH);
+        return;
+      }
+      MappedPartition mappedPartition = mapPartition(validation.result().getValidUsers(), existingUsers, userImportData);
+      importMappedPartition(httpClient, okapiHeaders, existingUsers, mappedPartition, new IdentityHashMap<>(),
+        userImportData.getDeterministicIds()).setHandler(future.completer());
+    });
+    return future;
+  }
+
+  /**
+   * Validate the single user of a collection with the cached reference data of the tenant, see
+   * userImport.upsert.referenceDataMaxAgeMs.
+   * @return the validated user, failed if the reference data could not be listed
+   */
+  private Future<ValidatedPartition> validateUser(HttpClientInterface httpClient, Map<String, String> okapiHeaders,
+    UserdataimportCollection userCollection, UserImportData userImportData, Context vertxContext) {
+    Future<ValidatedPartition> future = Future.future();
+    long maxAgeMs = getLong(vertxContext, CONFIG_UPSERT_REFERENCE_DATA_MAX_AGE_MS, DEFAULT_UPSERT_REFERENCE_DATA_MAX_AGE_MS);
+    ReferenceDataCache referenceDataCache = ReferenceDataCache.getInstance(vertxContext);
+    Future<Map<String, String>> addressTypes = referenceDataCache.getAddressTypes(httpClient, okapiHeaders, maxAgeMs);
+    Future<Map<String, String>> patronGroups = referenceDataCache.getPatronGroups(httpClient, okapiHeaders, maxAgeMs);
+    CompositeFuture.join(addressTypes, patronGroups).setHandler(joined -> {
+      if (addressTypes.failed()) {
+        LOGGER.error(FAILED_TO_LIST_ADDRESS_TYPES + extractErrorMessage(addressTypes));
+        future.fail(FAILED_TO_LIST_ADDRESS_TYPES + extractErrorMessage(addressTypes));
+      } else if (patronGroups.failed()) {
+        LOGGER.error(FAILED_TO_LIST_PATRON_GROUPS + extractErrorMessage(patronGroups));
+        future.fail(FAILED_TO_LIST_PATRON_GROUPS + extractErrorMessage(patronGroups));
+      } else {
+        userImportData.setAddressTypes(addressTypes.result());
+        userImportData.setPatronGroups(patronGroups.result());
+        userImportData.setReferenceDataResolver(createReferenceDataResolver(userCollection, addressTypes.result(),
+          patronGroups.result(), vertxContext));
+        future.complete(UserValidator.validate(userCollection.getUsers(), userImportData));
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Start importing users if deactivation is needed. All users are listed to be able to tell which ones need to be deactivated after the import.
+   * The listing runs at the same time as the import, the users seen by the import are collected and the remaining listed users are deactivated at the end.
    */
   private Future<ImportResponse> startImportWithDeactivatingUsers(HttpClientInterface httpClient, Map<String, String> okapiHeaders, UserdataimportCollection userCollection,
     UserImportData userImportData) {
     Future<ImportResponse> future = Future.future();
-    listAllUsersWithExternalSystemId(httpClient, okapiHeaders, userCollection.getSourceType()).setHandler(handler -> {
+    userImportData.setSeenExternalSystemIds(new ExternalSystemIdSet());
 
-      if (handler.failed()) {
-        LOGGER.error("Failed to list users with externalSystemId (and specific sourceType)");
-        ImportResponse userListingFailureResponse = processErrorResponse(userCollection, FAILED_TO_IMPORT_USERS + extractErrorMessage(handler));
-        future.complete(userListingFailureResponse);
-      } else {
-        List<Map> existingUsers = handler.result();
-        try {
-          final Map<String, User> existingUserMap = extractExistingUsers(existingUsers);
-
-          List<Future> futures = processAllUsersInPartitions(httpClient, userCollection, userImportData, existingUserMap, okapiHeaders);
-
-          CompositeFuture.all(futures).setHandler(ar -> {
-            if (ar.succeeded()) {
-              LOGGER.info("Processing user search result.");
-              ImportResponse compositeResponse = processFutureResponses(futures);
-
-              if (existingUserMap.isEmpty()) {
-                compositeResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY);
-                future.complete(compositeResponse);
-              } else if (compositeResponse.getFailedRecords() > 0) {
-                LOGGER.warn("Failed to import all users, skipping deactivation.");
-                compositeResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY + " " + USER_DEACTIVATION_SKIPPED);
-                future.complete(compositeResponse);
-              } else {
-                deactivateUsers(httpClient, okapiHeaders, existingUserMap).setHandler(deactivateHandler -> {
-                  compositeResponse.setMessage("Deactivated missing users.");
-                  future.complete(compositeResponse);
-                });
-              }
-            } else {
-              ImportResponse userProcessFailureResponse = processErrorResponse(userCollection, FAILED_TO_IMPORT_USERS + extractErrorMessage(ar));
-              future.complete(userProcessFailureResponse);
-            }
-          });
-        } catch (UserMappingFailedException exc) {
-          ImportResponse userMappingFailureResponse = processErrorResponse(userCollection, USER_SCHEMA_MISMATCH);
-          future.complete(userMappingFailureResponse);
-        }
+    Future<Map<String, User>> listingFuture = listExistingUsers(httpClient, okapiHeaders, userCollection.getSourceType(), userImportData);
+    Future<List<Future>> importFuture = processAllUsersInPartitions(httpClient, userImportData, okapiHeaders);
+
+    CompositeFuture.join(listingFuture, importFuture).setHandler(joined -> {
+      if (importFuture.failed()) {
+        ImportResponse userProcessFailureResponse = processErrorResponse(userCollection, FAILED_TO_IMPORT_USERS + extractErrorMessage(importFuture));
+        future.complete(userProcessFailureResponse);
+        return;
+      }
+
+      LOGGER.info("Processing user search result.");
+      ImportResponse compositeResponse = processFutureResponses(importFuture.result());
+
+      if (userImportData.getReadError() != null) {
+        LOGGER.warn("Failed to read all users, skipping deactivation.");
+        compositeResponse.setMessage(FAILED_TO_IMPORT_USERS + " " + USER_DEACTIVATION_READ_FAILED);
+        compositeResponse.setError(userImportData.getReadError());
+        future.complete(compositeResponse);
+        return;
+      }
+      if (userImportData.getStopReason() != null) {
+        logStoppedImport(compositeResponse, userImportData);
+        LOGGER.warn("The import was stopped, skipping deactivation.");
+        compositeResponse.setMessage(FAILED_TO_IMPORT_USERS + " " + USER_DEACTIVATION_STOPPED);
+        compositeResponse.setError(getStopError(userImportData));
+        future.complete(compositeResponse);
+        return;
       }
+
+      deactivateMissingUsers(compositeResponse, listingFuture, compositeResponse.getFailedRecords() == 0, userImportData)
+        .setHandler(future.completer());
     });
     return future;
   }
 
   /**
-   * Create partitions from all users, process them and return the list of Futures of the partition processing.
+   * Deactivate the listed users that were not seen by the import.
+   * @param compositeResponse the response of the import, completed with the outcome of the deactivation
+   * @param listingFuture the listing of the existing users of the sourceType by externalSystemId
+   * @param complete whether all users were imported, otherwise the deactivation is skipped
+   * @param userImportData the import data with the seen externalSystemIds and the deactivator
    */
-  private List<Future> processAllUsersInPartitions(HttpClientInterface httpClient, UserdataimportCollection userCollection, UserImportData userImportData, Map<String, User> existingUserMap, Map<String, String> okapiHeaders) {
-    List<List<User>> userPartitions = Lists.partition(userCollection.getUsers(), 10);
-    List<Future> futures = new ArrayList<>();
+  private Future<ImportResponse> deactivateMissingUsers(ImportResponse compositeResponse, AsyncResult<Map<String, User>> listingFuture,
+    boolean complete, UserImportData userImportData) {
+    Future<ImportResponse> future = Future.future();
+    if (listingFuture.failed()) {
+      LOGGER.error("Failed to list users with externalSystemId (and specific sourceType)");
+      compositeResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY + " " + USER_DEACTIVATION_LISTING_FAILED);
+      compositeResponse.setError(listingFuture.cause() instanceof UserMappingFailedException ? USER_SCHEMA_MISMATCH : FAILED_TO_LIST_USERS + extractErrorMessage(listingFuture));
+      future.complete(compositeResponse);
+      return future;
+    }
 
-    for (List<User> currentPartition : userPartitions) {
-      Future<ImportResponse> userSearchAsyncResult =
-        processUserSearchResult(httpClient, okapiHeaders, existingUserMap,
-          currentPartition, userImportData);
-      futures.add(userSearchAsyncResult);
+    final Map<String, User> missingUserMap = listingFuture.result();
+    missingUserMap.keySet().removeIf(userImportData.getSeenExternalSystemIds()::contains);
+
+    if (missingUserMap.isEmpty()) {
+      compositeResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY);
+      compositeResponse.setDeactivatedRecords(0);
+      compositeResponse.setFailedDeactivations(0);
+      future.complete(compositeResponse);
+    } else if (!complete) {
+      LOGGER.warn("Failed to import all users, skipping deactivation.");
+      compositeResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY + " " + USER_DEACTIVATION_SKIPPED);
+      future.complete(compositeResponse);
+    } else {
+      userImportData.getDeactivator().deactivate(missingUserMap.values()).setHandler(deactivateHandler -> {
+        if (deactivateHandler.failed()) {
+          compositeResponse.setMessage(FAILED_TO_DEACTIVATE_USERS);
+          compositeResponse.setError(FAILED_TO_DEACTIVATE_USERS + extractErrorMessage(deactivateHandler));
+          compositeResponse.setFailedDeactivations(missingUserMap.size());
+          future.complete(compositeResponse);
+          return;
+        }
+        DeactivationResult deactivationResult = deactivateHandler.result();
+        compositeResponse.setMessage(deactivationResult.getFailedRecords() == 0 ? USERS_WERE_DEACTIVATED : FAILED_TO_DEACTIVATE_USERS);
+        compositeResponse.setDeactivatedRecords(deactivationResult.getDeactivatedRecords());
+        compositeResponse.setFailedDeactivations(deactivationResult.getFailedRecords());
+        future.complete(compositeResponse);
+      });
     }
-    return futures;
+    return future;
   }
 
   /**
-   * Start user import. Partition and process users in batches of 10.
+   * List all users (in a sourceType if given) and map them by externalSystemId.
+   * The future fails with UserMappingFailedException if the listed users could not be mapped.
    */
-  private Future<ImportResponse> startImport(HttpClientInterface httpClient, UserdataimportCollection userCollection, UserImportData userImportData, Map<String, String> okapiHeaders) {
-    Future<ImportResponse> future = Future.future();
-    List<List<User>> userPartitions = Lists.partition(userCollection.getUsers(), 10);
+  private Future<Map<String, User>> listExistingUsers(HttpClientInterface httpClient, Map<String, String> okapiHeaders, String sourceType,
+    UserImportData userImportData) {
+    Future<Map<String, User>> future = Future.future();
+    listAllUsersWithExternalSystemId(httpClient, okapiHeaders, sourceType).setHandler(handler -> {
+      if (handler.failed()) {
+        future.fail(handler.cause());
+        return;
+      }
+      List<Map> existingUsers = handler.result();
+      userImportData.getMappingExecutor().execute(() -> extractExistingUsers(existingUsers)).setHandler(mappingResult -> {
+        if (mappingResult.failed()) {
+          LOGGER.error(USER_SCHEMA_MISMATCH + extractErrorMessage(mappingResult));
+          future.fail(new UserMappingFailedException(USER_SCHEMA_MISMATCH));
+        } else {
+          future.complete(mappingResult.result());
+        }
+      });
+    });
+    return future;
+  }
 
-    List<Future> futures = new ArrayList<>();
+  /**
+   * Read the users in partitions and process them. Only a limited number of partitions are read ahead, the next partition is read
+   * when one is finished. If the users cannot be read, the partitions already read are finished and the error is kept in the import data.
+   * @return the futures of the partition processing, completed when all partitions are finished
+   */
+  private Future<List<Future>> processAllUsersInPartitions(HttpClientInterface httpClient, UserImportData userImportData, Map<String, String> okapiHeaders) {
+    PartitionReader partitionReader = new PartitionReader(httpClient, userImportData, okapiHeaders);
+    partitionReader.readNext();
+    return partitionReader.result;
+  }
 
-    for (List<User> currentPartition : userPartitions) {
-      Future<ImportResponse> userBatchProcessResponse =
-        processUserBatch(httpClient, okapiHeaders, currentPartition, userImportData);
+  /*
+   * Reads the partitions of one import. All the state is only accessed on the event loop.
+   */
+  private class PartitionReader {
+    private final HttpClientInterface httpClient;
+    private final UserImportData userImportData;
+    private final Map<String, String> okapiHeaders;
+    private final List<Future> futures = new ArrayList<>();
+    private final Future<List<Future>> result = Future.future();
+    private int inFlight;
+    private boolean reading;
+    private boolean allRead;
+
+    PartitionReader(HttpClientInterface httpClient, UserImportData userImportData, Map<String, String> okapiHeaders) {
+      this.httpClient = httpClient;
+      this.userImportData = userImportData;
+      this.okapiHeaders = okapiHeaders;
+    }
+
+    void readNext() {
+      if (!allRead && !reading && userImportData.getCancellation().isCancelled()) {
+        stop();
+        skipUnreadUsers();
+        allRead = true;
+      }
+      if (!allRead && !reading && inFlight < userImportData.getMaxPartitionsInFlight()) {
+        reading = true;
+        userImportData.getMappingExecutor().execute(this::readPartition)
+          .setHandler(this::processPartition);
+      } else if (allRead && inFlight == 0 && !result.isComplete()) {
+        futures.add(Future.succeededFuture(userImportData.getDuplicateDetector().getResponse()));
+        CompositeFuture.all(futures).setHandler(ar -> {
+          if (ar.succeeded()) {
+            result.complete(futures);
+          } else {
+            result.fail(ar.cause());
+          }
+        });
+      }
+    }
+
+    /**
+     * Read the next partition and remove its duplicates. Runs on the mapping executor, one read at a time.
+     * @return the users to import, empty at the end of the input
+     */
+    private List<User> readPartition() throws IOException {
+      while (true) {
+        List<User> users = userImportData.getUserSource().nextPartition(userImportData.getPartitionSize());
+        if (users.isEmpty()) {
+          return users;
+        }
+        List<User> accepted = userImportData.getDuplicateDetector().filter(users);
+        if (!accepted.isEmpty()) {
+          return accepted;
+        }
+      }
+    }
+
+    private void processPartition(AsyncResult<List<User>> readResult) {
+      reading = false;
+      if (readResult.failed()) {
+        LOGGER.error(FAILED_TO_READ_USERS + extractErrorMessage(readResult));
+        userImportData.setReadError(FAILED_TO_READ_USERS + extractErrorMessage(readResult));
+        allRead = true;
+      } else if (readResult.result().isEmpty()) {
+        allRead = true;
+      } else if (userImportData.getCancellation().isCancelled()) {
+        futures.add(Future.succeededFuture(skipPartition(readResult.result())));
+      } else {
+        List<User> currentPartition = readResult.result();
+        inFlight++;
+        userImportData.getMappingExecutor().execute(() -> UserValidator.validate(currentPartition, userImportData))
+          .setHandler(validationResult -> {
+            if (validationResult.failed()) {
+              LOGGER.error(FAILED_TO_VALIDATE_USERS + extractErrorMessage(validationResult));
+              submitPartition(currentPartition);
+            } else {
+              ValidatedPartition validatedPartition = validationResult.result();
+              processInvalidUsers(validatedPartition);
+              if (validatedPartition.getValidUsers().isEmpty()) {
+                inFlight--;
+                readNext();
+              } else {
+                submitPartition(validatedPartition.getValidUsers());
+              }
+            }
+          });
+      }
+      readNext();
+    }
+
+    /**
+     * Report the invalid users of a partition. They are still seen by the import, so existing users are not
+     * deactivated because of an invalid record.
+     */
+    private void processInvalidUsers(ValidatedPartition validatedPartition) {
+      if (validatedPartition.getInvalidUsers().isEmpty()) {
+        return;
+      }
+      futures.add(Future.succeededFuture(validatedPartition.getInvalidUsersResponse()));
+      if (userImportData.getSeenExternalSystemIds() != null) {
+        validatedPartition.getInvalidUsers().stream()
+          .filter(failedUser -> failedUser.getExternalSystemId() != null)
+          .map(failedUser -> Strings.isNullOrEmpty(userImportData.getSourceType())
+            ? failedUser.getExternalSystemId() : userImportData.getSourceType() + "_" + failedUser.getExternalSystemId())
+          .forEach(userImportData.getSeenExternalSystemIds()::add);
+      }
+    }
+
+    private void submitPartition(List<User> users) {
+      Future<ImportResponse> userBatchProcessResponse = userImportData.getScheduler().submit(userImportData.getTenant(), users.size(),
+        () -> userImportData.getCancellation().isCancelled()
+          ? Future.succeededFuture(skipPartition(users))
+          : processUserBatch(httpClient, okapiHeaders, users, userImportData));
       futures.add(userBatchProcessResponse);
+      userBatchProcessResponse.setHandler(ar -> {
+        inFlight--;
+        readNext();
+      });
     }
 
-    CompositeFuture.all(futures).setHandler(ar -> {
+    /**
+     * Report a partition that is not attempted because the import was stopped before it started.
+     */
+    private ImportResponse skipPartition(List<User> users) {
+      stop();
+      return skipUsers(users.size());
+    }
+
+    /**
+     * Report the users that were not read when the import was stopped as not attempted. If the source cannot tell
+     * how many users are left, they are not counted and the response says so.
+     */
+    private void skipUnreadUsers() {
+      int remaining = userImportData.getUserSource().remaining();
+      if (remaining > 0) {
+        futures.add(Future.succeededFuture(skipUsers(remaining)));
+      } else if (remaining < 0) {
+        userImportData.setUnreadUsersNotCounted(true);
+      }
+    }
+
+    private ImportResponse skipUsers(int count) {
+      ImportMetrics.add("import.notAttempted", count);
+      return new ImportResponse()
+        .withCreatedRecords(0)
+        .withUpdatedRecords(0)
+        .withFailedRecords(0)
+        .withNotAttemptedRecords(count)
+        .withTotalRecords(count)
+        .withFailedUsers(new ArrayList<>());
+    }
+
+    private void stop() {
+      if (userImportData.getStopReason() == null) {
+        LOGGER.warn("Stopping the import: " + userImportData.getCancellation().getReason());
+        userImportData.setStopReason(userImportData.getCancellation().getReason());
+      }
+    }
+  }
+
+  /**
+   * Start user import. Partition and process users in batches of the configured partition size.
+   */
+  private Future<ImportResponse> startImport(HttpClientInterface httpClient, UserdataimportCollection userCollection, UserImportData userImportData, Map<String, String> okapiHeaders) {
+    Future<ImportResponse> future = Future.future();
+
+    processAllUsersInPartitions(httpClient, userImportData, okapiHeaders).setHandler(ar -> {
       if (ar.succeeded()) {
         LOGGER.info("Aggregating user import result.");
-        ImportResponse successResponse = processFutureResponses(futures);
-        successResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY);
+        ImportResponse successResponse = processFutureResponses(ar.result());
+        if (userImportData.getReadError() != null) {
+          successResponse.setMessage(FAILED_TO_IMPORT_USERS);
+          successResponse.setError(userImportData.getReadError());
+        } else if (userImportData.getStopReason() != null) {
+          logStoppedImport(successResponse, userImportData);
+          successResponse.setMessage(FAILED_TO_IMPORT_USERS);
+          successResponse.setError(getStopError(userImportData));
+        } else {
+          successResponse.setMessage(USERS_WERE_IMPORTED_SUCCESSFULLY);
+        }
         future.complete(successResponse);
       } else {
         ImportResponse userProcessFailureResponse = processErrorResponse(userCollection, FAILED_TO_IMPORT_USERS + extractErrorMessage(ar));
@@ -222,6 +1169,16 @@ public class UserImportAPI implements UserImportResource {
     return future;
   }
 
+  private String getStopError(UserImportData userImportData) {
+    return userImportData.isUnreadUsersNotCounted()
+      ? userImportData.getStopReason() + " " + UNREAD_USERS_NOT_COUNTED : userImportData.getStopReason();
+  }
+
+  private void logStoppedImport(ImportResponse response, UserImportData userImportData) {
+    LOGGER.warn("The import was stopped: " + userImportData.getStopReason() + " Processed " + response.getTotalRecords()
+      + " users, " + response.getNotAttemptedRecords() + " of them were not attempted.");
+  }
+
   /**
    * Process a batch of users. Extract existing users from the user list and process the result (create non-existing, update existing users).
    * @param userSearchClient
@@ -229,12 +1186,19 @@ public class UserImportAPI implements UserImportResource {
   private Future<ImportResponse> processUserBatch(HttpClientInterface httpClient, Map<String, String> okapiHeaders,
     List<User> currentPartition, UserImportData userImportData) {
     Future<ImportResponse> processFuture = Future.future();
-    listUsers(httpClient, currentPartition, userImportData.getSourceType()).setHandler(userSearchAsyncResponse -> {
+    listUsers(httpClient, currentPartition, userImportData).setHandler(userSearchAsyncResponse -> {
       if (userSearchAsyncResponse.succeeded()) {
-        try {
-          Map<String, User> existingUsers = extractExistingUsers(userSearchAsyncResponse.result());
+        userImportData.getMappingExecutor().execute(() -> extractExistingUsers(userSearchAsyncResponse.result())).setHandler(mappingResult -> {
+          if (mappingResult.failed()) {
+            UserdataimportCollection userCollection = new UserdataimportCollection();
+            userCollection.setTotalRecords(currentPartition.size());
+            userCollection.setUsers(currentPartition);
+            ImportResponse userMappingFailureResponse = processErrorResponse(userCollection, FAILED_TO_PROCESS_USER_SEARCH_RESULT + USER_SCHEMA_MISMATCH);
+            processFuture.complete(userMappingFailureResponse);
+            return;
+          }
 
-          processUserSearchResult(httpClient, okapiHeaders, existingUsers, currentPartition, userImportData)
+          processUserSearchResult(httpClient, okapiHeaders, mappingResult.result(), currentPartition, userImportData)
             .setHandler(response -> {
               if (response.succeeded()) {
                 processFuture.complete(response.result());
@@ -247,14 +1211,7 @@ public class UserImportAPI implements UserImportResource {
                 processFuture.complete(userSearchFailureResponse);
               }
             });
-        } catch (UserMappingFailedException exc) {
-          UserdataimportCollection userCollection = new UserdataimportCollection();
-          userCollection.setTotalRecords(currentPartition.size());
-          userCollection.setUsers(currentPartition);
-          ImportResponse userMappingFailureResponse = processErrorResponse(userCollection, FAILED_TO_PROCESS_USER_SEARCH_RESULT + USER_SCHEMA_MISMATCH);
-          processFuture.complete(userMappingFailureResponse);
-        }
-
+        });
       } else {
         LOGGER.error(FAILED_TO_PROCESS_USER_SEARCH_RESULT + extractErrorMessage(userSearchAsyncResponse));
         UserdataimportCollection userCollection = new UserdataimportCollection();
@@ -268,34 +1225,49 @@ public class UserImportAPI implements UserImportResource {
   }
 
   /**
-   * List a batch of users.
+   * List a batch of users. The batch is split into as few searches as the maximum URL length allows. Users without
+   * externalSystemId are not searched, they cannot match an existing user.
    */
-  private Future<List<Map>> listUsers(HttpClientInterface userSearchClient, List<User> users, String sourceType) {
+  private Future<List<Map>> listUsers(HttpClientInterface userSearchClient, List<User> users, UserImportData userImportData) {
     Future<List<Map>> future = Future.future();
 
-    StringBuilder userQueryBuilder = new StringBuilder("externalSystemId==(");
-    for (int i = 0; i < users.size(); i++) {
-      if (!Strings.isNullOrEmpty(sourceType)) {
-        userQueryBuilder.append(sourceType).append("_");
-      }
-      userQueryBuilder.append(users.get(i).getExternalSystemId());
-      if (i < users.size() - 1) {
-        userQueryBuilder.append(" or ");
-      } else {
-        userQueryBuilder.append(")");
+    String prefix = Strings.isNullOrEmpty(userImportData.getSourceType()) ? "" : userImportData.getSourceType() + "_";
+    List<String> externalSystemIds = new ArrayList<>(users.size());
+    for (User user : users) {
+      if (!Strings.isNullOrEmpty(user.getExternalSystemId())) {
+        externalSystemIds.add(prefix + user.getExternalSystemId());
       }
     }
 
-    String query = userQueryBuilder.toString();
+    List<Map> existingUsers = new ArrayList<>();
+    List<Future> futures = new ArrayList<>();
+    for (UserSearchQuery query : userImportData.getQueryBuilder().buildExternalSystemIdQueries(externalSystemIds)) {
+      futures.add(searchUsers(userSearchClient, query.getUrl(), existingUsers));
+    }
+
+    CompositeFuture.all(futures).setHandler(ar -> {
+      if (ar.succeeded()) {
+        future.complete(existingUsers);
+      } else {
+        future.fail(ar.cause());
+      }
+    });
+    return future;
+  }
 
-    final String userSearchQuery = generateUserSearchQuery(query, users.size() * 2, 0);
+  /**
+   * Execute a single user search and collect the found users.
+   */
+  private Future<Void> searchUsers(HttpClientInterface userSearchClient, String userSearchQuery, List<Map> existingUsers) {
+    Future<Void> future = Future.future();
 
     try {
       userSearchClient.request(userSearchQuery)
         .whenComplete((userSearchQueryResponse, ex) -> {
           if (isSuccess(userSearchQueryResponse, ex)) {
             JsonObject resultObject = userSearchQueryResponse.getBody();
-            future.complete(getUsersFromResult(resultObject));
+            existingUsers.addAll(getUsersFromResult(resultObject));
+            future.complete();
           } else {
             errorManagement(userSearchQueryResponse, ex, future, FAILED_TO_PROCESS_USER_SEARCH_RESPONSE);
           }
@@ -309,28 +1281,117 @@ public class UserImportAPI implements UserImportResource {
 
   /**
    * Process batch of users. Decide if current user exists, if it does, updates it, otherwise creates a new one.
+   * The mapping of the users runs on the mapping executor, the requests are sent from the event loop.
    */
   private Future<ImportResponse> processUserSearchResult(HttpClientInterface httpClient, Map<String, String> okapiHeaders,
     Map<String, User> existingUsers, List<User> usersToImport, UserImportData userImportData) {
     Future<ImportResponse> future = Future.future();
 
+    userImportData.getMappingExecutor().execute(() -> mapPartition(usersToImport, existingUsers, userImportData)).setHandler(mappingResult -> {
+      if (mappingResult.failed()) {
+        LOGGER.error(FAILED_TO_IMPORT_USERS);
+        future.fail(FAILED_TO_IMPORT_USERS + extractErrorMessage(mappingResult));
+        return;
+      }
+      MappedPartition mappedPartition = mappingResult.result();
+      if (userImportData.getSeenExternalSystemIds() != null) {
+        mappedPartition.getUsersToCreate().forEach(user -> userImportData.getSeenExternalSystemIds().add(user.getExternalSystemId()));
+        mappedPartition.getUsersToUpdate().forEach(user -> userImportData.getSeenExternalSystemIds().add(user.getExternalSystemId()));
+      }
+      findCollisions(httpClient, mappedPartition.getUsersToCreate(), userImportData).setHandler(collisions ->
+        importMappedPartition(httpClient, okapiHeaders, existingUsers, mappedPartition, collisions.result(), userImportData.getDeterministicIds())
+          .setHandler(future.completer()));
+    });
+
+    return future;
+  }
+
+  /**
+   * Look up the usernames and barcodes of the users to create in batches, so users colliding with existing users are
+   * not sent to mod-users. If a lookup fails, the users are created and mod-users reports the collisions.
+   * @return the error message of each colliding user, the future never fails
+   */
+  private Future<Map<User, String>> findCollisions(HttpClientInterface httpClient, List<User> usersToCreate, UserImportData userImportData) {
+    Future<Map<User, String>> future = Future.future();
+    Map<User, String> collisions = new IdentityHashMap<>();
+    if (!userImportData.getCollisionCheck() || usersToCreate.isEmpty()) {
+      future.complete(collisions);
+      return future;
+    }
+
+    Map<String, User> usersByUsername = new HashMap<>();
+    Map<String, User> usersByBarcode = new HashMap<>();
+    List<String> usernames = new ArrayList<>();
+    List<String> barcodes = new ArrayList<>();
+    for (User user : usersToCreate) {
+      if (!Strings.isNullOrEmpty(user.getUsername()) && usersByUsername.putIfAbsent(user.getUsername().toLowerCase(Locale.ROOT), user) == null) {
+        usernames.add(user.getUsername());
+      }
+      if (!Strings.isNullOrEmpty(user.getBarcode()) && usersByBarcode.putIfAbsent(user.getBarcode(), user) == null) {
+        barcodes.add(user.getBarcode());
+      }
+    }
+
+    List<Map> usersWithUsernames = new ArrayList<>();
+    List<Map> usersWithBarcodes = new ArrayList<>();
     List<Future> futures = new ArrayList<>();
+    for (UserSearchQuery query : userImportData.getQueryBuilder().buildQueries(USERNAME_FIELD, usernames)) {
+      futures.add(searchUsers(httpClient, query.getUrl(), usersWithUsernames));
+    }
+    for (UserSearchQuery query : userImportData.getQueryBuilder().buildQueries(BARCODE_FIELD, barcodes)) {
+      futures.add(searchUsers(httpClient, query.getUrl(), usersWithBarcodes));
+    }
 
-    for (User user : usersToImport) {
-      updateUserData(user, userImportData);
-      if (existingUsers.containsKey(user.getExternalSystemId())) {
-        if (userImportData.getUpdateOnlyPresentFields()) {
-          user = updateExistingUserWithIncomingFields(user, existingUsers.get(user.getExternalSystemId()));
-        } else {
-          user.setId(existingUsers.get(user.getExternalSystemId()).getId());
+    CompositeFuture.all(futures).setHandler(ar -> {
+      if (ar.failed()) {
+        LOGGER.warn(FAILED_TO_CHECK_COLLISIONS + extractErrorMessage(ar));
+        ImportMetrics.increment("collisionCheck.failed");
+        future.complete(collisions);
+        return;
+      }
+      for (Map existingUser : usersWithUsernames) {
+        Object username = existingUser.get(USERNAME_FIELD);
+        User user = username == null ? null : usersByUsername.get(username.toString().toLowerCase(Locale.ROOT));
+        if (user != null) {
+          collisions.putIfAbsent(user, USERNAME_ALREADY_EXISTS + username + EXISTING_USER_ID + existingUser.get("id"));
         }
-        Future<SingleUserImportResponse> userUpdateResponse = updateUser(httpClient, okapiHeaders, user);
-        futures.add(userUpdateResponse);
-        existingUsers.remove(user.getExternalSystemId());
-      } else {
-        Future<SingleUserImportResponse> userCreationResponse = createNewUser(httpClient, okapiHeaders, user);
-        futures.add(userCreationResponse);
       }
+      for (Map existingUser : usersWithBarcodes) {
+        Object barcode = existingUser.get(BARCODE_FIELD);
+        User user = barcode == null ? null : usersByBarcode.get(barcode.toString());
+        if (user != null) {
+          collisions.putIfAbsent(user, BARCODE_ALREADY_EXISTS + barcode + EXISTING_USER_ID + existingUser.get("id"));
+        }
+      }
+      ImportMetrics.add("collisionCheck.collisions", collisions.size());
+      future.complete(collisions);
+    });
+    return future;
+  }
+
+  /**
+   * Create and update the users of a mapped partition.
+   * @param deterministicIds whether the ids of the users to create are derived from their externalSystemIds
+   */
+  private Future<ImportResponse> importMappedPartition(HttpClientInterface httpClient, Map<String, String> okapiHeaders,
+    Map<String, User> existingUsers, MappedPartition mappedPartition, Map<User, String> collisions, boolean deterministicIds) {
+    Future<ImportResponse> future = Future.future();
+
+    List<Future> futures = new ArrayList<>();
+
+    for (User user : mappedPartition.getUsersToUpdate()) {
+      Future<SingleUserImportResponse> userUpdateResponse = updateUser(httpClient, okapiHeaders, user);
+      futures.add(userUpdateResponse);
+      existingUsers.remove(user.getExternalSystemId());
+    }
+    for (User user : mappedPartition.getUsersToCreate()) {
+      String collision = collisions.get(user);
+      if (collision != null) {
+        futures.add(Future.succeededFuture(SingleUserImportResponse.failed(user.getExternalSystemId(), user.getUsername(), -1, collision)));
+        continue;
+      }
+      Future<SingleUserImportResponse> userCreationResponse = createNewUser(httpClient, okapiHeaders, user, deterministicIds);
+      futures.add(userCreationResponse);
     }
 
     CompositeFuture.all(futures).setHandler(ar -> {
@@ -399,7 +1460,7 @@ public class UserImportAPI implements UserImportResource {
             }
           } else {
             errorManagement(res, ex, future, FAILED_TO_UPDATE_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId(),
-              SingleUserImportResponse.failed(user.getExternalSystemId(), user.getUsername(), res.getCode(), FAILED_TO_UPDATE_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId()));
+              SingleUserImportResponse.failed(user.getExternalSystemId(), user.getUsername(), res == null ? -1 : res.getCode(), FAILED_TO_UPDATE_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId()));
           }
         });
     } catch (Exception exc) {
@@ -411,13 +1472,20 @@ public class UserImportAPI implements UserImportResource {
   }
 
   /**
-   * Create a new user.
+   * Create a new user with the id assigned when its partition was mapped and register an empty permission set for it
+   * once the user exists, so a failed creation leaves no permission set behind.
+   * With derived ids, a creation that failed in transit is retried with the same body, and a rejected creation is
+   * checked with a GET of the derived id: if the user is already stored by an earlier attempt, it counts as created.
    */
-  private Future<SingleUserImportResponse> createNewUser(HttpClientInterface httpClient, Map<String, String> okapiHeaders, User user) {
+  private Future<SingleUserImportResponse> createNewUser(HttpClientInterface httpClient, Map<String, String> okapiHeaders, User user,
+    boolean deterministicIds) {
     Future<SingleUserImportResponse> future = Future.future();
+    postUser(httpClient, okapiHeaders, user, deterministicIds ? CREATE_RETRIES : 0, deterministicIds, future);
+    return future;
+  }
 
-    user.setId(UUID.randomUUID().toString());
-
+  private void postUser(HttpClientInterface httpClient, Map<String, String> okapiHeaders, User user, int retries,
+    boolean deterministicIds, Future<SingleUserImportResponse> future) {
     final String userCreationQuery = UriBuilder.fromPath("/users").build().toString();
     Map<String, String> headers = createHeaders(okapiHeaders, HTTP_HEADER_VALUE_APPLICATION_JSON, HTTP_HEADER_VALUE_APPLICATION_JSON);
 
@@ -425,27 +1493,65 @@ public class UserImportAPI implements UserImportResource {
       httpClient.request(HttpMethod.POST, JsonObject.mapFrom(user), userCreationQuery, headers)
         .whenComplete((userCreationResponse, ex) -> {
           if (isSuccess(userCreationResponse, ex)) {
-            try {
-              addEmptyPermissionSetForUser(httpClient, okapiHeaders, user).setHandler(futurePermissionHandler -> {
-                if (futurePermissionHandler.failed()) {
-                  LOGGER.error("Failed to register permissions for user with externalSystemId: " + user.getExternalSystemId());
-                }
-                future.complete(SingleUserImportResponse.created(user.getExternalSystemId()));
-              });
-            } catch (Exception e) {
-              LOGGER.warn("Failed to register permission for user with externalSystemId: " + user.getExternalSystemId());
-              future.complete(SingleUserImportResponse.failed(user.getExternalSystemId(), user.getUsername(), -1, e.getMessage()));
-            }
+            completeUserCreation(httpClient, okapiHeaders, user, future);
+          } else if (ex != null && retries > 0) {
+            LOGGER.warn("Retrying to create user with externalSystemId: " + user.getExternalSystemId() + ERROR_MESSAGE + ex.getMessage());
+            ImportMetrics.increment("create.retried");
+            postUser(httpClient, okapiHeaders, user, retries - 1, deterministicIds, future);
+          } else if (deterministicIds) {
+            confirmExistingUser(httpClient, okapiHeaders, user).setHandler(exists -> {
+              if (exists.succeeded() && exists.result()) {
+                LOGGER.info("User with externalSystemId " + user.getExternalSystemId() + " was already created by an earlier attempt.");
+                ImportMetrics.increment("create.alreadyCreated");
+                completeUserCreation(httpClient, okapiHeaders, user, future);
+              } else {
+                failUserCreation(userCreationResponse, ex, user, future);
+              }
+            });
           } else {
-            errorManagement(userCreationResponse, ex, future, FAILED_TO_CREATE_NEW_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId(),
-              SingleUserImportResponse.failed(user.getExternalSystemId(), user.getUsername(), userCreationResponse.getCode(), FAILED_TO_CREATE_NEW_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId()));
+            failUserCreation(userCreationResponse, ex, user, future);
           }
         });
     } catch (Exception exc) {
       LOGGER.error(FAILED_TO_CREATE_NEW_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId(), exc.getMessage());
       future.complete(SingleUserImportResponse.failed(user.getExternalSystemId(), user.getUsername(), -1, exc.getMessage()));
     }
+  }
+
+  /**
+   * Register the empty permission set of a created user. A failed registration is logged, the user is created.
+   */
+  private void completeUserCreation(HttpClientInterface httpClient, Map<String, String> okapiHeaders, User user,
+    Future<SingleUserImportResponse> future) {
+    addEmptyPermissionSetForUser(httpClient, okapiHeaders, user).setHandler(futurePermissionHandler -> {
+      if (futurePermissionHandler.failed()) {
+        LOGGER.error("Failed to register permissions for user with externalSystemId: " + user.getExternalSystemId());
+      }
+      future.complete(SingleUserImportResponse.created(user.getExternalSystemId()));
+    });
+  }
 
+  private void failUserCreation(org.folio.rest.tools.client.Response userCreationResponse, Throwable ex, User user,
+    Future<SingleUserImportResponse> future) {
+    errorManagement(userCreationResponse, ex, future, FAILED_TO_CREATE_NEW_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId(),
+      SingleUserImportResponse.failed(user.getExternalSystemId(), user.getUsername(), userCreationResponse == null ? -1 : userCreationResponse.getCode(),
+        FAILED_TO_CREATE_NEW_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId()));
+  }
+
+  /**
+   * Check whether a user with the derived id of a new user and its externalSystemId is already stored.
+   * @return true if the user is stored, false if not or if it could not be checked
+   */
+  private Future<Boolean> confirmExistingUser(HttpClientInterface httpClient, Map<String, String> okapiHeaders, User user) {
+    Future<Boolean> future = Future.future();
+    Map<String, String> headers = createHeaders(okapiHeaders, HTTP_HEADER_VALUE_APPLICATION_JSON, null);
+    try {
+      httpClient.request(HttpMethod.GET, UriBuilder.fromPath("/users/" + user.getId()).build().toString(), headers)
+        .whenComplete((response, ex) -> future.complete(isSuccess(response, ex) && response.getBody() != null
+          && user.getExternalSystemId().equals(response.getBody().getString("externalSystemId"))));
+    } catch (Exception exc) {
+      future.complete(false);
+    }
     return future;
   }
 
@@ -487,20 +1593,13 @@ public class UserImportAPI implements UserImportResource {
   private Future<List<Map>> listAllUsersWithExternalSystemId(HttpClientInterface httpClient, Map<String, String> okapiHeaders, String sourceType) {
     Future<List<Map>> future = Future.future();
 
-    StringBuilder queryBuilder = new StringBuilder("externalSystemId");
-    if (!Strings.isNullOrEmpty(sourceType)) {
-      queryBuilder.append("=^").append(sourceType).append("_*");
-    } else {
-      queryBuilder.append("<>''");
-    }
-
-    final String query = queryBuilder.toString();
+    final String query = CqlQueryBuilder.externalSystemIdQuery(sourceType);
     int limit = 10;
     Map<String, String> headers = createHeaders(okapiHeaders, HTTP_HEADER_VALUE_APPLICATION_JSON, null);
 
     try {
 
-      final String userSearchQuery = generateUserSearchQuery(query, limit, 0);
+      final String userSearchQuery = CqlQueryBuilder.userSearchUrl(query, limit, 0);
       httpClient.request(HttpMethod.GET, userSearchQuery, headers)
         .whenComplete((response, ex) -> {
           if (isSuccess(response, ex)) {
@@ -564,7 +1663,7 @@ public class UserImportAPI implements UserImportResource {
     Future future = Future.future();
 
     try {
-      final String userSearchQuery = generateUserSearchQuery(query, limit, offset);
+      final String userSearchQuery = CqlQueryBuilder.userSearchUrl(query, limit, offset);
       userSearchClient.request(HttpMethod.GET, userSearchQuery, okapiHeaders)
         .whenComplete((subResponse, subEx) -> {
           if (isSuccess(subResponse, subEx)) {
@@ -589,57 +1688,6 @@ public class UserImportAPI implements UserImportResource {
     return future;
   }
 
-  /**
-   * Deactivate users
-   * @param okapiHeaders the Okapi headers
-   * @param existingUserMap the existing users that were not updated in the request
-   * @return  a completed future if users were deactivated
-   *          a failed future if not all users could be deactivated
-   */
-  private Future<Void> deactivateUsers(HttpClientInterface httpClient, Map<String, String> okapiHeaders,
-    Map<String, User> existingUserMap) {
-    Future<Void> future = Future.future();
-
-    List<Future> futures = new ArrayList<>();
-
-    for (User user : existingUserMap.values()) {
-      if (user.getActive()) {
-        user.setActive(Boolean.FALSE);
-        Future<SingleUserImportResponse> userDeactivateAsyncResult =
-          updateUser(httpClient, okapiHeaders, user);
-        futures.add(userDeactivateAsyncResult);
-      }
-    }
-
-    CompositeFuture.all(futures).setHandler(ar -> {
-      if (ar.succeeded()) {
-        LOGGER.info("Deactivated missing users.");
-        future.complete();
-      } else {
-        LOGGER.error("Failed to deactivate users.");
-        future.fail("Failed to deactivate users." + extractErrorMessage(ar));
-      }
-    });
-
-    return future;
-  }
-
-  /**
-   * Build query for user search.
-   * @param query the query string
-   * @param limit maximum number of retrieved users
-   * @param offset page number
-   * @return the build query string
-   */
-  private String generateUserSearchQuery(String query, int limit, int offset) {
-    return UriBuilder.fromPath("/users")
-      .queryParam("query", query)
-      .queryParam("limit", limit)
-      .queryParam("offset", offset)
-      .queryParam("orderBy", "externalSystemId")
-      .queryParam("order", "asc").build().toString();
-  }
-
   /**
    * Extract users from JSONObject.
    * @param result the JSONObject containing the users
@@ -676,10 +1724,18 @@ public class UserImportAPI implements UserImportResource {
     int updated = 0;
     int failed = 0;
     int totalRecords = 0;
+    int duplicates = 0;
+    int notAttempted = 0;
     List<FailedUser> failedUsers = new ArrayList<>();
     for (Future currentFuture : futures) {
       if (currentFuture.result() instanceof ImportResponse) {
         ImportResponse currentResponse = (ImportResponse) currentFuture.result();
+        if (currentResponse.getDuplicateRecords() != null) {
+          duplicates += currentResponse.getDuplicateRecords();
+        }
+        if (currentResponse.getNotAttemptedRecords() != null) {
+          notAttempted += currentResponse.getNotAttemptedRecords();
+        }
         created += currentResponse.getCreatedRecords();
         updated += currentResponse.getUpdatedRecords();
         failed += currentResponse.getFailedRecords();
@@ -690,6 +1746,8 @@ public class UserImportAPI implements UserImportResource {
     return new ImportResponse().withCreatedRecords(created)
       .withUpdatedRecords(updated)
       .withFailedRecords(failed)
+      .withDuplicateRecords(duplicates)
+      .withNotAttemptedRecords(notAttempted)
       .withTotalRecords(totalRecords)
       .withFailedUsers(failedUsers);
   }
@@ -731,7 +1789,11 @@ public class UserImportAPI implements UserImportResource {
     if (ex != null) {
       LOGGER.error(errorMessage);
       LOGGER.error(ex.getMessage());
-      future.fail(ex.getMessage());
+      if (completeObj == null) {
+        future.fail(ex.getMessage());
+      } else {
+        future.complete(completeObj);
+      }
     } else {
       LOGGER.error(errorMessage);
       StringBuilder errorBuilder = new StringBuilder(errorMessage);
@@ -0,0 +1,28 @@
+package org.folio.rest.model;
+
+/**
+ * The outcome of deactivating the users missing from an import.
+ */
+public class DeactivationResult {
+
+  private int deactivatedRecords;
+
+  private int failedRecords;
+
+  public void addDeactivated() {
+    deactivatedRecords++;
+  }
+
+  public void addFailed() {
+    failedRecords++;
+  }
+
+  public int getDeactivatedRecords() {
+    return deactivatedRecords;
+  }
+
+  public int getFailedRecords() {
+    return failedRecords;
+  }
+
+}
@@ -0,0 +1,10 @@
+package org.folio.rest.model;
+
+public class IdempotencyKeyReusedException extends Exception {
+  private static final long serialVersionUID = 1L;
+
+  public IdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+
+}
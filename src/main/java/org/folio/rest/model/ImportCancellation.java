@@ -0,0 +1,58 @@
+package org.folio.rest.model;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+/**
+ * Tells the partitions of an import whether to stop. An import is stopped when its deadline has passed or when it is
+ * cancelled, e.g. because its client disconnected. Partitions that have not started when the import is stopped are
+ * not attempted, partitions already running are finished.
+ */
+public class ImportCancellation {
+
+  private final long deadline;
+
+  private volatile String reason;
+
+  /**
+   * @param timeoutMs the maximum duration of the import from now, 0 for no deadline
+   */
+  public ImportCancellation(long timeoutMs) {
+    this.deadline = timeoutMs > 0 ? System.currentTimeMillis() + timeoutMs : 0;
+  }
+
+  /**
+   * Get the reason why the import was stopped.
+   * @return the reason, null if the import goes on
+   */
+  public String getReason() {
+    if (reason == null && deadline > 0 && System.currentTimeMillis() >= deadline) {
+      reason = IMPORT_DEADLINE_EXCEEDED;
+    }
+    return reason;
+  }
+
+  /**
+   * Stop the import, the first reason is kept.
+   */
+  public synchronized void cancel(String reason) {
+    if (this.reason == null) {
+      this.reason = reason;
+    }
+  }
+
+  public boolean isCancelled() {
+    return getReason() != null;
+  }
+
+  public boolean hasDeadline() {
+    return deadline > 0;
+  }
+
+  /**
+   * Get the time left until the deadline.
+   * @return the remaining milliseconds, 0 if the deadline has passed, Long.MAX_VALUE without deadline
+   */
+  public long getRemainingMs() {
+    return deadline > 0 ? Math.max(0, deadline - System.currentTimeMillis()) : Long.MAX_VALUE;
+  }
+}
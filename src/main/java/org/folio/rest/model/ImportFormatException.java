@@ -0,0 +1,15 @@
+package org.folio.rest.model;
+
+import java.io.IOException;
+
+/**
+ * The users of an import could not be parsed or mapped to users.
+ */
+public class ImportFormatException extends IOException {
+  private static final long serialVersionUID = 1L;
+
+  public ImportFormatException(String message) {
+    super(message);
+  }
+
+}
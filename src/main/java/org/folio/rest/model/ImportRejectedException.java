@@ -0,0 +1,17 @@
+package org.folio.rest.model;
+
+public class ImportRejectedException extends Exception {
+  private static final long serialVersionUID = 1L;
+
+  private final long retryAfterSeconds;
+
+  public ImportRejectedException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+}
@@ -0,0 +1,26 @@
+package org.folio.rest.model;
+
+import org.folio.rest.jaxrs.model.User;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A record of an import that could not be mapped to a user, e.g. because of an invalid date. It keeps the
+ * externalSystemId and username of the record, so it can be reported as failed record by the validation.
+ */
+public class InvalidUser extends User {
+
+  private final String reason;
+
+  public InvalidUser(String externalSystemId, String username, String reason) {
+    setExternalSystemId(externalSystemId);
+    setUsername(username);
+    this.reason = reason;
+  }
+
+  @JsonIgnore
+  public String getReason() {
+    return reason;
+  }
+
+}
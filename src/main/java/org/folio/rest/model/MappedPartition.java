@@ -0,0 +1,25 @@
+package org.folio.rest.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.User;
+
+/**
+ * The users of a partition after mapping, split by whether they need to be created or updated.
+ */
+public class MappedPartition {
+
+  private final List<User> usersToCreate = new ArrayList<>();
+
+  private final List<User> usersToUpdate = new ArrayList<>();
+
+  public List<User> getUsersToCreate() {
+    return usersToCreate;
+  }
+
+  public List<User> getUsersToUpdate() {
+    return usersToUpdate;
+  }
+
+}
@@ -3,6 +3,14 @@ package org.folio.rest.model;
 import java.util.Map;
 
 import org.folio.rest.jaxrs.model.UserdataimportCollection;
+import org.folio.rest.util.CqlQueryBuilder;
+import org.folio.rest.util.DuplicateDetector;
+import org.folio.rest.util.ExternalSystemIdSet;
+import org.folio.rest.util.MappingExecutor;
+import org.folio.rest.util.ReferenceDataResolver;
+import org.folio.rest.util.TenantImportScheduler;
+import org.folio.rest.util.UserDeactivator;
+import org.folio.rest.util.UserSource;
 
 public class UserImportData {
 
@@ -16,6 +24,40 @@ public class UserImportData {
 
   private Map<String, String> addressTypes;
 
+  private int partitionSize;
+
+  private CqlQueryBuilder queryBuilder;
+
+  private String tenant;
+
+  private TenantImportScheduler scheduler;
+
+  private MappingExecutor mappingExecutor;
+
+  private UserDeactivator deactivator;
+
+  private ExternalSystemIdSet seenExternalSystemIds;
+
+  private UserSource userSource;
+
+  private int maxPartitionsInFlight;
+
+  private String readError;
+
+  private boolean unreadUsersNotCounted;
+
+  private DuplicateDetector duplicateDetector;
+
+  private boolean collisionCheck;
+
+  private ReferenceDataResolver referenceDataResolver;
+
+  private boolean deterministicIds;
+
+  private ImportCancellation cancellation;
+
+  private String stopReason;
+
   public UserImportData(UserdataimportCollection userdataCollection) {
     this.deactivateMissingUsers = userdataCollection.getDeactivateMissingUsers();
     if (this.deactivateMissingUsers == null) {
@@ -36,6 +78,50 @@ public class UserImportData {
     this.addressTypes = addressTypes;
   }
 
+  public void setPartitionSize(int partitionSize) {
+    this.partitionSize = partitionSize;
+  }
+
+  public void setQueryBuilder(CqlQueryBuilder queryBuilder) {
+    this.queryBuilder = queryBuilder;
+  }
+
+  public void setTenant(String tenant) {
+    this.tenant = tenant;
+  }
+
+  public void setScheduler(TenantImportScheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  public void setMappingExecutor(MappingExecutor mappingExecutor) {
+    this.mappingExecutor = mappingExecutor;
+  }
+
+  public void setDeactivator(UserDeactivator deactivator) {
+    this.deactivator = deactivator;
+  }
+
+  public void setSeenExternalSystemIds(ExternalSystemIdSet seenExternalSystemIds) {
+    this.seenExternalSystemIds = seenExternalSystemIds;
+  }
+
+  public void setUserSource(UserSource userSource) {
+    this.userSource = userSource;
+  }
+
+  public void setMaxPartitionsInFlight(int maxPartitionsInFlight) {
+    this.maxPartitionsInFlight = maxPartitionsInFlight;
+  }
+
+  public void setReadError(String readError) {
+    this.readError = readError;
+  }
+
+  public void setUnreadUsersNotCounted(boolean unreadUsersNotCounted) {
+    this.unreadUsersNotCounted = unreadUsersNotCounted;
+  }
+
   public Boolean getDeactivateMissingUsers() {
     return deactivateMissingUsers;
   }
@@ -56,4 +142,105 @@ public class UserImportData {
     return addressTypes;
   }
 
+  public int getPartitionSize() {
+    return partitionSize;
+  }
+
+  public CqlQueryBuilder getQueryBuilder() {
+    return queryBuilder;
+  }
+
+  public String getTenant() {
+    return tenant;
+  }
+
+  public TenantImportScheduler getScheduler() {
+    return scheduler;
+  }
+
+  public MappingExecutor getMappingExecutor() {
+    return mappingExecutor;
+  }
+
+  public UserDeactivator getDeactivator() {
+    return deactivator;
+  }
+
+  /**
+   * The externalSystemIds of the imported users, collected only if missing users are deactivated.
+   */
+  public ExternalSystemIdSet getSeenExternalSystemIds() {
+    return seenExternalSystemIds;
+  }
+
+  public UserSource getUserSource() {
+    return userSource;
+  }
+
+  public int getMaxPartitionsInFlight() {
+    return maxPartitionsInFlight;
+  }
+
+  /**
+   * The reason why not all users of the import could be read, null if all users were read.
+   */
+  public String getReadError() {
+    return readError;
+  }
+
+  /**
+   * Whether the import was stopped before all users were read from a source that cannot tell the number of unread users,
+   * the notAttemptedRecords of the response are a lower bound then.
+   */
+  public boolean isUnreadUsersNotCounted() {
+    return unreadUsersNotCounted;
+  }
+
+  public DuplicateDetector getDuplicateDetector() {
+    return duplicateDetector;
+  }
+
+  public void setDuplicateDetector(DuplicateDetector duplicateDetector) {
+    this.duplicateDetector = duplicateDetector;
+  }
+
+  public boolean getCollisionCheck() {
+    return collisionCheck;
+  }
+
+  public void setCollisionCheck(boolean collisionCheck) {
+    this.collisionCheck = collisionCheck;
+  }
+
+  public ReferenceDataResolver getReferenceDataResolver() {
+    return referenceDataResolver;
+  }
+
+  public void setReferenceDataResolver(ReferenceDataResolver referenceDataResolver) {
+    this.referenceDataResolver = referenceDataResolver;
+  }
+
+  public boolean getDeterministicIds() {
+    return deterministicIds;
+  }
+
+  public void setDeterministicIds(boolean deterministicIds) {
+    this.deterministicIds = deterministicIds;
+  }
+
+  public ImportCancellation getCancellation() {
+    return cancellation;
+  }
+
+  public void setCancellation(ImportCancellation cancellation) {
+    this.cancellation = cancellation;
+  }
+
+  public String getStopReason() {
+    return stopReason;
+  }
+
+  public void setStopReason(String stopReason) {
+    this.stopReason = stopReason;
+  }
 }
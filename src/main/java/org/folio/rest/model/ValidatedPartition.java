@@ -0,0 +1,39 @@
+package org.folio.rest.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.FailedUser;
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.jaxrs.model.User;
+
+/**
+ * The users of a partition after validation, split into the valid users and the failed records of the invalid ones.
+ */
+public class ValidatedPartition {
+
+  private final List<User> validUsers = new ArrayList<>();
+
+  private final List<FailedUser> invalidUsers = new ArrayList<>();
+
+  public List<User> getValidUsers() {
+    return validUsers;
+  }
+
+  public List<FailedUser> getInvalidUsers() {
+    return invalidUsers;
+  }
+
+  /**
+   * The invalid users as response, to be aggregated with the responses of the partitions.
+   */
+  public ImportResponse getInvalidUsersResponse() {
+    return new ImportResponse()
+      .withCreatedRecords(0)
+      .withUpdatedRecords(0)
+      .withFailedRecords(invalidUsers.size())
+      .withTotalRecords(invalidUsers.size())
+      .withFailedUsers(invalidUsers);
+  }
+
+}
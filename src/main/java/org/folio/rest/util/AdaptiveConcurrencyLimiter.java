@@ -0,0 +1,230 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.folio.rest.tools.client.Response;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Limits the requests the module sends to other modules at the same time, with a limit that follows the load of the
+ * other modules (additive increase, multiplicative decrease).
+ *
+ * Every response within the latency target raises the limit by about one per round trip of the limit. A slower
+ * response lowers it by 10%, a 429 or 503 response halves it and holds back all requests until its Retry-After has
+ * passed, then the request is sent again up to the configured number of retries. Requests over the limit wait in a
+ * queue. The current limit is the concurrency.limit gauge.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+  private static final Map<Vertx, AdaptiveConcurrencyLimiter> instances = new WeakHashMap<>();
+
+  private static final double LATENCY_BACKOFF = 0.9;
+  private static final double THROTTLE_BACKOFF = 0.5;
+
+  /**
+   * A request to another module.
+   */
+  @FunctionalInterface
+  public interface Request {
+    CompletableFuture<Response> send() throws Exception;
+  }
+
+  private final Vertx vertx;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyTargetNanos;
+  private final int maxRetries;
+  private final Deque<Pending> queue = new ArrayDeque<>();
+  private double limit;
+  private int inFlight;
+  private long pausedUntil;
+  private long lastDecrease;
+  private boolean resumeScheduled;
+
+  AdaptiveConcurrencyLimiter(Vertx vertx, int initialLimit, int minLimit, int maxLimit, long latencyTargetMs, int maxRetries) {
+    this.vertx = vertx;
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.latencyTargetNanos = latencyTargetMs * 1000000L;
+    this.maxRetries = maxRetries;
+    this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    registerGauge("concurrency.limit", this::getLimit);
+    registerGauge("concurrency.inFlight", this::getInFlight);
+    registerGauge("concurrency.queued", this::getQueued);
+  }
+
+  /**
+   * Get the module wide limiter of the Vert.x instance, created from the configuration of the given context on first use.
+   * @return the limiter, null if adaptive concurrency is disabled
+   */
+  public static synchronized AdaptiveConcurrencyLimiter getInstance(Context context) {
+    if (!ConfigurationUtil.getBoolean(context, CONFIG_CONCURRENCY_ENABLED, true)) {
+      return null;
+    }
+    return instances.computeIfAbsent(context.owner(), vertx -> new AdaptiveConcurrencyLimiter(vertx,
+      ConfigurationUtil.getPositiveInt(context, CONFIG_CONCURRENCY_INITIAL_LIMIT, DEFAULT_CONCURRENCY_INITIAL_LIMIT),
+      ConfigurationUtil.getPositiveInt(context, CONFIG_CONCURRENCY_MIN_LIMIT, DEFAULT_CONCURRENCY_MIN_LIMIT),
+      ConfigurationUtil.getPositiveInt(context, CONFIG_CONCURRENCY_MAX_LIMIT, DEFAULT_CONCURRENCY_MAX_LIMIT),
+      ConfigurationUtil.getLong(context, CONFIG_CONCURRENCY_LATENCY_TARGET_MS, DEFAULT_CONCURRENCY_LATENCY_TARGET_MS),
+      ConfigurationUtil.getInt(context, CONFIG_CONCURRENCY_MAX_RETRIES, DEFAULT_CONCURRENCY_MAX_RETRIES)));
+  }
+
+  /**
+   * Send a request when the limit allows it.
+   * @return the response of the request, the last 429 or 503 response if all retries were throttled
+   */
+  public CompletableFuture<Response> execute(Request request) {
+    Pending pending = new Pending(request);
+    synchronized (this) {
+      queue.add(pending);
+    }
+    startQueued();
+    return pending.result;
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  synchronized int getQueued() {
+    return queue.size();
+  }
+
+  private void startQueued() {
+    List<Pending> started = new ArrayList<>();
+    synchronized (this) {
+      long now = System.nanoTime();
+      if (pausedUntil - now > 0) {
+        scheduleResume((pausedUntil - now) / 1000000L + 1);
+        return;
+      }
+      while (!queue.isEmpty() && inFlight < (int) limit) {
+        inFlight++;
+        started.add(queue.poll());
+      }
+    }
+    started.forEach(this::send);
+  }
+
+  private void scheduleResume(long delayMs) {
+    if (resumeScheduled || queue.isEmpty()) {
+      return;
+    }
+    resumeScheduled = true;
+    vertx.setTimer(Math.max(1, delayMs), id -> {
+      synchronized (this) {
+        resumeScheduled = false;
+      }
+      startQueued();
+    });
+  }
+
+  private void send(Pending pending) {
+    long start = System.nanoTime();
+    CompletableFuture<Response> response;
+    try {
+      response = pending.request.send();
+    } catch (Exception e) {
+      response = new CompletableFuture<>();
+      response.completeExceptionally(e);
+    }
+    response.whenComplete((res, ex) -> finished(pending, res, ex, System.nanoTime() - start));
+  }
+
+  private void finished(Pending pending, Response response, Throwable ex, long latencyNanos) {
+    boolean retry = false;
+    synchronized (this) {
+      inFlight--;
+      long now = System.nanoTime();
+      if (ex == null && response != null && isThrottled(response.getCode())) {
+        increment("concurrency.throttled");
+        decrease(THROTTLE_BACKOFF, now, true);
+        long retryAfterMs = getRetryAfterMs(response);
+        if (now + retryAfterMs * 1000000L - pausedUntil > 0) {
+          pausedUntil = now + retryAfterMs * 1000000L;
+        }
+        if (pending.retries < maxRetries) {
+          pending.retries++;
+          increment("concurrency.retried");
+          queue.addFirst(pending);
+          retry = true;
+        }
+      } else if (ex == null && latencyNanos > latencyTargetNanos) {
+        decrease(LATENCY_BACKOFF, now, false);
+      } else if (ex == null) {
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    }
+    if (!retry) {
+      if (ex == null) {
+        pending.result.complete(response);
+      } else {
+        pending.result.completeExceptionally(ex);
+      }
+    }
+    startQueued();
+  }
+
+  /**
+   * Lower the limit. Slow responses lower it at most once per latency target, as the responses of the requests sent
+   * with the old limit arrive after the decrease.
+   */
+  private void decrease(double factor, long now, boolean throttled) {
+    if (!throttled && lastDecrease != 0 && now - lastDecrease < latencyTargetNanos) {
+      return;
+    }
+    lastDecrease = now;
+    double decreased = Math.max(minLimit, limit * factor);
+    if ((int) decreased < (int) limit) {
+      LOGGER.debug("Lowering the concurrency limit to " + (int) decreased);
+    }
+    limit = decreased;
+  }
+
+  private static boolean isThrottled(int code) {
+    return code == HTTP_STATUS_TOO_MANY_REQUESTS || code == HTTP_STATUS_SERVICE_UNAVAILABLE;
+  }
+
+  /**
+   * Get the delay of a throttled response in milliseconds from its Retry-After header in seconds.
+   */
+  static long getRetryAfterMs(Response response) {
+    String retryAfter = response.getHeaders() == null ? null : response.getHeaders().get(HTTP_HEADER_RETRY_AFTER);
+    if (retryAfter == null) {
+      return DEFAULT_CONCURRENCY_RETRY_AFTER_MS;
+    }
+    try {
+      return Math.max(0, Long.parseLong(retryAfter.trim())) * 1000L;
+    } catch (NumberFormatException e) {
+      return DEFAULT_CONCURRENCY_RETRY_AFTER_MS;
+    }
+  }
+
+  private static class Pending {
+    private final Request request;
+    private final CompletableFuture<Response> result = new CompletableFuture<>();
+    private int retries;
+
+    Pending(Request request) {
+      this.request = request;
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.folio.rest.model.ImportRejectedException;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Limits the estimated heap usage of the imports running at the same time.
+ *
+ * The cost of a buffered import is estimated from the length of the request and the number of records, the cost of a
+ * streamed import from the partitions it holds at the same time. Imports over the in-flight budget are either rejected right away or queued until enough budget is released.
+ */
+public class AdmissionController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionController.class);
+
+  public static final String MODE_REJECT = "reject";
+  public static final String MODE_QUEUE = "queue";
+
+  /*
+   * The parsed import collection, the partitions and their futures take roughly three times the JSON size
+   * plus a fixed overhead per record.
+   */
+  private static final long BODY_EXPANSION_FACTOR = 3;
+  private static final long BYTES_PER_RECORD = 2048;
+  /*
+   * A request without Content-Length is charged as if its body had this length.
+   */
+  private static final long UNKNOWN_CONTENT_LENGTH = 1024 * 1024;
+  /*
+   * A streamed import holds the partitions in flight plus the reader buffers and the duplicate detection state.
+   */
+  private static final long STREAMING_OVERHEAD_BYTES = 1024 * 1024;
+
+  private static final Map<Vertx, AdmissionController> instances = new WeakHashMap<>();
+
+  private final Vertx vertx;
+  private final long maxInFlightBytes;
+  private final boolean queueing;
+  private final int maxQueued;
+  private final long maxQueueTimeMs;
+  private final long retryAfterSeconds;
+  private final Deque<Waiter> waiters = new ArrayDeque<>();
+  private long inFlightBytes;
+  private int inFlightImports;
+
+  AdmissionController(Vertx vertx, long maxInFlightBytes, boolean queueing, int maxQueued, long maxQueueTimeMs, long retryAfterSeconds) {
+    this.vertx = vertx;
+    this.maxInFlightBytes = maxInFlightBytes;
+    this.queueing = queueing;
+    this.maxQueued = maxQueued;
+    this.maxQueueTimeMs = maxQueueTimeMs;
+    this.retryAfterSeconds = retryAfterSeconds;
+    registerGauge("admission.inFlightBytes", this::getInFlightBytes);
+    registerGauge("admission.inFlightImports", this::getInFlightImports);
+    registerGauge("admission.queuedImports", this::getQueuedImports);
+  }
+
+  /**
+   * Get the module wide admission controller of the Vert.x instance, created from the configuration of the given context on first use.
+   */
+  public static synchronized AdmissionController getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> new AdmissionController(vertx,
+      ConfigurationUtil.getPositiveLong(context, CONFIG_ADMISSION_MAX_IN_FLIGHT_BYTES, Runtime.getRuntime().maxMemory() / 4),
+      MODE_QUEUE.equalsIgnoreCase(ConfigurationUtil.getString(context, CONFIG_ADMISSION_MODE, MODE_REJECT)),
+      ConfigurationUtil.getInt(context, CONFIG_ADMISSION_MAX_QUEUED, DEFAULT_ADMISSION_MAX_QUEUED),
+      ConfigurationUtil.getLong(context, CONFIG_ADMISSION_MAX_QUEUE_TIME_MS, DEFAULT_ADMISSION_MAX_QUEUE_TIME_MS),
+      ConfigurationUtil.getLong(context, CONFIG_ADMISSION_RETRY_AFTER_SECONDS, DEFAULT_ADMISSION_RETRY_AFTER_SECONDS)));
+  }
+
+  /**
+   * Estimate the heap usage of an import.
+   * @param totalRecords the number of users in the import
+   * @param contentLength the length of the request body, or -1 if unknown
+   * @return the estimated cost in bytes
+   */
+  public static long estimateCost(int totalRecords, long contentLength) {
+    long bodyCost = (contentLength >= 0 ? contentLength : UNKNOWN_CONTENT_LENGTH) * BODY_EXPANSION_FACTOR;
+    return bodyCost + Math.max(0, totalRecords) * BYTES_PER_RECORD;
+  }
+
+  /**
+   * Estimate the heap usage of a streamed import, which reads its users one partition at a time.
+   * @param partitionSize the number of users in a partition
+   * @param maxPartitionsInFlight the number of partitions imported at the same time
+   * @return the estimated cost in bytes
+   */
+  public static long estimateStreamingCost(int partitionSize, int maxPartitionsInFlight) {
+    return STREAMING_OVERHEAD_BYTES + (long) Math.max(1, partitionSize) * Math.max(1, maxPartitionsInFlight) * BYTES_PER_RECORD;
+  }
+
+  /**
+   * Admit an import with the given cost.
+   * @param cost the estimated cost of the import
+   * @return a completed future when the import can start,
+   *         a future failed with ImportRejectedException when the import was rejected
+   */
+  public Future<Void> acquire(long cost) {
+    Future<Void> future = Future.future();
+    synchronized (this) {
+      if (waiters.isEmpty() && fits(cost)) {
+        admit(cost);
+        future.complete();
+        return future;
+      }
+      if (queueing && waiters.size() < maxQueued) {
+        Waiter waiter = new Waiter(cost, future);
+        waiters.add(waiter);
+        increment("admission.queued");
+        waiter.timerId = vertx.setTimer(maxQueueTimeMs, id -> timeout(waiter));
+        return future;
+      }
+    }
+    reject(future);
+    return future;
+  }
+
+  /**
+   * Release the budget of a finished import.
+   * @param cost the cost given when the import was admitted
+   */
+  public void release(long cost) {
+    List<Waiter> admitted = new ArrayList<>();
+    synchronized (this) {
+      inFlightBytes -= cost;
+      inFlightImports--;
+      while (!waiters.isEmpty() && fits(waiters.peek().cost)) {
+        Waiter waiter = waiters.poll();
+        vertx.cancelTimer(waiter.timerId);
+        admit(waiter.cost);
+        admitted.add(waiter);
+      }
+    }
+    admitted.forEach(waiter -> waiter.future.complete());
+  }
+
+  public synchronized long getInFlightBytes() {
+    return inFlightBytes;
+  }
+
+  public synchronized int getInFlightImports() {
+    return inFlightImports;
+  }
+
+  public synchronized int getQueuedImports() {
+    return waiters.size();
+  }
+
+  /*
+   * An import bigger than the whole budget is admitted only when nothing else is running, otherwise it could never start.
+   */
+  private boolean fits(long cost) {
+    return inFlightImports == 0 || inFlightBytes + cost <= maxInFlightBytes;
+  }
+
+  private void admit(long cost) {
+    inFlightBytes += cost;
+    inFlightImports++;
+    increment("admission.admitted");
+  }
+
+  private void timeout(Waiter waiter) {
+    synchronized (this) {
+      if (!waiters.remove(waiter)) {
+        return;
+      }
+    }
+    reject(waiter.future);
+  }
+
+  private void reject(Future<Void> future) {
+    LOGGER.warn(IMPORT_REJECTED);
+    increment("admission.rejected");
+    future.fail(new ImportRejectedException(IMPORT_REJECTED, retryAfterSeconds));
+  }
+
+  private static class Waiter {
+    private final long cost;
+    private final Future<Void> future;
+    private long timerId;
+
+    Waiter(long cost, Future<Void> future) {
+      this.cost = cost;
+      this.future = future;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package org.folio.rest.util;
+
+import io.vertx.core.Context;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Module level configuration. Values are taken from the verticle configuration first,
+ * then from the system properties, otherwise the given default is used.
+ */
+public class ConfigurationUtil {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationUtil.class);
+
+  private ConfigurationUtil() {
+  }
+
+  public static String getString(Context context, String key, String defaultValue) {
+    JsonObject config = context == null ? null : context.config();
+    if (config != null && config.getValue(key) != null) {
+      return config.getValue(key).toString();
+    }
+    return System.getProperty(key, defaultValue);
+  }
+
+  public static int getInt(Context context, String key, int defaultValue) {
+    String value = getString(context, key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  public static long getLong(Context context, String key, long defaultValue) {
+    String value = getString(context, key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Get a setting that must be positive, e.g. a size or a limit.
+   * @return the configured value, the default with a warning if the configured value is not positive
+   */
+  public static int getPositiveInt(Context context, String key, int defaultValue) {
+    int value = getInt(context, key, defaultValue);
+    if (value <= 0) {
+      LOGGER.warn(key + " must be positive, using " + defaultValue + " instead of " + value);
+      return defaultValue;
+    }
+    return value;
+  }
+
+  /**
+   * Get a setting that must be positive, e.g. a size or a limit.
+   * @return the configured value, the default with a warning if the configured value is not positive
+   */
+  public static long getPositiveLong(Context context, String key, long defaultValue) {
+    long value = getLong(context, key, defaultValue);
+    if (value <= 0) {
+      LOGGER.warn(key + " must be positive, using " + defaultValue + " instead of " + value);
+      return defaultValue;
+    }
+    return value;
+  }
+
+  public static boolean getBoolean(Context context, String key, boolean defaultValue) {
+    String value = getString(context, key, null);
+    if (value == null) {
+      return defaultValue;
+    }
+    return Boolean.parseBoolean(value.trim());
+  }
+}
@@ -0,0 +1,98 @@
+package org.folio.rest.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.google.common.base.Strings;
+
+/**
+ * Decodes request bodies by their Content-Encoding header.
+ *
+ * The body is inflated while it is read, so a compressed import is never held uncompressed in memory.
+ */
+public class ContentEncoding {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  public static final String IDENTITY = "identity";
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private ContentEncoding() {
+  }
+
+  /**
+   * Check whether all the codings of a Content-Encoding header can be decoded.
+   * @param contentEncoding the header value, null or empty for an uncompressed body
+   */
+  public static boolean isSupported(String contentEncoding) {
+    for (String coding : codings(contentEncoding)) {
+      if (!GZIP.equals(coding) && !"x-gzip".equals(coding) && !DEFLATE.equals(coding) && !IDENTITY.equals(coding)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Wrap a request body in decoders for its Content-Encoding header. Codings are removed in the reverse order of
+   * the header, as they were applied in its order.
+   * @param body the encoded body
+   * @param contentEncoding the header value, null or empty for an uncompressed body
+   * @return the decoded body
+   * @throws IOException if the body does not start like its coding, e.g. a gzip body without the gzip header
+   * @throws IllegalArgumentException if a coding is not supported, check {@link #isSupported} first
+   */
+  public static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+    String[] codings = codings(contentEncoding);
+    InputStream decoded = body;
+    for (int i = codings.length - 1; i >= 0; i--) {
+      String coding = codings[i];
+      if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+        decoded = new GZIPInputStream(decoded, BUFFER_SIZE);
+      } else if (DEFLATE.equals(coding)) {
+        decoded = inflate(decoded);
+      } else if (!IDENTITY.equals(coding)) {
+        throw new IllegalArgumentException("Unsupported Content-Encoding: " + coding);
+      }
+    }
+    return decoded;
+  }
+
+  /*
+   * HTTP deflate is the zlib format, but some clients send raw deflate data. The zlib header is recognized by its
+   * compression method and check bits, anything else is inflated as raw data.
+   */
+  private static InputStream inflate(InputStream body) throws IOException {
+    PushbackInputStream in = new PushbackInputStream(body, 2);
+    int first = in.read();
+    int second = first == -1 ? -1 : in.read();
+    if (second != -1) {
+      in.unread(second);
+    }
+    if (first != -1) {
+      in.unread(first);
+    }
+    boolean zlib = first != -1 && second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+    return new InflaterInputStream(in, new Inflater(!zlib), BUFFER_SIZE);
+  }
+
+  private static String[] codings(String contentEncoding) {
+    if (Strings.isNullOrEmpty(contentEncoding) || contentEncoding.trim().isEmpty()) {
+      return new String[0];
+    }
+    List<String> codings = new ArrayList<>();
+    for (String coding : contentEncoding.split(",")) {
+      if (!coding.trim().isEmpty()) {
+        codings.add(coding.trim().toLowerCase());
+      }
+    }
+    return codings.toArray(new String[codings.size()]);
+  }
+}
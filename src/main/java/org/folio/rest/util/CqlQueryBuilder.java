@@ -0,0 +1,200 @@
+package org.folio.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Strings;
+
+/**
+ * Builds user search URLs with properly quoted CQL terms.
+ *
+ * The URL encoding of the static parts of the queries is computed only once, every id is encoded exactly once and
+ * the ids of a partition are packed into as few queries as the configured maximum URL length allows.
+ */
+public class CqlQueryBuilder {
+
+  public static final int DEFAULT_MAX_URL_LENGTH = 4096;
+
+  private static final String USERS_PATH = "/users";
+  private static final String QUERY_PARAM = "?query=";
+  private static final String EXTERNAL_SYSTEM_ID = "externalSystemId";
+  private static final String ID = "id";
+  private static final String KEYSET_SORT = " sortBy " + EXTERNAL_SYSTEM_ID + "/sort.ascending " + ID + "/sort.ascending";
+  private static final String OR = urlEncode(" or ");
+  private static final String CLOSING_BRACKET = urlEncode(")");
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private final int maxUrlLength;
+
+  public CqlQueryBuilder(int maxUrlLength) {
+    this.maxUrlLength = maxUrlLength;
+  }
+
+  /**
+   * A single search query and the number of ids it contains.
+   */
+  public static class UserSearchQuery {
+    private final String url;
+    private final int size;
+
+    private UserSearchQuery(String url, int size) {
+      this.url = url;
+      this.size = size;
+    }
+
+    public String getUrl() {
+      return url;
+    }
+
+    public int getSize() {
+      return size;
+    }
+  }
+
+  /**
+   * Build the search queries for the given externalSystemIds. Each query returns at most two users per id.
+   * @param externalSystemIds the (already prefixed) externalSystemIds
+   * @return the list of queries, each of them within the maximum URL length if possible
+   */
+  public List<UserSearchQuery> buildExternalSystemIdQueries(List<String> externalSystemIds) {
+    return buildQueries(EXTERNAL_SYSTEM_ID, externalSystemIds);
+  }
+
+  /**
+   * Build the search queries for the users with the given values of a field, e.g. username or barcode.
+   * Each query returns at most two users per value, sorted by the field.
+   * @param field the name of the user field
+   * @param values the values to search
+   * @return the list of queries, each of them within the maximum URL length if possible
+   */
+  public List<UserSearchQuery> buildQueries(String field, List<String> values) {
+    List<UserSearchQuery> queries = new ArrayList<>();
+    if (values.isEmpty()) {
+      return queries;
+    }
+
+    String fieldIn = urlEncode(field + "==(");
+    int fixedLength = USERS_PATH.length() + QUERY_PARAM.length() + fieldIn.length()
+      + CLOSING_BRACKET.length() + pagingParams(values.size() * 2, 0, field).length();
+
+    StringBuilder terms = new StringBuilder();
+    int count = 0;
+    for (String value : values) {
+      String term = urlEncode(cqlQuote(value));
+      int separatorLength = count == 0 ? 0 : OR.length();
+      if (count > 0 && fixedLength + terms.length() + separatorLength + term.length() > maxUrlLength) {
+        queries.add(fieldQuery(fieldIn, field, terms, count));
+        terms.setLength(0);
+        count = 0;
+        separatorLength = 0;
+      }
+      if (separatorLength > 0) {
+        terms.append(OR);
+      }
+      terms.append(term);
+      count++;
+    }
+    queries.add(fieldQuery(fieldIn, field, terms, count));
+    return queries;
+  }
+
+  private UserSearchQuery fieldQuery(String fieldIn, String field, CharSequence terms, int count) {
+    String url = new StringBuilder(USERS_PATH).append(QUERY_PARAM)
+      .append(fieldIn)
+      .append(terms)
+      .append(CLOSING_BRACKET)
+      .append(pagingParams(count * 2, 0, field))
+      .toString();
+    return new UserSearchQuery(url, count);
+  }
+
+  /**
+   * Build the URL of a user search.
+   * @param query the CQL query
+   * @param limit maximum number of retrieved users
+   * @param offset page number
+   * @return the URL
+   */
+  public static String userSearchUrl(String query, int limit, int offset) {
+    return USERS_PATH + QUERY_PARAM + urlEncode(query) + pagingParams(limit, offset, EXTERNAL_SYSTEM_ID);
+  }
+
+  /**
+   * Build the query of the users of a sourceType, the users with an externalSystemId without sourceType. The term is
+   * quoted, only the anchor and the trailing masking character are left unescaped.
+   */
+  public static String externalSystemIdQuery(String sourceType) {
+    if (Strings.isNullOrEmpty(sourceType)) {
+      return EXTERNAL_SYSTEM_ID + "<>''";
+    }
+    return EXTERNAL_SYSTEM_ID + "=\"^" + cqlEscape(sourceType) + "_*\"";
+  }
+
+  /**
+   * Build the URL of a page of a user search ordered by externalSystemId and id. The page starts after the given
+   * externalSystemId and id instead of an offset, so deep pages cost as much as the first one, and users with the same
+   * externalSystemId are neither skipped nor repeated between pages.
+   * @param query the CQL query
+   * @param lastExternalSystemId the last externalSystemId of the previous page, null for the first page
+   * @param lastId the last id of the previous page
+   * @param limit maximum number of retrieved users
+   * @return the URL
+   */
+  public static String keysetUserSearchUrl(String query, String lastExternalSystemId, String lastId, int limit) {
+    String pageQuery = lastExternalSystemId == null ? query
+      : "(" + query + ") and (" + EXTERNAL_SYSTEM_ID + ">" + cqlQuote(lastExternalSystemId)
+        + " or (" + EXTERNAL_SYSTEM_ID + "==" + cqlQuote(lastExternalSystemId) + " and " + ID + ">" + cqlQuote(lastId) + "))";
+    return USERS_PATH + QUERY_PARAM + urlEncode(pageQuery + KEYSET_SORT) + "&limit=" + limit + "&offset=0";
+  }
+
+  private static String pagingParams(int limit, int offset, String orderBy) {
+    return "&limit=" + limit + "&offset=" + offset + "&orderBy=" + orderBy + "&order=asc";
+  }
+
+  /**
+   * Quote a value as a CQL term, escaping the quote, backslash and masking characters.
+   */
+  public static String cqlQuote(String value) {
+    return "\"" + cqlEscape(value) + "\"";
+  }
+
+  /**
+   * Escape the quote, backslash and masking characters of a CQL term.
+   */
+  public static String cqlEscape(String value) {
+    if (value == null) {
+      return "";
+    }
+    StringBuilder escaped = new StringBuilder(value.length() + 8);
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' || c == '"' || c == '*' || c == '?' || c == '^') {
+        escaped.append('\\');
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+
+  /**
+   * Encode a query parameter value. Unreserved characters are kept, spaces are encoded as '+'
+   * and every other byte of the UTF-8 representation is percent encoded.
+   */
+  public static String urlEncode(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    StringBuilder encoded = new StringBuilder(bytes.length + 16);
+    for (byte b : bytes) {
+      int c = b & 0xFF;
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+        || c == '-' || c == '.' || c == '_' || c == '~') {
+        encoded.append((char) c);
+      } else if (c == ' ') {
+        encoded.append('+');
+      } else {
+        encoded.append('%').append(HEX[c >> 4]).append(HEX[c & 0x0F]);
+      }
+    }
+    return encoded.toString();
+  }
+}
@@ -0,0 +1,169 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.ImportFormatException;
+import org.folio.rest.model.InvalidUser;
+
+import com.google.common.base.Strings;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Maps the columns of a CSV row to the fields of a user.
+ *
+ * Fields are given as paths in the user JSON, numbers select array elements, e.g. <code>personal.lastName</code> or
+ * <code>personal.addresses.0.city</code>. The mapping is given as <code>COLUMN:path</code> pairs separated by commas,
+ * e.g. <code>EMPLID:externalSystemId,LAST_NAME:personal.lastName</code>. Without a mapping the column names of the
+ * header row are used as paths. Columns without a path are ignored. Array elements are numbered from 0 to
+ * {@value #MAX_ARRAY_INDEX}, elements without any value in a row are left out, e.g. a row with only
+ * <code>personal.addresses.1.city</code> gets a single address.
+ */
+public class CsvColumnMapping {
+
+  public static final int MAX_ARRAY_INDEX = 9;
+
+  private final Map<String, String> pathsByColumn;
+
+  private CsvColumnMapping(Map<String, String> pathsByColumn) {
+    this.pathsByColumn = pathsByColumn;
+  }
+
+  /**
+   * Parse a column mapping.
+   * @param mapping <code>COLUMN:path</code> pairs separated by commas, empty to use the header names as paths
+   * @return the parsed mapping
+   * @throws IllegalArgumentException if the mapping is malformed
+   */
+  public static CsvColumnMapping parse(String mapping) {
+    if (Strings.isNullOrEmpty(mapping) || mapping.trim().isEmpty()) {
+      return new CsvColumnMapping(null);
+    }
+    Map<String, String> pathsByColumn = new HashMap<>();
+    for (String pair : mapping.split(",")) {
+      int separator = pair.lastIndexOf(':');
+      if (separator <= 0 || separator == pair.length() - 1) {
+        throw new IllegalArgumentException("Invalid column mapping: " + pair);
+      }
+      String path = pair.substring(separator + 1).trim();
+      validatePath(path);
+      pathsByColumn.put(pair.substring(0, separator).trim(), path);
+    }
+    return new CsvColumnMapping(pathsByColumn);
+  }
+
+  /**
+   * Resolve the field paths of the columns of a header row.
+   * @param header the column names
+   * @return the field path of each column, null for ignored columns
+   * @throws IllegalArgumentException if a header name used as path is not a valid path
+   */
+  public String[] resolve(List<String> header) {
+    String[] paths = new String[header.size()];
+    for (int i = 0; i < paths.length; i++) {
+      String column = header.get(i).trim();
+      paths[i] = pathsByColumn == null ? column : pathsByColumn.get(column);
+      if (paths[i] != null && paths[i].isEmpty()) {
+        paths[i] = null;
+      } else if (pathsByColumn == null) {
+        validatePath(paths[i]);
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * Create a user from a row. Empty cells are left out.
+   * @param paths the resolved field paths of the columns
+   * @param row the values of the row
+   * @param line the line number of the row, used in error messages
+   * @return the mapped user, an {@link InvalidUser} if a value does not fit the user schema
+   * @throws ImportFormatException if a field path is invalid
+   */
+  public static User toUser(String[] paths, List<String> row, long line) throws ImportFormatException {
+    JsonObject json = new JsonObject();
+    for (int i = 0; i < paths.length && i < row.size(); i++) {
+      String value = row.get(i);
+      if (paths[i] != null && !Strings.isNullOrEmpty(value)) {
+        put(json, paths[i].split("\\."), value, line);
+      }
+    }
+    removeEmptyElements(json);
+    try {
+      return json.mapTo(User.class);
+    } catch (IllegalArgumentException e) {
+      return new InvalidUser(json.getString("externalSystemId"), json.getString("username"),
+        "Failed to map line " + line + " to a user: " + e.getMessage());
+    }
+  }
+
+  private static void put(JsonObject root, String[] segments, String value, long line) throws ImportFormatException {
+    Object container = root;
+    for (int i = 0; i < segments.length; i++) {
+      boolean last = i == segments.length - 1;
+      String segment = segments[i];
+      Object child = last ? value : isIndex(segments[i + 1]) ? new JsonArray() : new JsonObject();
+      if (container instanceof JsonObject) {
+        JsonObject object = (JsonObject) container;
+        if (!last && object.getValue(segment) != null) {
+          child = object.getValue(segment);
+        } else {
+          object.put(segment, child);
+        }
+      } else if (container instanceof JsonArray && isIndex(segment)) {
+        JsonArray array = (JsonArray) container;
+        int index = Integer.parseInt(segment);
+        if (index > MAX_ARRAY_INDEX) {
+          throw new ImportFormatException("Invalid field path on line " + line + ": " + String.join(".", segments));
+        }
+        while (array.size() <= index) {
+          array.addNull();
+        }
+        if (!last && array.getValue(index) != null) {
+          child = array.getValue(index);
+        } else {
+          array.getList().set(index, child);
+        }
+      } else {
+        throw new ImportFormatException("Invalid field path on line " + line + ": " + String.join(".", segments));
+      }
+      container = child;
+    }
+  }
+
+  /**
+   * Check that the array indexes of a path are within {@link #MAX_ARRAY_INDEX}.
+   * @throws IllegalArgumentException if the path is invalid
+   */
+  static void validatePath(String path) {
+    for (String segment : path.split("\\.", -1)) {
+      if (segment.isEmpty() || isIndex(segment) && (segment.length() > 2 || Integer.parseInt(segment) > MAX_ARRAY_INDEX)) {
+        throw new IllegalArgumentException(INVALID_CSV_FIELD_PATH + path);
+      }
+    }
+  }
+
+  /**
+   * Remove the array elements that got no value, so sparse element numbers do not leave null elements.
+   */
+  private static void removeEmptyElements(Object value) {
+    if (value instanceof JsonObject) {
+      ((JsonObject) value).forEach(field -> removeEmptyElements(field.getValue()));
+    } else if (value instanceof JsonArray) {
+      List<Object> elements = ((JsonArray) value).getList();
+      elements.removeIf(Objects::isNull);
+      elements.forEach(CsvColumnMapping::removeEmptyElements);
+    }
+  }
+
+  private static boolean isIndex(String segment) {
+    return !segment.isEmpty() && segment.chars().allMatch(Character::isDigit);
+  }
+}
@@ -0,0 +1,162 @@
+package org.folio.rest.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.ImportFormatException;
+
+/**
+ * Reads users from CSV (RFC 4180) or other delimited text, one partition at a time.
+ *
+ * The first row is the header. Values may be quoted, quotes are escaped by doubling them and quoted values may span
+ * lines. Only the rows of the requested partition are parsed, so the whole file is never held in memory.
+ */
+public class CsvUserReader implements UserSource {
+
+  private static final int BYTE_ORDER_MARK = '\uFEFF';
+
+  private final Reader reader;
+  private final char delimiter;
+  private final CsvColumnMapping mapping;
+  private String[] paths;
+  private long line = 1;
+  private int pushedBack = -2;
+  private boolean endOfInput;
+
+  /**
+   * @param reader the CSV text, should be buffered
+   * @param delimiter the value separator, e.g. comma, semicolon or tab
+   * @param mapping the mapping of the columns to user fields
+   */
+  public CsvUserReader(Reader reader, char delimiter, CsvColumnMapping mapping) {
+    this.reader = reader;
+    this.delimiter = delimiter;
+    this.mapping = mapping;
+  }
+
+  /**
+   * Read the header row if it was not read yet, so an invalid header is reported before the import starts.
+   * @throws ImportFormatException if a column name is not a valid field path
+   */
+  public void readHeader() throws IOException {
+    if (paths != null) {
+      return;
+    }
+    List<String> header = readRecord();
+    if (header == null) {
+      return;
+    }
+    try {
+      paths = mapping.resolve(header);
+    } catch (IllegalArgumentException e) {
+      throw new ImportFormatException(e.getMessage());
+    }
+  }
+
+  @Override
+  public List<User> nextPartition(int size) throws IOException {
+    List<User> users = new ArrayList<>(size);
+    readHeader();
+    if (paths == null) {
+      return users;
+    }
+    while (users.size() < size) {
+      long recordLine = line;
+      List<String> record = readRecord();
+      if (record == null) {
+        break;
+      }
+      if (record.size() == 1 && record.get(0).isEmpty()) {
+        continue;
+      }
+      users.add(CsvColumnMapping.toUser(paths, record, recordLine));
+    }
+    return users;
+  }
+
+  /**
+   * Read the values of the next record.
+   * @return the values, null at the end of the input
+   */
+  List<String> readRecord() throws IOException {
+    if (endOfInput) {
+      return null;
+    }
+    List<String> values = new ArrayList<>();
+    StringBuilder value = new StringBuilder();
+    boolean quoted = false;
+    boolean afterQuote = false;
+    long startLine = line;
+    int c = read();
+    if (c == -1) {
+      endOfInput = true;
+      return null;
+    }
+    if (c == BYTE_ORDER_MARK && startLine == 1) {
+      c = read();
+    }
+    while (true) {
+      if (quoted) {
+        if (c == -1) {
+          throw new ImportFormatException("Unterminated quoted value starting on line " + startLine);
+        } else if (c == '"') {
+          int next = read();
+          if (next == '"') {
+            value.append('"');
+          } else {
+            quoted = false;
+            afterQuote = true;
+            c = next;
+            continue;
+          }
+        } else {
+          if (c == '\n') {
+            line++;
+          }
+          value.append((char) c);
+        }
+      } else if (c == -1 || c == '\n' || c == '\r') {
+        if (c == '\r') {
+          int next = read();
+          if (next != '\n') {
+            unread(next);
+          }
+        }
+        if (c == -1) {
+          endOfInput = true;
+        } else {
+          line++;
+        }
+        values.add(value.toString());
+        return values;
+      } else if (c == delimiter) {
+        values.add(value.toString());
+        value.setLength(0);
+        afterQuote = false;
+      } else if (c == '"' && value.length() == 0 && !afterQuote) {
+        quoted = true;
+      } else if (afterQuote) {
+        throw new ImportFormatException("Unexpected character after quoted value on line " + line);
+      } else {
+        value.append((char) c);
+      }
+      c = read();
+    }
+  }
+
+  private int read() throws IOException {
+    if (pushedBack != -2) {
+      int c = pushedBack;
+      pushedBack = -2;
+      return c;
+    }
+    return reader.read();
+  }
+
+  private void unread(int c) {
+    pushedBack = c;
+  }
+}
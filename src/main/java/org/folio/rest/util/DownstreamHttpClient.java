@@ -0,0 +1,120 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import org.folio.rest.model.ImportCancellation;
+import org.folio.rest.tools.client.Response;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+
+/**
+ * Wraps the HTTP client of an import, so every request to another module goes through the module wide
+ * {@link AdaptiveConcurrencyLimiter} and slow GET requests are hedged by the {@link RequestHedger}. With HTTP/2
+ * enabled, the requests are sent by the {@link Http2OkapiClient} instead of the wrapped client. With a deadline, the
+ * remaining time of the import is the timeout of every request, and requests are no longer sent after the deadline.
+ * The callers use the client as before.
+ */
+public class DownstreamHttpClient {
+
+  private DownstreamHttpClient() {
+  }
+
+  /**
+   * Wrap a client with the limiter, the hedger and the HTTP/2 client of the given context.
+   * @param okapiUrl the Okapi URL of the wrapped client
+   * @param tenant the tenant of the wrapped client
+   * @param cancellation the deadline of the requests, null for none
+   * @return the wrapped client, the client itself if adaptive concurrency, hedging and HTTP/2 are disabled and there
+   * is no deadline
+   */
+  public static HttpClientInterface wrap(HttpClientInterface client, String okapiUrl, String tenant, ImportCancellation cancellation,
+    Context context) {
+    AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.getInstance(context);
+    RequestHedger hedger = RequestHedger.getInstance(context);
+    Http2OkapiClient http2 = Http2OkapiClient.supports(okapiUrl) ? Http2OkapiClient.getInstance(context) : null;
+    ImportCancellation deadline = cancellation != null && cancellation.hasDeadline() ? cancellation : null;
+    if (limiter == null && hedger == null && http2 == null && deadline == null) {
+      return client;
+    }
+    return (HttpClientInterface) Proxy.newProxyInstance(HttpClientInterface.class.getClassLoader(), new Class<?>[] { HttpClientInterface.class },
+      (proxy, method, args) -> {
+        if (!isRequest(method)) {
+          return invoke(client, method, args);
+        }
+        AdaptiveConcurrencyLimiter.Request send = () -> sendRequest(client, http2, okapiUrl, tenant, method, args, deadline);
+        AdaptiveConcurrencyLimiter.Request request = limiter == null ? send : () -> limiter.execute(send);
+        CompletableFuture<Response> response = hedger != null && isGet(args) ? hedger.execute(request) : request.send();
+        return deadline == null ? response : withTimeout(response, deadline.getRemainingMs(), context.owner());
+      });
+  }
+
+  /**
+   * Fail a response that has not arrived within the given time.
+   */
+  private static CompletableFuture<Response> withTimeout(CompletableFuture<Response> response, long timeoutMs, Vertx vertx) {
+    if (response.isDone()) {
+      return response;
+    }
+    if (timeoutMs <= 0) {
+      return failed(new TimeoutException(IMPORT_DEADLINE_EXCEEDED));
+    }
+    CompletableFuture<Response> result = new CompletableFuture<>();
+    long timerId = vertx.setTimer(timeoutMs, id -> result.completeExceptionally(new TimeoutException(IMPORT_DEADLINE_EXCEEDED)));
+    response.whenComplete((res, ex) -> {
+      vertx.cancelTimer(timerId);
+      if (ex == null) {
+        result.complete(res);
+      } else {
+        result.completeExceptionally(ex);
+      }
+    });
+    return result;
+  }
+
+  private static CompletableFuture<Response> failed(Throwable cause) {
+    CompletableFuture<Response> future = new CompletableFuture<>();
+    future.completeExceptionally(cause);
+    return future;
+  }
+
+  private static boolean isRequest(Method method) {
+    return "request".equals(method.getName()) && CompletableFuture.class.equals(method.getReturnType());
+  }
+
+  /**
+   * Whether a request is a GET, the requests without method are GETs.
+   */
+  private static boolean isGet(Object[] args) {
+    return args != null && args.length > 0 && (args[0] instanceof String || args[0] == HttpMethod.GET);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static CompletableFuture<Response> sendRequest(HttpClientInterface client, Http2OkapiClient http2, String okapiUrl,
+    String tenant, Method method, Object[] args, ImportCancellation deadline) throws Exception {
+    if (deadline != null && deadline.getRemainingMs() == 0) {
+      return failed(new TimeoutException(IMPORT_DEADLINE_EXCEEDED));
+    }
+    CompletableFuture<Response> response = http2 == null ? null : http2.request(okapiUrl, tenant, args);
+    return response != null ? response : (CompletableFuture<Response>) invoke(client, method, args);
+  }
+
+  private static Object invoke(HttpClientInterface client, Method method, Object[] args) throws Exception {
+    try {
+      return method.invoke(client, args);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
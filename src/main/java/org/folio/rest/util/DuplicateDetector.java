@@ -0,0 +1,95 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.folio.rest.jaxrs.model.FailedUser;
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.InvalidUser;
+
+import io.vertx.core.json.Json;
+
+/**
+ * Finds the users given more than once in an import before any request is sent for them.
+ *
+ * A user with the externalSystemId of an earlier user is skipped if both are identical and rejected otherwise. A user
+ * with the username of an earlier user with a different externalSystemId is rejected, usernames are compared ignoring
+ * case like the collision check against the existing users. The first user always wins, so
+ * the outcome does not depend on the partitions of the users. Users without externalSystemId and records that could
+ * not be mapped are passed on to the validation.
+ *
+ * Only 64 bit hashes of the externalSystemIds, usernames and user contents are kept, in open addressing tables of
+ * primitive longs, so millions of users can be checked in a few tens of MB. The users of one import are checked one
+ * partition after the other, the detector is not thread safe.
+ */
+public class DuplicateDetector {
+
+  private final LongLongTable externalSystemIds = new LongLongTable();
+  private final LongLongTable usernames = new LongLongTable();
+  private final List<FailedUser> rejectedUsers = new ArrayList<>();
+  private int duplicates;
+
+  /**
+   * Remove the duplicates from a partition.
+   * @param users the users of the partition in the order of the import
+   * @return the users that are imported
+   */
+  public List<User> filter(List<User> users) {
+    List<User> accepted = new ArrayList<>(users.size());
+    for (User user : users) {
+      if (user.getExternalSystemId() == null || user instanceof InvalidUser) {
+        accepted.add(user);
+        continue;
+      }
+      long idKey = LongLongTable.hash(user.getExternalSystemId());
+      long content = LongLongTable.hash(Json.encode(user));
+      long firstContent = externalSystemIds.get(idKey);
+      if (firstContent != LongLongTable.MISSING) {
+        if (firstContent == content) {
+          duplicates++;
+          ImportMetrics.increment("import.duplicatesSkipped");
+        } else {
+          reject(user, DUPLICATE_EXTERNAL_SYSTEM_ID);
+        }
+        continue;
+      }
+      if (user.getUsername() != null) {
+        long usernameKey = LongLongTable.hash(user.getUsername().toLowerCase(Locale.ROOT));
+        if (usernames.get(usernameKey) != LongLongTable.MISSING) {
+          reject(user, DUPLICATE_USERNAME);
+          continue;
+        }
+        usernames.put(usernameKey, idKey);
+      }
+      externalSystemIds.put(idKey, content);
+      accepted.add(user);
+    }
+    return accepted;
+  }
+
+  private void reject(User user, String errorMessage) {
+    ImportMetrics.increment("import.duplicatesRejected");
+    rejectedUsers.add(new FailedUser()
+      .withExternalSystemId(user.getExternalSystemId())
+      .withUsername(user.getUsername())
+      .withErrorMessage(errorMessage));
+  }
+
+  /**
+   * The outcome of the duplicates, to be aggregated with the responses of the partitions.
+   * @return the rejected users as failed records and the number of skipped identical users
+   */
+  public ImportResponse getResponse() {
+    return new ImportResponse()
+      .withCreatedRecords(0)
+      .withUpdatedRecords(0)
+      .withFailedRecords(rejectedUsers.size())
+      .withDuplicateRecords(duplicates)
+      .withTotalRecords(rejectedUsers.size() + duplicates)
+      .withFailedUsers(rejectedUsers);
+  }
+}
@@ -0,0 +1,47 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Measures how long the event loop was blocked.
+ *
+ * A periodic timer is scheduled on the event loop, every millisecond it fires later than expected
+ * is time the event loop was busy with something else.
+ */
+public class EventLoopMonitor {
+
+  private static final AtomicLong maxLag = new AtomicLong();
+  private static final AtomicLong lastLag = new AtomicLong();
+
+  static {
+    registerGauge("eventLoop.maxLagMs", maxLag::get);
+    registerGauge("eventLoop.lastLagMs", lastLag::get);
+  }
+
+  private EventLoopMonitor() {
+  }
+
+  /**
+   * Start measuring the event loop of the current context.
+   * @param vertx the Vert.x instance
+   * @param intervalMs the interval of the measurements, 0 or less disables the monitoring
+   */
+  public static void start(Vertx vertx, long intervalMs) {
+    if (intervalMs <= 0) {
+      return;
+    }
+    long[] expected = { System.nanoTime() + intervalMs * 1000000 };
+    vertx.setPeriodic(intervalMs, id -> {
+      long now = System.nanoTime();
+      long lag = Math.max(0, (now - expected[0]) / 1000000);
+      expected[0] = now + intervalMs * 1000000;
+      lastLag.set(lag);
+      maxLag.accumulateAndGet(lag, Math::max);
+      add("eventLoop.blockedMs", lag);
+    });
+  }
+}
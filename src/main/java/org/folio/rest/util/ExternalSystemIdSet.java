@@ -0,0 +1,25 @@
+package org.folio.rest.util;
+
+/**
+ * The externalSystemIds seen by an import or a sync session, used to find the users to deactivate.
+ *
+ * Only 64 bit hashes of the externalSystemIds are kept, about 16 bytes per id. A hash collision can only make a missing
+ * user look seen, so a user is at worst not deactivated, never deactivated by mistake. Not thread safe, the ids are
+ * added on the event loop.
+ */
+public class ExternalSystemIdSet {
+
+  private final LongLongTable hashes = new LongLongTable();
+
+  public void add(String externalSystemId) {
+    hashes.put(LongLongTable.hash(externalSystemId), 1);
+  }
+
+  public boolean contains(String externalSystemId) {
+    return hashes.get(LongLongTable.hash(externalSystemId)) != LongLongTable.MISSING;
+  }
+
+  public int size() {
+    return hashes.size();
+  }
+}
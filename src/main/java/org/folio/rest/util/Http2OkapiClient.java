@@ -0,0 +1,159 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.folio.rest.tools.client.Response;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+
+/**
+ * Sends the requests of the imports to Okapi over HTTP/2 without TLS (h2c with prior knowledge). The requests of all
+ * imports share a few connections, every request is a stream of a connection, up to the configured maximum of
+ * concurrent streams per connection.
+ *
+ * Only plain <code>http</code> Okapi URLs are supported, the requests to <code>https</code> Okapi URLs are sent by the
+ * RMB client over HTTP/1.1. A request fails when its response sends no data for the idle timeout of the RMB client or
+ * when the body of a successful response is not JSON.
+ */
+public class Http2OkapiClient {
+
+  private static final Map<Vertx, Http2OkapiClient> instances = new WeakHashMap<>();
+
+  private static final int CONNECT_TIMEOUT_MS = 5000;
+  private static final int IDLE_TIMEOUT_SECONDS = 10;
+  private static final long REQUEST_TIMEOUT_MS = 10000;
+
+  private final HttpClient client;
+  private final long requestTimeoutMs;
+
+  Http2OkapiClient(Vertx vertx, int maxConcurrentStreams, int maxConnections) {
+    this(vertx, maxConcurrentStreams, maxConnections, REQUEST_TIMEOUT_MS);
+  }
+
+  /**
+   * @param requestTimeoutMs the time without any data of a response after which its request fails, like the idle
+   *   timeout of the RMB client
+   */
+  Http2OkapiClient(Vertx vertx, int maxConcurrentStreams, int maxConnections, long requestTimeoutMs) {
+    this.requestTimeoutMs = requestTimeoutMs;
+    this.client = vertx.createHttpClient(new HttpClientOptions()
+      .setProtocolVersion(HttpVersion.HTTP_2)
+      .setHttp2ClearTextUpgrade(false)
+      .setHttp2MultiplexingLimit(maxConcurrentStreams)
+      .setHttp2MaxPoolSize(maxConnections)
+      .setKeepAlive(true)
+      .setConnectTimeout(CONNECT_TIMEOUT_MS)
+      .setIdleTimeout(IDLE_TIMEOUT_SECONDS));
+  }
+
+  /**
+   * Get the module wide HTTP/2 client of the Vert.x instance, created from the configuration of the given context on first use.
+   * @return the client, null if HTTP/2 is disabled
+   */
+  public static synchronized Http2OkapiClient getInstance(Context context) {
+    if (!ConfigurationUtil.getBoolean(context, CONFIG_HTTP2_ENABLED, false)) {
+      return null;
+    }
+    return instances.computeIfAbsent(context.owner(), vertx -> new Http2OkapiClient(vertx,
+      ConfigurationUtil.getPositiveInt(context, CONFIG_HTTP2_MAX_CONCURRENT_STREAMS, DEFAULT_HTTP2_MAX_CONCURRENT_STREAMS),
+      ConfigurationUtil.getPositiveInt(context, CONFIG_HTTP2_MAX_CONNECTIONS, DEFAULT_HTTP2_MAX_CONNECTIONS)));
+  }
+
+  /**
+   * Whether the requests to the given Okapi URL can be sent over h2c.
+   */
+  public static boolean supports(String okapiUrl) {
+    return okapiUrl != null && okapiUrl.startsWith("http://");
+  }
+
+  /**
+   * Send a request given as the arguments of an RMB <code>HttpClientInterface.request</code> call: an optional
+   * method (GET without it), an optional body, the endpoint (the last string) and optional headers.
+   * @return the response like the RMB client returns it, null if the arguments are not supported
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Response> request(String okapiUrl, String tenant, Object[] args) {
+    HttpMethod method = HttpMethod.GET;
+    Object body = null;
+    String endpoint = null;
+    Map<String, String> headers = null;
+    for (Object arg : args == null ? new Object[0] : args) {
+      if (arg instanceof HttpMethod) {
+        method = (HttpMethod) arg;
+      } else if (arg instanceof Map) {
+        headers = (Map<String, String>) arg;
+      } else if (arg instanceof String) {
+        if (endpoint != null) {
+          body = endpoint;
+        }
+        endpoint = (String) arg;
+      } else if (arg != null) {
+        body = arg;
+      }
+    }
+    if (endpoint == null) {
+      return null;
+    }
+    return send(method, okapiUrl + endpoint, endpoint, tenant, body, headers);
+  }
+
+  private CompletableFuture<Response> send(HttpMethod method, String url, String endpoint, String tenant, Object body,
+    Map<String, String> headers) {
+    CompletableFuture<Response> result = new CompletableFuture<>();
+    increment("http2.requests");
+    HttpClientRequest request = client.requestAbs(method, url, response -> response
+      .exceptionHandler(result::completeExceptionally)
+      .bodyHandler(buffer -> {
+        Response res = new Response();
+        res.setCode(response.statusCode());
+        res.setEndpoint(endpoint);
+        res.setHeaders(response.headers());
+        try {
+          if (Response.isSuccess(response.statusCode())) {
+            res.setBody(buffer.length() == 0 ? null : buffer.toJsonObject());
+          } else {
+            res.populateError(endpoint, response.statusCode(), buffer.toString());
+          }
+        } catch (DecodeException e) {
+          result.completeExceptionally(e);
+          return;
+        }
+        result.complete(res);
+      }));
+    request.exceptionHandler(result::completeExceptionally);
+    request.setTimeout(requestTimeoutMs);
+    if (tenant != null) {
+      request.putHeader(OKAPI_TENANT_HEADER, tenant);
+    }
+    if (headers != null) {
+      headers.forEach((name, value) -> {
+        if (value != null) {
+          request.putHeader(name, value);
+        }
+      });
+    }
+    if (body == null) {
+      request.end();
+    } else {
+      if (!request.headers().contains(HTTP_HEADER_CONTENT_TYPE)) {
+        request.putHeader(HTTP_HEADER_CONTENT_TYPE, HTTP_HEADER_VALUE_APPLICATION_JSON);
+      }
+      request.end(Buffer.buffer(body instanceof String ? (String) body : Json.encode(body)));
+    }
+    return result;
+  }
+}
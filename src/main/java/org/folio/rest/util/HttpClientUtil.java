@@ -3,12 +3,28 @@ package org.folio.rest.util;
 import static org.folio.rest.util.UserImportAPIConstants.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.folio.rest.model.ImportCancellation;
+import org.folio.rest.tools.client.HttpClientFactory;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
 
 import com.google.common.base.Strings;
 
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
 public class HttpClientUtil {
 
+  private static final int CONN_TO = 5000;
+  private static final int IDLE_TO = 10000;
+  private static final int MAX_POOLED_CLIENTS = 100;
+  private static final long EVICTED_CLIENT_CLOSE_DELAY_MS = 60000;
+
+  private static final Map<Vertx, Map<String, HttpClientInterface>> pooledClients = new WeakHashMap<>();
+
   private HttpClientUtil() {
   }
 
@@ -25,4 +41,40 @@ public class HttpClientUtil {
   public static String getOkapiUrl(Map<String, String> okapiHeaders) {
     return okapiHeaders.get(OKAPI_URL_HEADER);
   }
+
+  /**
+   * Create the client of the requests of an import to other modules, see {@link DownstreamHttpClient}.
+   * @param cancellation the deadline of the requests, null for none
+   */
+  public static HttpClientInterface createHttpClient(Map<String, String> okapiHeaders, ImportCancellation cancellation, Context vertxContext) {
+    String okapiUrl = getOkapiUrl(okapiHeaders);
+    String tenant = okapiHeaders.get(OKAPI_TENANT_HEADER);
+    return DownstreamHttpClient.wrap(HttpClientFactory.getHttpClient(okapiUrl, -1, tenant, true,
+      CONN_TO, IDLE_TO,false,30L), okapiUrl, tenant, cancellation, vertxContext);
+  }
+
+  /**
+   * Get the client of the single user imports of a tenant. The client is shared by the requests with the same tenant
+   * and Okapi URL, so the connections to Okapi stay open between the requests. At most 100
+   * clients are kept, the least recently used one is closed when another one is needed, after a delay so its running
+   * requests can finish.
+   */
+  public static synchronized HttpClientInterface getPooledHttpClient(Map<String, String> okapiHeaders, Context vertxContext) {
+    String key = okapiHeaders.get(OKAPI_TENANT_HEADER) + "|" + getOkapiUrl(okapiHeaders);
+    return pooledClients.computeIfAbsent(vertxContext.owner(), HttpClientUtil::createClientPool)
+      .computeIfAbsent(key, k -> createHttpClient(okapiHeaders, null, vertxContext));
+  }
+
+  private static Map<String, HttpClientInterface> createClientPool(Vertx vertx) {
+    return new LinkedHashMap<String, HttpClientInterface>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, HttpClientInterface> eldest) {
+        if (size() <= MAX_POOLED_CLIENTS) {
+          return false;
+        }
+        vertx.setTimer(EVICTED_CLIENT_CLOSE_DELAY_MS, id -> eldest.getValue().closeClient());
+        return true;
+      }
+    };
+  }
 }
@@ -0,0 +1,219 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.model.IdempotencyKeyReusedException;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+/**
+ * Suppresses repeated imports sent with the same Idempotency-Key header.
+ *
+ * The keys of the recent imports of each tenant are kept in a bounded store, the least recently used keys are evicted
+ * first. A repeated request while the first import is running gets the response of the running import, a repeated
+ * request after it finished gets its cached response until the key expires. Imports that were rejected or failed with
+ * an error are not cached, so they can be retried with the same key. A request reusing a key with a different
+ * fingerprint, e.g. another body, fails with IdempotencyKeyReusedException instead of getting the other response.
+ *
+ * A running import is only abandoned when every request waiting for it has disconnected, so a retry attached to an
+ * import keeps it running after the client of the first request is gone. An abandoned import is removed from the
+ * store right away, a retry arriving while it finishes its running partitions starts a new import.
+ */
+public class IdempotencyStore {
+
+  private static final Map<Vertx, IdempotencyStore> instances = new WeakHashMap<>();
+
+  private final int maxKeys;
+  private final long ttlMs;
+  private final Map<String, Entry> entries;
+
+  IdempotencyStore(int maxKeys, long ttlMs) {
+    this.maxKeys = maxKeys;
+    this.ttlMs = ttlMs;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > IdempotencyStore.this.maxKeys;
+      }
+    };
+    registerGauge("idempotency.keys", this::size);
+  }
+
+  /**
+   * Get the module wide store of the Vert.x instance, created from the configuration of the given context on first use.
+   */
+  public static synchronized IdempotencyStore getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> new IdempotencyStore(
+      ConfigurationUtil.getInt(context, CONFIG_IDEMPOTENCY_MAX_KEYS, DEFAULT_IDEMPOTENCY_MAX_KEYS),
+      ConfigurationUtil.getLong(context, CONFIG_IDEMPOTENCY_TTL_MS, DEFAULT_IDEMPOTENCY_TTL_MS)));
+  }
+
+  /**
+   * Compute the fingerprint of a request from the given parts, e.g. its path and body.
+   */
+  public static String fingerprint(String... parts) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String part : parts) {
+      hasher.putString(Strings.nullToEmpty(part), StandardCharsets.UTF_8).putChar('\0');
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Run an import once per key, without client connections to watch.
+   * @see #execute(String, String, String, Supplier, Consumer, Runnable)
+   */
+  public Future<ImportResponse> execute(String tenant, String key, Supplier<Future<ImportResponse>> importer) {
+    return execute(tenant, key, null, importer, null, null);
+  }
+
+  /**
+   * Run an import once per key.
+   * @param tenant the tenant of the import, keys are unique per tenant
+   * @param key the Idempotency-Key of the request, null or empty to always run the import
+   * @param fingerprint the fingerprint of the request, see {@link #fingerprint}, null to not compare the requests
+   *   sent with the key
+   * @param importer starts the import
+   * @param closeHandler registers the handler to call when the connection of the request closes before its response
+   *   is sent, null if there is no connection to watch
+   * @param abandonHandler stops the import started by this request, called when all requests waiting for the import
+   *   have disconnected
+   * @return the response of the import started for the key,
+   *         a future failed with IdempotencyKeyReusedException when the key was used with another fingerprint
+   */
+  public Future<ImportResponse> execute(String tenant, String key, String fingerprint, Supplier<Future<ImportResponse>> importer,
+    Consumer<Runnable> closeHandler, Runnable abandonHandler) {
+    if (Strings.isNullOrEmpty(key) || maxKeys <= 0) {
+      Future<ImportResponse> running = importer.get();
+      if (closeHandler != null) {
+        closeHandler.accept(() -> {
+          if (!running.isComplete() && abandonHandler != null) {
+            abandonHandler.run();
+          }
+        });
+      }
+      return running;
+    }
+    String storeKey = tenant + ":" + key;
+    Future<ImportResponse> future = Future.future();
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(storeKey);
+      if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+        entries.remove(storeKey);
+        entry = null;
+      }
+      if (entry != null) {
+        if (fingerprint != null && entry.fingerprint != null && !Objects.equals(fingerprint, entry.fingerprint)) {
+          increment("idempotency.reused");
+          future.fail(new IdempotencyKeyReusedException(IDEMPOTENCY_KEY_REUSED + key));
+        } else if (entry.outcome == null) {
+          increment("idempotency.attached");
+          entry.waiters.add(future);
+          entry.callers++;
+          watch(entry, closeHandler);
+        } else {
+          increment("idempotency.replayed");
+          future.complete(entry.outcome.result());
+        }
+        return future;
+      }
+      entry = new Entry(storeKey, fingerprint);
+      entry.abandonHandler = abandonHandler;
+      entry.callers = 1;
+      entries.put(storeKey, entry);
+    }
+    Entry started = entry;
+    watch(started, closeHandler);
+    importer.get().setHandler(ar -> complete(storeKey, started, ar, future));
+    return future;
+  }
+
+  private void watch(Entry entry, Consumer<Runnable> closeHandler) {
+    if (closeHandler != null) {
+      closeHandler.accept(() -> detach(entry));
+    }
+  }
+
+  /**
+   * Detach a disconnected request from its import, the import is abandoned when no request waits for it anymore.
+   */
+  private void detach(Entry entry) {
+    Runnable abandonHandler;
+    synchronized (this) {
+      if (entry.done || entry.callers <= 0 || --entry.callers > 0) {
+        return;
+      }
+      abandonHandler = entry.abandonHandler;
+      if (entries.get(entry.storeKey) == entry) {
+        entries.remove(entry.storeKey);
+      }
+    }
+    if (abandonHandler != null) {
+      abandonHandler.run();
+    }
+  }
+
+  private void complete(String storeKey, Entry entry, AsyncResult<ImportResponse> outcome, Future<ImportResponse> future) {
+    List<Future<ImportResponse>> waiters;
+    synchronized (this) {
+      boolean cacheable = outcome.succeeded() && outcome.result() != null && outcome.result().getError() == null;
+      if (cacheable && entries.get(storeKey) == entry) {
+        entry.outcome = outcome;
+        entry.completedAt = System.currentTimeMillis();
+      } else if (entries.get(storeKey) == entry) {
+        entries.remove(storeKey);
+      }
+      entry.done = true;
+      waiters = new ArrayList<>(entry.waiters);
+      entry.waiters.clear();
+    }
+    future.handle(outcome);
+    waiters.forEach(waiter -> waiter.handle(outcome));
+  }
+
+  private synchronized long size() {
+    return entries.size();
+  }
+
+  private class Entry {
+    private final String storeKey;
+    private final String fingerprint;
+    private final List<Future<ImportResponse>> waiters = new ArrayList<>();
+    private AsyncResult<ImportResponse> outcome;
+    private long completedAt;
+    private Runnable abandonHandler;
+    private int callers;
+    private boolean done;
+
+    Entry(String storeKey, String fingerprint) {
+      this.storeKey = storeKey;
+      this.fingerprint = fingerprint;
+    }
+
+    boolean isExpired(long now) {
+      return outcome != null && now - completedAt > ttlMs;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package org.folio.rest.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Module wide counters and gauges of the user import.
+ */
+public class ImportMetrics {
+
+  public static final String COUNTER = "counter";
+  public static final String GAUGE = "gauge";
+
+  private static final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+  private static final Map<String, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+
+  private ImportMetrics() {
+  }
+
+  public static void increment(String name) {
+    add(name, 1);
+  }
+
+  public static void add(String name, long delta) {
+    counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(delta);
+  }
+
+  public static long getCounter(String name) {
+    AtomicLong counter = counters.get(name);
+    return counter == null ? 0 : counter.get();
+  }
+
+  public static void registerGauge(String name, Supplier<Number> gauge) {
+    gauges.put(name, gauge);
+  }
+
+  /**
+   * Get the current value of all counters.
+   * @return the counter values ordered by name
+   */
+  public static Map<String, Number> getCounters() {
+    Map<String, Number> result = new TreeMap<>();
+    counters.forEach((name, value) -> result.put(name, value.get()));
+    return result;
+  }
+
+  /**
+   * Get the current value of all gauges.
+   * @return the gauge values ordered by name
+   */
+  public static Map<String, Number> getGauges() {
+    Map<String, Number> result = new TreeMap<>();
+    gauges.forEach((name, gauge) -> result.put(name, gauge.get()));
+    return result;
+  }
+
+  /**
+   * Create a metric name for a tenant, e.g. scheduler.queued.diku
+   */
+  public static String tenantMetric(String name, String tenant) {
+    return name + "." + tenant;
+  }
+}
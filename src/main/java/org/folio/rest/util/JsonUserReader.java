@@ -0,0 +1,193 @@
+package org.folio.rest.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.jaxrs.model.UserdataimportCollection;
+import org.folio.rest.jaxrs.model.UserdataimportCollection.ReferenceDataPolicy;
+import org.folio.rest.model.ImportFormatException;
+import org.folio.rest.model.InvalidUser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+
+import io.vertx.core.json.Json;
+
+/**
+ * Reads the users of an import request body one partition at a time, without parsing the whole body first.
+ *
+ * The body has the format of the POST /user-import request. The options (sourceType, deactivateMissingUsers,
+ * updateOnlyPresentFields, referenceDataPolicy, defaultPatronGroup, defaultAddressType, timeoutMs) are read when the
+ * reader is created, so they have to precede the users array. A set option after the users array is reported as an
+ * error, as the import was already started without it. Unset options (false, null or empty) may follow the users.
+ */
+public class JsonUserReader implements UserSource {
+
+  private static final String USERS = "users";
+  private static final String SOURCE_TYPE = "sourceType";
+  private static final String DEACTIVATE_MISSING_USERS = "deactivateMissingUsers";
+  private static final String UPDATE_ONLY_PRESENT_FIELDS = "updateOnlyPresentFields";
+  private static final String REFERENCE_DATA_POLICY = "referenceDataPolicy";
+  private static final String DEFAULT_PATRON_GROUP = "defaultPatronGroup";
+  private static final String DEFAULT_ADDRESS_TYPE = "defaultAddressType";
+  private static final String TIMEOUT_MS = "timeoutMs";
+  private static final Set<String> OPTIONS = new HashSet<>(Arrays.asList(SOURCE_TYPE, DEACTIVATE_MISSING_USERS,
+    UPDATE_ONLY_PRESENT_FIELDS, REFERENCE_DATA_POLICY, DEFAULT_PATRON_GROUP, DEFAULT_ADDRESS_TYPE, TIMEOUT_MS));
+
+  private final ObjectMapper mapper;
+  private final JsonParser parser;
+  private final UserdataimportCollection options = new UserdataimportCollection();
+  private boolean inUsers;
+  private boolean endOfInput;
+  private int index;
+
+  /**
+   * Create the reader and read the options preceding the users.
+   * @param body the request body
+   * @throws ImportFormatException if the body is not a JSON object
+   */
+  public JsonUserReader(InputStream body) throws IOException {
+    this.mapper = Json.mapper;
+    this.parser = mapper.getFactory().createParser(body);
+    try {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new ImportFormatException("The body should be a JSON object.");
+      }
+      readFields(false);
+    } catch (JsonProcessingException e) {
+      throw new ImportFormatException("Invalid JSON: " + e.getOriginalMessage());
+    }
+  }
+
+  /**
+   * The options of the import given before the users.
+   */
+  public UserdataimportCollection getOptions() {
+    return options;
+  }
+
+  @Override
+  public List<User> nextPartition(int size) throws IOException {
+    List<User> users = new ArrayList<>(size);
+    try {
+      while (inUsers && users.size() < size) {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+          inUsers = false;
+          readFields(true);
+        } else if (token == JsonToken.START_OBJECT) {
+          users.add(readUser());
+        } else {
+          throw new ImportFormatException("User " + index + " should be a JSON object.");
+        }
+      }
+    } catch (JsonProcessingException e) {
+      throw new ImportFormatException("Invalid JSON: " + e.getOriginalMessage());
+    }
+    return users;
+  }
+
+  /**
+   * Read the next user. A user that is valid JSON but does not fit the user schema is returned as {@link InvalidUser},
+   * so it is reported as failed record and the import goes on.
+   */
+  private User readUser() throws IOException {
+    JsonNode node = mapper.readTree(parser);
+    try {
+      return mapper.treeToValue(node, User.class);
+    } catch (JsonProcessingException e) {
+      return new InvalidUser(node.path("externalSystemId").asText(null), node.path("username").asText(null),
+        "Failed to map user " + index + " to a user: " + e.getOriginalMessage());
+    } finally {
+      index++;
+    }
+  }
+
+  /**
+   * Read the fields of the import object until the users array or the end of the object.
+   * @param afterUsers whether the users were already read
+   */
+  private void readFields(boolean afterUsers) throws IOException {
+    while (!endOfInput) {
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.END_OBJECT || token == null) {
+        endOfInput = true;
+        return;
+      }
+      String field = parser.getCurrentName();
+      token = parser.nextToken();
+      if (USERS.equals(field)) {
+        if (afterUsers || token != JsonToken.START_ARRAY) {
+          throw new ImportFormatException("The users should be given once, as a JSON array.");
+        }
+        inUsers = true;
+        return;
+      } else if (OPTIONS.contains(field)) {
+        readOption(field, afterUsers);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void readOption(String field, boolean afterUsers) throws IOException {
+    Object value;
+    Object current;
+    if (DEACTIVATE_MISSING_USERS.equals(field)) {
+      value = parser.getValueAsBoolean() ? Boolean.TRUE : null;
+      current = options.getDeactivateMissingUsers();
+    } else if (UPDATE_ONLY_PRESENT_FIELDS.equals(field)) {
+      value = parser.getValueAsBoolean() ? Boolean.TRUE : null;
+      current = options.getUpdateOnlyPresentFields();
+    } else if (REFERENCE_DATA_POLICY.equals(field)) {
+      value = readPolicy();
+      current = options.getReferenceDataPolicy();
+    } else if (TIMEOUT_MS.equals(field)) {
+      int timeoutMs = parser.getValueAsInt();
+      value = timeoutMs > 0 ? timeoutMs : null;
+      current = options.getTimeoutMs();
+    } else {
+      value = Strings.emptyToNull(parser.getValueAsString());
+      current = SOURCE_TYPE.equals(field) ? options.getSourceType()
+        : DEFAULT_PATRON_GROUP.equals(field) ? options.getDefaultPatronGroup() : options.getDefaultAddressType();
+    }
+    if (afterUsers) {
+      if (value != null && !value.equals(current)) {
+        throw new ImportFormatException("The option " + field + " should precede the users or be given as query parameter.");
+      }
+    } else if (SOURCE_TYPE.equals(field)) {
+      options.setSourceType((String) value);
+    } else if (DEACTIVATE_MISSING_USERS.equals(field)) {
+      options.setDeactivateMissingUsers((Boolean) value);
+    } else if (UPDATE_ONLY_PRESENT_FIELDS.equals(field)) {
+      options.setUpdateOnlyPresentFields((Boolean) value);
+    } else if (REFERENCE_DATA_POLICY.equals(field)) {
+      options.setReferenceDataPolicy((ReferenceDataPolicy) value);
+    } else if (TIMEOUT_MS.equals(field)) {
+      options.setTimeoutMs((Integer) value);
+    } else if (DEFAULT_PATRON_GROUP.equals(field)) {
+      options.setDefaultPatronGroup((String) value);
+    } else {
+      options.setDefaultAddressType((String) value);
+    }
+  }
+
+  private ReferenceDataPolicy readPolicy() throws IOException {
+    String value = Strings.emptyToNull(parser.getValueAsString());
+    try {
+      return value == null ? null : ReferenceDataResolver.parsePolicy(value);
+    } catch (IllegalArgumentException e) {
+      throw new ImportFormatException(e.getMessage());
+    }
+  }
+}
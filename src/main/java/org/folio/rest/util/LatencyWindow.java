@@ -0,0 +1,49 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+
+import java.util.Arrays;
+
+/**
+ * The most recent latencies of an operation, reported as percentile gauges.
+ */
+public class LatencyWindow {
+
+  private final long[] latencies;
+  private int samples;
+
+  public LatencyWindow(int size) {
+    this.latencies = new long[size];
+  }
+
+  /**
+   * Create a window and register its 50th, 95th and 99th percentile as the gauges name.p50Ms, name.p95Ms and
+   * name.p99Ms, e.g. upsert.latency.p99Ms
+   */
+  public static LatencyWindow register(String name, int size) {
+    LatencyWindow window = new LatencyWindow(size);
+    registerGauge(name + ".p50Ms", () -> window.getPercentile(50));
+    registerGauge(name + ".p95Ms", () -> window.getPercentile(95));
+    registerGauge(name + ".p99Ms", () -> window.getPercentile(99));
+    return window;
+  }
+
+  public synchronized void record(long latencyMs) {
+    latencies[samples % latencies.length] = latencyMs;
+    samples++;
+  }
+
+  /**
+   * Get a percentile of the latencies in the window.
+   * @param percent between 0 (exclusive) and 100
+   * @return the percentile in milliseconds, -1 if nothing was recorded yet
+   */
+  public synchronized long getPercentile(double percent) {
+    if (samples == 0) {
+      return -1;
+    }
+    long[] window = Arrays.copyOf(latencies, Math.min(samples, latencies.length));
+    Arrays.sort(window);
+    return window[Math.max(0, (int) Math.ceil(window.length * percent / 100) - 1)];
+  }
+}
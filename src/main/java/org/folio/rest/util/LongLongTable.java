@@ -0,0 +1,85 @@
+package org.folio.rest.util;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Open addressing hash table from long to long with linear probing. Keys are hashes already, so they are used as they
+ * are. The key 0 is stored separately. Not thread safe.
+ */
+class LongLongTable {
+  static final long MISSING = Long.MIN_VALUE;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private long[] keys = new long[1024];
+  private long[] values = new long[1024];
+  private int size;
+  private boolean hasZero;
+  private long zeroValue;
+
+  /**
+   * The 64 bit hash of a string, never {@link #MISSING}, to be used as key or value of the table.
+   */
+  static long hash(String value) {
+    long hash = HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).asLong();
+    return hash == MISSING ? hash + 1 : hash;
+  }
+
+  long get(long key) {
+    if (key == 0) {
+      return hasZero ? zeroValue : MISSING;
+    }
+    int mask = keys.length - 1;
+    for (int i = (int) (key ^ (key >>> 32)) & mask; keys[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+    }
+    return MISSING;
+  }
+
+  void put(long key, long value) {
+    if (key == 0) {
+      hasZero = true;
+      zeroValue = value;
+      return;
+    }
+    if ((size + 1) * 2 > keys.length) {
+      grow();
+    }
+    if (insert(keys, values, key, value)) {
+      size++;
+    }
+  }
+
+  int size() {
+    return hasZero ? size + 1 : size;
+  }
+
+  private static boolean insert(long[] keys, long[] values, long key, long value) {
+    int mask = keys.length - 1;
+    int i = (int) (key ^ (key >>> 32)) & mask;
+    while (keys[i] != 0 && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    boolean added = keys[i] == 0;
+    keys[i] = key;
+    values[i] = value;
+    return added;
+  }
+
+  private void grow() {
+    long[] newKeys = new long[keys.length * 2];
+    long[] newValues = new long[values.length * 2];
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        insert(newKeys, newValues, keys[i], values[i]);
+      }
+    }
+    keys = newKeys;
+    values = newValues;
+  }
+}
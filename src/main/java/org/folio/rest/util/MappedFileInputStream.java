@@ -0,0 +1,77 @@
+package org.folio.rest.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Reads a file through read-only memory mapped windows of its channel.
+ *
+ * Only one window is mapped at a time, so files larger than the address space of a single mapping can be read and
+ * the pages of finished windows can be dropped by the operating system. The stream does not close the channel.
+ */
+public class MappedFileInputStream extends InputStream {
+
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long size;
+  private final int windowSize;
+  private MappedByteBuffer window;
+  private long windowEnd;
+
+  public MappedFileInputStream(FileChannel channel) throws IOException {
+    this(channel, DEFAULT_WINDOW_SIZE);
+  }
+
+  MappedFileInputStream(FileChannel channel, int windowSize) throws IOException {
+    this.channel = channel;
+    this.size = channel.size();
+    this.windowSize = windowSize;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!ensureRemaining()) {
+      return -1;
+    }
+    return window.get() & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!ensureRemaining()) {
+      return -1;
+    }
+    int count = Math.min(len, window.remaining());
+    window.get(b, off, count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return window == null ? 0 : window.remaining();
+  }
+
+  /**
+   * Map the next window when the current one is consumed.
+   * @return false at the end of the file
+   */
+  private boolean ensureRemaining() throws IOException {
+    if (window != null && window.hasRemaining()) {
+      return true;
+    }
+    if (windowEnd >= size) {
+      return false;
+    }
+    long length = Math.min(windowSize, size - windowEnd);
+    window = channel.map(MapMode.READ_ONLY, windowEnd, length);
+    windowEnd += length;
+    return true;
+  }
+}
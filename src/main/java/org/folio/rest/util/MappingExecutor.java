@@ -0,0 +1,133 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Runs the CPU heavy mapping and merging of users off the event loop.
+ *
+ * Modes:
+ * - worker: a dedicated, bounded Vert.x worker pool (default)
+ * - virtual: a virtual thread per task on JDKs that support them, otherwise a thread pool with a bounded queue, tasks
+ *   over the queue limit fail with a RejectedExecutionException
+ * - eventloop: inline on the calling event loop
+ */
+public class MappingExecutor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappingExecutor.class);
+
+  public static final String MODE_WORKER = "worker";
+  public static final String MODE_VIRTUAL = "virtual";
+  public static final String MODE_EVENT_LOOP = "eventloop";
+
+  private static final String WORKER_POOL_NAME = "user-import-mapping";
+  private static final String VIRTUAL_THREAD_FACTORY = "newVirtualThreadPerTaskExecutor";
+  static final int MAX_QUEUED_TASKS = 1000;
+
+  private static final Map<Vertx, MappingExecutor> instances = new WeakHashMap<>();
+
+  private final WorkerExecutor workerExecutor;
+  private final ExecutorService executorService;
+
+  MappingExecutor(WorkerExecutor workerExecutor, ExecutorService executorService) {
+    this.workerExecutor = workerExecutor;
+    this.executorService = executorService;
+  }
+
+  /**
+   * Get the mapping executor of the Vert.x instance, created from the configuration of the given context on first use.
+   */
+  public static synchronized MappingExecutor getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> {
+      String mode = ConfigurationUtil.getString(context, CONFIG_MAPPING_EXECUTOR, MODE_WORKER);
+      int poolSize = ConfigurationUtil.getPositiveInt(context, CONFIG_MAPPING_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+      EventLoopMonitor.start(vertx, ConfigurationUtil.getLong(context, CONFIG_EVENT_LOOP_MONITOR_INTERVAL_MS, DEFAULT_EVENT_LOOP_MONITOR_INTERVAL_MS));
+      LOGGER.info("Mapping users with executor: " + mode);
+      if (MODE_EVENT_LOOP.equalsIgnoreCase(mode)) {
+        return new MappingExecutor(null, null);
+      } else if (MODE_VIRTUAL.equalsIgnoreCase(mode)) {
+        return new MappingExecutor(null, createVirtualThreadExecutor(VIRTUAL_THREAD_FACTORY, poolSize));
+      }
+      return new MappingExecutor(vertx.createSharedWorkerExecutor(WORKER_POOL_NAME, Math.max(1, poolSize)), null);
+    });
+  }
+
+  /*
+   * Virtual threads are available from Java 21, the module is compiled for Java 8 so they are looked up by reflection.
+   */
+  static ExecutorService createVirtualThreadExecutor(String factoryMethod, int poolSize) {
+    try {
+      return (ExecutorService) Executors.class.getMethod(factoryMethod).invoke(null);
+    } catch (ReflectiveOperationException e) {
+      LOGGER.warn("Virtual threads are not supported by the JVM, using a thread pool of size " + poolSize);
+      return createThreadPool(poolSize, MAX_QUEUED_TASKS);
+    }
+  }
+
+  /**
+   * Create a thread pool whose queue holds at most the given number of tasks, further tasks are rejected.
+   */
+  static ExecutorService createThreadPool(int poolSize, int maxQueuedTasks) {
+    int threads = Math.max(1, poolSize);
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(maxQueuedTasks));
+  }
+
+  /**
+   * Execute a mapping task. The result is handled on the context of the caller.
+   * @param task the mapping task
+   * @return the result of the task
+   */
+  public <T> Future<T> execute(Callable<T> task) {
+    Future<T> future = Future.future();
+    if (workerExecutor != null) {
+      workerExecutor.<T>executeBlocking(blockingFuture -> call(task, blockingFuture), false, future.completer());
+    } else if (executorService != null) {
+      Context context = Vertx.currentContext();
+      try {
+        executorService.execute(() -> {
+          Future<T> result = Future.future();
+          call(task, result);
+          if (context == null) {
+            future.handle(result);
+          } else {
+            context.runOnContext(v -> future.handle(result));
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        future.fail(e);
+      }
+    } else {
+      call(task, future);
+    }
+    return future;
+  }
+
+  private static <T> void call(Callable<T> task, Future<T> future) {
+    long start = System.nanoTime();
+    try {
+      future.complete(task.call());
+    } catch (Exception e) {
+      future.fail(e);
+    } finally {
+      increment("mapping.tasks");
+      add("mapping.timeMs", (System.nanoTime() - start) / 1000000);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BiFunction;
+
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+/**
+ * The patron groups and address types of the tenants, kept for the configured time so the imports of a tenant do not
+ * list them every time. The entries are per tenant and Okapi URL. The cache is filled by the imports, the single user
+ * imports and the {@link WarmUp}, without a time to live every import lists the reference data. Single user imports
+ * use the entries up to their own maximum age, so they also use the reference data listed by the imports.
+ */
+public class ReferenceDataCache {
+
+  private static final Map<Vertx, ReferenceDataCache> instances = new WeakHashMap<>();
+
+  private static final String PATRON_GROUPS = "groups";
+  private static final String ADDRESS_TYPES = "addresstypes";
+
+  private final long ttlMs;
+  private final Map<String, Entry> entries = new HashMap<>();
+
+  ReferenceDataCache(long ttlMs) {
+    this.ttlMs = ttlMs;
+  }
+
+  /**
+   * Get the module wide cache of the Vert.x instance, created from the configuration of the given context on first use.
+   */
+  public static synchronized ReferenceDataCache getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> new ReferenceDataCache(
+      ConfigurationUtil.getLong(context, CONFIG_REFERENCE_DATA_CACHE_TTL_MS, DEFAULT_REFERENCE_DATA_CACHE_TTL_MS)));
+  }
+
+  /**
+   * Get the patron groups of a tenant by name, from the cache or listed with the given client.
+   */
+  public Future<Map<String, String>> getPatronGroups(HttpClientInterface httpClient, Map<String, String> okapiHeaders) {
+    return getPatronGroups(httpClient, okapiHeaders, ttlMs);
+  }
+
+  /**
+   * Get the patron groups of a tenant by name, from the cache if they are not older than the given age.
+   * @param maxAgeMs the maximum age of cached patron groups, 0 to list them
+   */
+  public Future<Map<String, String>> getPatronGroups(HttpClientInterface httpClient, Map<String, String> okapiHeaders, long maxAgeMs) {
+    return get(PATRON_GROUPS, httpClient, okapiHeaders, maxAgeMs, PatronGroupManager::getPatronGroups);
+  }
+
+  /**
+   * Get the address types of a tenant by name, from the cache or listed with the given client.
+   */
+  public Future<Map<String, String>> getAddressTypes(HttpClientInterface httpClient, Map<String, String> okapiHeaders) {
+    return getAddressTypes(httpClient, okapiHeaders, ttlMs);
+  }
+
+  /**
+   * Get the address types of a tenant by name, from the cache if they are not older than the given age.
+   * @param maxAgeMs the maximum age of cached address types, 0 to list them
+   */
+  public Future<Map<String, String>> getAddressTypes(HttpClientInterface httpClient, Map<String, String> okapiHeaders, long maxAgeMs) {
+    return get(ADDRESS_TYPES, httpClient, okapiHeaders, maxAgeMs, AddressTypeManager::getAddressTypes);
+  }
+
+  public boolean isEnabled() {
+    return ttlMs > 0;
+  }
+
+  private Future<Map<String, String>> get(String type, HttpClientInterface httpClient, Map<String, String> okapiHeaders,
+    long maxAgeMs, BiFunction<HttpClientInterface, Map<String, String>, Future<Map<String, String>>> lister) {
+    String key = type + ":" + okapiHeaders.get(OKAPI_TENANT_HEADER) + ":" + HttpClientUtil.getOkapiUrl(okapiHeaders);
+    if (maxAgeMs > 0) {
+      Map<String, String> cached = getCached(key, System.currentTimeMillis(), maxAgeMs);
+      if (cached != null) {
+        increment("referenceData.cacheHits");
+        return Future.succeededFuture(cached);
+      }
+      increment("referenceData.cacheMisses");
+    }
+    Future<Map<String, String>> future = Future.future();
+    lister.apply(httpClient, okapiHeaders).setHandler(listing -> {
+      if (listing.succeeded()) {
+        put(key, Collections.unmodifiableMap(listing.result()));
+      }
+      future.handle(listing);
+    });
+    return future;
+  }
+
+  private synchronized Map<String, String> getCached(String key, long now, long maxAgeMs) {
+    Entry entry = entries.get(key);
+    if (entry == null || now - entry.loaded >= maxAgeMs) {
+      return null;
+    }
+    return entry.values;
+  }
+
+  private synchronized void put(String key, Map<String, String> values) {
+    entries.put(key, new Entry(values, System.currentTimeMillis()));
+  }
+
+  private static class Entry {
+
+    private final Map<String, String> values;
+    private final long loaded;
+
+    Entry(Map<String, String> values, long loaded) {
+      this.values = values;
+      this.loaded = loaded;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.folio.rest.jaxrs.model.Address;
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.jaxrs.model.UserdataimportCollection.ReferenceDataPolicy;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Applies the reference data policy of an import to the patron groups and address types of its users.
+ *
+ * The lookup tables are the patron groups and address types listed once at the start of the import. A patronGroup or
+ * addressTypeId that does not match one of them is dropped, fails the user or is replaced by the default, depending on
+ * the policy. Every unknown value is counted per outcome, e.g. referenceData.patronGroup.defaulted.
+ */
+public class ReferenceDataResolver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataResolver.class);
+
+  private static final String PATRON_GROUP_METRIC = "referenceData.patronGroup.";
+  private static final String ADDRESS_TYPE_METRIC = "referenceData.addressType.";
+
+  private final Map<String, String> patronGroups;
+  private final Map<String, String> addressTypes;
+  private final ReferenceDataPolicy policy;
+  private final String defaultPatronGroup;
+  private final String defaultAddressType;
+
+  /**
+   * @param patronGroups the ids of the patron groups by name
+   * @param addressTypes the ids of the address types by name
+   * @param policy the policy for unknown values
+   * @param defaultPatronGroup the name of the default patron group, ignored if it does not exist
+   * @param defaultAddressType the name of the default address type, ignored if it does not exist
+   */
+  public ReferenceDataResolver(Map<String, String> patronGroups, Map<String, String> addressTypes, ReferenceDataPolicy policy,
+    String defaultPatronGroup, String defaultAddressType) {
+    this.patronGroups = patronGroups;
+    this.addressTypes = addressTypes;
+    this.policy = policy;
+    this.defaultPatronGroup = existingOrNull(patronGroups, defaultPatronGroup, "patron group");
+    this.defaultAddressType = existingOrNull(addressTypes, defaultAddressType, "address type");
+  }
+
+  private static String existingOrNull(Map<String, String> names, String name, String kind) {
+    if (name == null || names.containsKey(name)) {
+      return name;
+    }
+    LOGGER.warn("The default " + kind + " " + name + " does not exist, it is not used.");
+    return null;
+  }
+
+  /**
+   * Parse a policy given as query parameter or configuration.
+   * @throws IllegalArgumentException if the value is not drop, fail or default
+   */
+  public static ReferenceDataPolicy parsePolicy(String value) {
+    try {
+      return ReferenceDataPolicy.fromValue(value);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(INVALID_REFERENCE_DATA_POLICY + value, e);
+    }
+  }
+
+  /**
+   * Apply the policy to the unknown patron group and address types of a user. Dropped values are removed from the
+   * user, defaulted values are replaced by the name of the default.
+   * @return the reason why the user fails, null if it can be imported
+   */
+  public String apply(User user) {
+    String error = applyToPatronGroup(user);
+    if (error != null || user.getPersonal() == null || user.getPersonal().getAddresses() == null) {
+      return error;
+    }
+    return applyToAddresses(user);
+  }
+
+  private String applyToPatronGroup(User user) {
+    String patronGroup = user.getPatronGroup();
+    if (patronGroup == null || patronGroups.containsKey(patronGroup)) {
+      return null;
+    }
+    switch (policy) {
+    case DROP:
+      ImportMetrics.increment(PATRON_GROUP_METRIC + "dropped");
+      user.setPatronGroup(null);
+      return null;
+    case DEFAULT:
+      if (defaultPatronGroup == null) {
+        ImportMetrics.increment(PATRON_GROUP_METRIC + "failed");
+        return NO_DEFAULT_PATRON_GROUP + patronGroup;
+      }
+      ImportMetrics.increment(PATRON_GROUP_METRIC + "defaulted");
+      user.setPatronGroup(defaultPatronGroup);
+      return null;
+    default:
+      ImportMetrics.increment(PATRON_GROUP_METRIC + "failed");
+      return UNKNOWN_PATRON_GROUP + patronGroup;
+    }
+  }
+
+  private String applyToAddresses(User user) {
+    List<Address> addresses = user.getPersonal().getAddresses();
+    List<Address> resolved = new ArrayList<>(addresses.size());
+    Set<String> usedTypes = new HashSet<>();
+    List<Address> unknown = new ArrayList<>();
+    for (Address address : addresses) {
+      if (address.getAddressTypeId() == null || addressTypes.containsKey(address.getAddressTypeId())) {
+        usedTypes.add(address.getAddressTypeId());
+        resolved.add(address);
+      } else {
+        unknown.add(address);
+      }
+    }
+    if (unknown.isEmpty()) {
+      return null;
+    }
+    for (Address address : unknown) {
+      String addressType = address.getAddressTypeId();
+      switch (policy) {
+      case DROP:
+        ImportMetrics.increment(ADDRESS_TYPE_METRIC + "dropped");
+        break;
+      case DEFAULT:
+        if (defaultAddressType == null) {
+          ImportMetrics.increment(ADDRESS_TYPE_METRIC + "failed");
+          return NO_DEFAULT_ADDRESS_TYPE + addressType;
+        }
+        if (!usedTypes.add(defaultAddressType)) {
+          ImportMetrics.increment(ADDRESS_TYPE_METRIC + "failed");
+          return DEFAULT_ADDRESS_TYPE_IN_USE + addressType;
+        }
+        ImportMetrics.increment(ADDRESS_TYPE_METRIC + "defaulted");
+        address.setAddressTypeId(defaultAddressType);
+        resolved.add(address);
+        break;
+      default:
+        ImportMetrics.increment(ADDRESS_TYPE_METRIC + "failed");
+        return UNKNOWN_ADDRESS_TYPE + addressType;
+      }
+    }
+    user.getPersonal().setAddresses(resolved);
+    return null;
+  }
+}
@@ -0,0 +1,146 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.folio.rest.tools.client.Response;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+/**
+ * Sends a second copy of a slow read request to another module, the first response is used.
+ *
+ * The delay before the copy is sent is the 95th percentile of the recent response times of read requests, but at
+ * least the configured minimum, so only about one request in twenty is hedged. Every read request earns a fraction of
+ * a hedge, the budget, and a copy is only sent while a whole hedge is earned, so a slow module is not flooded with
+ * copies. Only idempotent requests may be hedged.
+ */
+public class RequestHedger {
+
+  private static final Map<Vertx, RequestHedger> instances = new WeakHashMap<>();
+
+  private static final int WINDOW = 1000;
+  private static final int MIN_SAMPLES = 20;
+  private static final int RECOMPUTE_EVERY = 50;
+  private static final double MAX_TOKENS = 10;
+
+  private final Vertx vertx;
+  private final long minDelayMs;
+  private final double budget;
+  private final LatencyWindow latencies = new LatencyWindow(WINDOW);
+  private int samples;
+  private long delayMs;
+  private double tokens;
+
+  RequestHedger(Vertx vertx, long minDelayMs, int budgetPercent) {
+    this.vertx = vertx;
+    this.minDelayMs = minDelayMs;
+    this.budget = budgetPercent / 100.0;
+    this.delayMs = -1;
+    registerGauge("hedging.delayMs", this::getDelayMs);
+  }
+
+  /**
+   * Get the module wide hedger of the Vert.x instance, created from the configuration of the given context on first use.
+   * @return the hedger, null if hedging is disabled
+   */
+  public static synchronized RequestHedger getInstance(Context context) {
+    if (!ConfigurationUtil.getBoolean(context, CONFIG_HEDGING_ENABLED, false)) {
+      return null;
+    }
+    return instances.computeIfAbsent(context.owner(), vertx -> new RequestHedger(vertx,
+      ConfigurationUtil.getLong(context, CONFIG_HEDGING_MIN_DELAY_MS, DEFAULT_HEDGING_MIN_DELAY_MS),
+      ConfigurationUtil.getInt(context, CONFIG_HEDGING_BUDGET_PERCENT, DEFAULT_HEDGING_BUDGET_PERCENT)));
+  }
+
+  /**
+   * Send a read request, and a copy of it if there is no response after the hedging delay.
+   * @param request sends the request, called a second time for the copy
+   * @return the first response, failed only if all sent requests failed
+   */
+  public CompletableFuture<Response> execute(AdaptiveConcurrencyLimiter.Request request) {
+    CompletableFuture<Response> result = new CompletableFuture<>();
+    long delay = earnAndGetDelay();
+    AtomicInteger running = new AtomicInteger(1);
+    AtomicBoolean hedged = new AtomicBoolean();
+    long start = System.nanoTime();
+    long timerId = delay < 0 ? -1 : vertx.setTimer(Math.max(1, delay), id -> {
+      if (result.isDone() || !takeHedge()) {
+        return;
+      }
+      increment("hedging.sent");
+      hedged.set(true);
+      running.incrementAndGet();
+      send(request).whenComplete((res, ex) -> {
+        if (ex == null && result.complete(res)) {
+          increment("hedging.won");
+        }
+        completeIfLast(result, running, ex);
+      });
+    });
+    send(request).whenComplete((res, ex) -> {
+      if (timerId >= 0 && !hedged.get()) {
+        vertx.cancelTimer(timerId);
+      }
+      if (ex == null) {
+        record((System.nanoTime() - start) / 1000000L);
+        result.complete(res);
+      }
+      completeIfLast(result, running, ex);
+    });
+    return result;
+  }
+
+  private static CompletableFuture<Response> send(AdaptiveConcurrencyLimiter.Request request) {
+    try {
+      return request.send();
+    } catch (Exception e) {
+      CompletableFuture<Response> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+  }
+
+  private static void completeIfLast(CompletableFuture<Response> result, AtomicInteger running, Throwable ex) {
+    if (running.decrementAndGet() == 0 && ex != null) {
+      result.completeExceptionally(ex);
+    }
+  }
+
+  /**
+   * Earn the budget of a request.
+   * @return the hedging delay in milliseconds, -1 while there are too few samples to know it
+   */
+  private synchronized long earnAndGetDelay() {
+    tokens = Math.min(MAX_TOKENS, tokens + budget);
+    return delayMs;
+  }
+
+  private synchronized boolean takeHedge() {
+    if (tokens < 1) {
+      increment("hedging.skipped");
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  synchronized void record(long latencyMs) {
+    latencies.record(latencyMs);
+    samples++;
+    if (samples >= MIN_SAMPLES && (delayMs < 0 || samples % RECOMPUTE_EVERY == 0)) {
+      delayMs = Math.max(minDelayMs, latencies.getPercentile(95));
+    }
+  }
+
+  synchronized long getDelayMs() {
+    return delayMs;
+  }
+}
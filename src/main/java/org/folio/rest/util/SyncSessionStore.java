@@ -0,0 +1,197 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.jaxrs.model.SyncSession;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+/**
+ * The open sync sessions of the module.
+ *
+ * A session collects the externalSystemIds of the users of its chunks in an {@link ExternalSystemIdSet} and sums up
+ * their responses, so the users missing from all chunks can be deactivated on commit. Sessions that are not used for
+ * the configured time expire, they are removed when the sessions are accessed.
+ */
+public class SyncSessionStore {
+
+  private static final Map<Vertx, SyncSessionStore> instances = new WeakHashMap<>();
+
+  private final long ttlMs;
+  private final Map<String, Session> sessions = new HashMap<>();
+
+  SyncSessionStore(long ttlMs) {
+    this.ttlMs = ttlMs;
+    registerGauge("syncSession.open", this::size);
+  }
+
+  /**
+   * Get the module wide store of the Vert.x instance, created from the configuration of the given context on first use.
+   */
+  public static synchronized SyncSessionStore getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> new SyncSessionStore(
+      ConfigurationUtil.getLong(context, CONFIG_SYNC_SESSION_TTL_MS, DEFAULT_SYNC_SESSION_TTL_MS)));
+  }
+
+  /**
+   * Open a session.
+   * @param tenant the tenant of the session, only imports of the tenant can use it
+   * @param sourceType the sourceType of the users of the session
+   */
+  public synchronized Session open(String tenant, String sourceType) {
+    removeExpired(System.currentTimeMillis());
+    Session session = new Session(UUID.randomUUID().toString(), tenant, sourceType);
+    sessions.put(session.id, session);
+    increment("syncSession.opened");
+    return session;
+  }
+
+  /**
+   * Get an open session of a tenant.
+   * @return the session, null if it does not exist, has expired or belongs to another tenant
+   */
+  public synchronized Session get(String tenant, String id) {
+    long now = System.currentTimeMillis();
+    removeExpired(now);
+    Session session = sessions.get(id);
+    if (session == null || !session.tenant.equals(tenant)) {
+      return null;
+    }
+    session.lastUsed = now;
+    return session;
+  }
+
+  /**
+   * Remove an open session of a tenant, to commit or abort it.
+   * @return the session, null if it does not exist, has expired or belongs to another tenant
+   */
+  public synchronized Session remove(String tenant, String id) {
+    Session session = get(tenant, id);
+    if (session != null) {
+      sessions.remove(id);
+    }
+    return session;
+  }
+
+  private void removeExpired(long now) {
+    sessions.values().removeIf(session -> {
+      boolean expired = session.chunksInFlight == 0 && now - session.lastUsed > ttlMs;
+      if (expired) {
+        increment("syncSession.expired");
+      }
+      return expired;
+    });
+  }
+
+  private synchronized long size() {
+    return sessions.size();
+  }
+
+  /**
+   * An open sync session. The chunks are started and finished on the event loop.
+   */
+  public static class Session {
+    private final String id;
+    private final String tenant;
+    private final String sourceType;
+    private final ExternalSystemIdSet seenExternalSystemIds = new ExternalSystemIdSet();
+    private int chunks;
+    private int chunksInFlight;
+    private int errors;
+    private int created;
+    private int updated;
+    private int failed;
+    private int total;
+    private long lastUsed = System.currentTimeMillis();
+
+    Session(String id, String tenant, String sourceType) {
+      this.id = id;
+      this.tenant = tenant;
+      this.sourceType = sourceType;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getSourceType() {
+      return sourceType;
+    }
+
+    public ExternalSystemIdSet getSeenExternalSystemIds() {
+      return seenExternalSystemIds;
+    }
+
+    public int getChunksInFlight() {
+      return chunksInFlight;
+    }
+
+    public void chunkStarted() {
+      chunksInFlight++;
+    }
+
+    /**
+     * Add the response of a chunk to the totals of the session.
+     * @param response the response of the chunk, null if the chunk was rejected and not imported
+     */
+    public void chunkFinished(ImportResponse response) {
+      chunksInFlight--;
+      lastUsed = System.currentTimeMillis();
+      if (response == null) {
+        return;
+      }
+      chunks++;
+      if (response.getError() != null) {
+        errors++;
+      }
+      created += valueOf(response.getCreatedRecords());
+      updated += valueOf(response.getUpdatedRecords());
+      failed += valueOf(response.getFailedRecords());
+      total += valueOf(response.getTotalRecords());
+    }
+
+    private static int valueOf(Integer value) {
+      return value == null ? 0 : value;
+    }
+
+    /**
+     * Whether all users of all chunks were imported, the users missing from the session are only deactivated then.
+     */
+    public boolean isComplete() {
+      return errors == 0 && failed == 0;
+    }
+
+    /**
+     * The totals of the chunks of the session.
+     */
+    public ImportResponse getResponse() {
+      return new ImportResponse()
+        .withCreatedRecords(created)
+        .withUpdatedRecords(updated)
+        .withFailedRecords(failed)
+        .withTotalRecords(total)
+        .withFailedUsers(new ArrayList<>());
+    }
+
+    public SyncSession toSyncSession() {
+      return new SyncSession()
+        .withId(id)
+        .withSourceType(sourceType)
+        .withChunks(chunks)
+        .withCreatedRecords(created)
+        .withUpdatedRecords(updated)
+        .withFailedRecords(failed)
+        .withTotalRecords(total)
+        .withSeenRecords(seenExternalSystemIds.size());
+    }
+  }
+}
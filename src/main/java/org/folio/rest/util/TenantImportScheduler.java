@@ -0,0 +1,209 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Schedules the partitions of all running imports with start-time fair queuing between tenants.
+ *
+ * Every tenant has its own queue. The next partition is taken from the tenant whose head partition has the smallest
+ * virtual start time, so tenants get their share of the module according to their weights no matter how many
+ * partitions they have queued. The number of partitions processed at the same time is capped globally and per tenant.
+ */
+public class TenantImportScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TenantImportScheduler.class);
+
+  private static final Map<Vertx, TenantImportScheduler> instances = new WeakHashMap<>();
+
+  private final int maxConcurrent;
+  private final int maxConcurrentPerTenant;
+  private final Map<String, Integer> weights;
+  private final Map<String, TenantQueue> tenantQueues = new HashMap<>();
+  private int running;
+  private double virtualTime;
+
+  TenantImportScheduler(int maxConcurrent, int maxConcurrentPerTenant, Map<String, Integer> weights) {
+    this.maxConcurrent = Math.max(1, maxConcurrent);
+    this.maxConcurrentPerTenant = Math.max(1, maxConcurrentPerTenant);
+    this.weights = weights;
+  }
+
+  /**
+   * Get the module wide scheduler of the Vert.x instance, created from the configuration of the given context on first use.
+   */
+  public static synchronized TenantImportScheduler getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> new TenantImportScheduler(
+      ConfigurationUtil.getPositiveInt(context, CONFIG_SCHEDULER_MAX_CONCURRENT, DEFAULT_SCHEDULER_MAX_CONCURRENT),
+      ConfigurationUtil.getPositiveInt(context, CONFIG_SCHEDULER_MAX_CONCURRENT_PER_TENANT, DEFAULT_SCHEDULER_MAX_CONCURRENT_PER_TENANT),
+      parseWeights(ConfigurationUtil.getString(context, CONFIG_SCHEDULER_TENANT_WEIGHTS, ""))));
+  }
+
+  /**
+   * Parse tenant weights in the format tenant1:2,tenant2:1
+   */
+  static Map<String, Integer> parseWeights(String weightConfig) {
+    Map<String, Integer> result = new HashMap<>();
+    if (Strings.isNullOrEmpty(weightConfig)) {
+      return result;
+    }
+    for (String entry : Splitter.on(',').trimResults().omitEmptyStrings().split(weightConfig)) {
+      int separator = entry.lastIndexOf(':');
+      if (separator <= 0) {
+        LOGGER.warn("Invalid tenant weight: " + entry);
+        continue;
+      }
+      try {
+        result.put(entry.substring(0, separator).trim(), Math.max(1, Integer.parseInt(entry.substring(separator + 1).trim())));
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid tenant weight: " + entry);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Queue a unit of work for a tenant.
+   * @param tenant the tenant the work belongs to
+   * @param cost the cost of the work, e.g. the number of users in the partition
+   * @param work starts the work when it is the turn of the tenant
+   * @return the result of the work
+   */
+  public <T> Future<T> submit(String tenant, int cost, Supplier<Future<T>> work) {
+    Future<T> result = Future.future();
+    Context context = Vertx.currentContext();
+    String tenantId = Strings.nullToEmpty(tenant);
+
+    synchronized (this) {
+      TenantQueue queue = tenantQueues.computeIfAbsent(tenantId, this::createTenantQueue);
+      double start = Math.max(virtualTime, queue.lastFinish);
+      queue.lastFinish = start + (double) Math.max(1, cost) / queue.weight;
+      queue.tasks.add(new Task<>(start, work, result, context));
+    }
+    dispatch();
+    return result;
+  }
+
+  private TenantQueue createTenantQueue(String tenant) {
+    TenantQueue queue = new TenantQueue(weights.getOrDefault(tenant, 1));
+    registerGauge(tenantMetric("scheduler.queued", tenant), () -> queuedCount(tenant));
+    registerGauge(tenantMetric("scheduler.running", tenant), () -> runningCount(tenant));
+    return queue;
+  }
+
+  private synchronized int queuedCount(String tenant) {
+    TenantQueue queue = tenantQueues.get(tenant);
+    return queue == null ? 0 : queue.tasks.size();
+  }
+
+  private synchronized int runningCount(String tenant) {
+    TenantQueue queue = tenantQueues.get(tenant);
+    return queue == null ? 0 : queue.running;
+  }
+
+  private void dispatch() {
+    while (true) {
+      Task<?> next = null;
+      String nextTenant = null;
+      synchronized (this) {
+        if (running >= maxConcurrent) {
+          return;
+        }
+        for (Map.Entry<String, TenantQueue> entry : tenantQueues.entrySet()) {
+          TenantQueue queue = entry.getValue();
+          Task<?> head = queue.tasks.peek();
+          if (head != null && queue.running < maxConcurrentPerTenant && (next == null || head.start < next.start)) {
+            next = head;
+            nextTenant = entry.getKey();
+          }
+        }
+        if (next == null) {
+          return;
+        }
+        TenantQueue queue = tenantQueues.get(nextTenant);
+        queue.tasks.poll();
+        queue.running++;
+        running++;
+        virtualTime = Math.max(virtualTime, next.start);
+      }
+      add(tenantMetric("scheduler.waitTimeMs", nextTenant), System.currentTimeMillis() - next.enqueuedAt);
+      start(nextTenant, next);
+    }
+  }
+
+  private <T> void start(String tenant, Task<T> task) {
+    if (task.context == null) {
+      run(tenant, task);
+    } else {
+      task.context.runOnContext(v -> run(tenant, task));
+    }
+  }
+
+  private <T> void run(String tenant, Task<T> task) {
+    Future<T> work;
+    try {
+      work = task.work.get();
+    } catch (Exception e) {
+      work = Future.failedFuture(e);
+    }
+    work.setHandler(ar -> {
+      finished(tenant);
+      task.result.handle(ar);
+    });
+  }
+
+  private void finished(String tenant) {
+    synchronized (this) {
+      TenantQueue queue = tenantQueues.get(tenant);
+      queue.running--;
+      running--;
+      if (queue.running == 0 && queue.tasks.isEmpty()) {
+        queue.lastFinish = 0;
+      }
+    }
+    increment(tenantMetric("scheduler.completed", tenant));
+    dispatch();
+  }
+
+  private static class TenantQueue {
+    private final int weight;
+    private final Queue<Task<?>> tasks = new ArrayDeque<>();
+    private int running;
+    private double lastFinish;
+
+    TenantQueue(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  private static class Task<T> {
+    private final double start;
+    private final Supplier<Future<T>> work;
+    private final Future<T> result;
+    private final Context context;
+    private final long enqueuedAt = System.currentTimeMillis();
+
+    Task(double start, Supplier<Future<T>> work, Future<T> result, Context context) {
+      this.start = start;
+      this.work = work;
+      this.result = result;
+      this.context = context;
+    }
+  }
+}
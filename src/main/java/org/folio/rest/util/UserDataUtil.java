@@ -4,9 +4,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.folio.rest.jaxrs.model.Address;
 import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.MappedPartition;
 import org.folio.rest.model.UserImportData;
 import org.folio.rest.model.UserMappingFailedException;
 
@@ -33,13 +36,20 @@ public class UserDataUtil {
   private UserDataUtil() {
   }
 
+  /**
+   * Map the users of a search result by their externalSystemId. The returned map is safe to be read from the mapping
+   * executor while the event loop removes the processed users.
+   */
   public static Map<String, User> extractExistingUsers(List<Map> existingUserList) throws UserMappingFailedException {
-    Map<String, User> existingUsers = new HashMap<>();
+    Map<String, User> existingUsers = new ConcurrentHashMap<>();
     for (Map existingUser : existingUserList) {
       JsonObject user = JsonObject.mapFrom(existingUser);
       try {
         User mappedUser = user.mapTo(User.class);
         LOGGER.trace("The external system id of the user is: " + mappedUser.getExternalSystemId());
+        if (mappedUser.getExternalSystemId() == null) {
+          continue;
+        }
         existingUsers.put(mappedUser.getExternalSystemId(), mappedUser);
       } catch (Exception ex) {
         LOGGER.error("Failed to map user ", user);
@@ -50,6 +60,33 @@ public class UserDataUtil {
     return existingUsers;
   }
 
+  /**
+   * Map the users of a partition and merge them with the existing users. The users to create get their ids here.
+   * @param usersToImport the users of the partition
+   * @param existingUsers the existing users by externalSystemId
+   * @param userImportData the import data
+   * @return the users to create and to update
+   */
+  public static MappedPartition mapPartition(List<User> usersToImport, Map<String, User> existingUsers, UserImportData userImportData) {
+    MappedPartition mappedPartition = new MappedPartition();
+    for (User user : usersToImport) {
+      updateUserData(user, userImportData);
+      User existingUser = existingUsers.get(user.getExternalSystemId());
+      if (existingUser == null) {
+        user.setId(userImportData.getDeterministicIds()
+          ? UserIdGenerator.nameBasedId(userImportData.getTenant(), user.getExternalSystemId())
+          : UUID.randomUUID().toString());
+        mappedPartition.getUsersToCreate().add(user);
+      } else if (userImportData.getUpdateOnlyPresentFields()) {
+        mappedPartition.getUsersToUpdate().add(updateExistingUserWithIncomingFields(user, existingUser));
+      } else {
+        user.setId(existingUser.getId());
+        mappedPartition.getUsersToUpdate().add(user);
+      }
+    }
+    return mappedPartition;
+  }
+
   public static void updateUserData(User user, UserImportData userImportData) {
     if (!Strings.isNullOrEmpty(userImportData.getSourceType())) {
       user.setExternalSystemId(userImportData.getSourceType() + "_" + user.getExternalSystemId());
@@ -0,0 +1,171 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.DeactivationResult;
+import org.folio.rest.tools.client.Response;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Deactivates the users missing from an import.
+ *
+ * The number of users deactivated at the same time and per second is limited. Every user is fetched again right
+ * before the update, so only the active flag is changed and concurrent changes of other fields are not overwritten.
+ */
+public class UserDeactivator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UserDeactivator.class);
+
+  private final Context context;
+  private final HttpClientInterface httpClient;
+  private final Map<String, String> okapiHeaders;
+  private final int maxConcurrent;
+  private final long intervalNanos;
+
+  public UserDeactivator(Context context, HttpClientInterface httpClient, Map<String, String> okapiHeaders) {
+    this(context, httpClient, okapiHeaders,
+      ConfigurationUtil.getPositiveInt(context, CONFIG_DEACTIVATION_MAX_CONCURRENT, DEFAULT_DEACTIVATION_MAX_CONCURRENT),
+      ConfigurationUtil.getInt(context, CONFIG_DEACTIVATION_MAX_USERS_PER_SECOND, DEFAULT_DEACTIVATION_MAX_USERS_PER_SECOND));
+  }
+
+  UserDeactivator(Context context, HttpClientInterface httpClient, Map<String, String> okapiHeaders, int maxConcurrent, int maxUsersPerSecond) {
+    this.context = context;
+    this.httpClient = httpClient;
+    this.okapiHeaders = okapiHeaders;
+    this.maxConcurrent = Math.max(1, maxConcurrent);
+    this.intervalNanos = maxUsersPerSecond > 0 ? 1000000000L / maxUsersPerSecond : 0;
+  }
+
+  /**
+   * Deactivate the given users.
+   * @param users the users to deactivate, users that were already inactive when listed are skipped
+   * @return the number of deactivated and failed users, the future never fails
+   */
+  public Future<DeactivationResult> deactivate(Collection<User> users) {
+    Deque<User> pending = new ArrayDeque<>();
+    for (User user : users) {
+      if (Boolean.TRUE.equals(user.getActive())) {
+        pending.add(user);
+      }
+    }
+    Run run = new Run(pending);
+    context.runOnContext(v -> run.startNext());
+    return run.future;
+  }
+
+  /*
+   * The users of one deactivation. All the state is only accessed on the context of the deactivator.
+   */
+  private class Run {
+    private final Deque<User> pending;
+    private final DeactivationResult result = new DeactivationResult();
+    private final Future<DeactivationResult> future = Future.future();
+    private int running;
+    private long nextStartNanos = System.nanoTime();
+    private boolean timerSet;
+
+    Run(Deque<User> pending) {
+      this.pending = pending;
+    }
+
+    void startNext() {
+      while (running < maxConcurrent && !pending.isEmpty()) {
+        long now = System.nanoTime();
+        if (now < nextStartNanos) {
+          if (!timerSet) {
+            timerSet = true;
+            context.owner().setTimer(Math.max(1, (nextStartNanos - now) / 1000000), id -> {
+              timerSet = false;
+              startNext();
+            });
+          }
+          return;
+        }
+        nextStartNanos = Math.max(now, nextStartNanos) + intervalNanos;
+        User user = pending.poll();
+        running++;
+        deactivateUser(user).setHandler(ar -> context.runOnContext(v -> {
+          running--;
+          if (ar.failed()) {
+            LOGGER.warn(FAILED_TO_DEACTIVATE_USER_WITH_EXTERNAL_SYSTEM_ID + user.getExternalSystemId() + ERROR_MESSAGE + ar.cause().getMessage());
+            result.addFailed();
+            increment("deactivation.failed");
+          } else if (ar.result()) {
+            result.addDeactivated();
+            increment("deactivation.deactivated");
+          }
+          startNext();
+        }));
+      }
+      if (running == 0 && pending.isEmpty() && !future.isComplete()) {
+        LOGGER.info("Deactivated " + result.getDeactivatedRecords() + " users, failed to deactivate " + result.getFailedRecords() + " users.");
+        future.complete(result);
+      }
+    }
+  }
+
+  /**
+   * Fetch the current version of the user and deactivate it if it is still active.
+   * @return true if the user was deactivated, false if it was deleted or deactivated in the meantime
+   */
+  private Future<Boolean> deactivateUser(User user) {
+    Future<Boolean> future = Future.future();
+    final String userPath = "/users/" + user.getId();
+    Map<String, String> getHeaders = HttpClientUtil.createHeaders(okapiHeaders, HTTP_HEADER_VALUE_APPLICATION_JSON, null);
+
+    try {
+      httpClient.request(HttpMethod.GET, userPath, getHeaders)
+        .whenComplete((getResponse, getEx) -> {
+          if (getEx != null) {
+            future.fail(getEx);
+          } else if (getResponse.getCode() == 404) {
+            future.complete(false);
+          } else if (!Response.isSuccess(getResponse.getCode())) {
+            future.fail("Failed to fetch user, status code: " + getResponse.getCode());
+          } else if (getResponse.getBody() == null) {
+            future.fail("Failed to fetch user, empty response body");
+          } else if (!getResponse.getBody().getBoolean("active", Boolean.FALSE)) {
+            future.complete(false);
+          } else {
+            putInactiveUser(userPath, getResponse.getBody(), future);
+          }
+        });
+    } catch (Exception exc) {
+      future.fail(exc);
+    }
+    return future;
+  }
+
+  private void putInactiveUser(String userPath, JsonObject currentUser, Future<Boolean> future) {
+    currentUser.put("active", Boolean.FALSE);
+    Map<String, String> putHeaders = HttpClientUtil.createHeaders(okapiHeaders, "text/plain", HTTP_HEADER_VALUE_APPLICATION_JSON);
+    try {
+      httpClient.request(HttpMethod.PUT, currentUser, userPath, putHeaders)
+        .whenComplete((putResponse, putEx) -> {
+          if (putEx != null) {
+            future.fail(putEx);
+          } else if (!Response.isSuccess(putResponse.getCode())) {
+            future.fail("Failed to update user, status code: " + putResponse.getCode());
+          } else {
+            future.complete(true);
+          }
+        });
+    } catch (Exception exc) {
+      future.fail(exc);
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+
+import com.google.common.base.Strings;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Streams the users with an externalSystemId of a sourceType as NDJSON (one user per line) or CSV.
+ *
+ * The users are listed in pages ordered by externalSystemId and id, every page starts after the last externalSystemId
+ * and id of the previous one, so deep pages are not slower than the first one. The next page is only requested when the written
+ * users have been sent to the client, so a slow client holds at most one page in memory. The export ends with an empty
+ * page or with a page holding all the remaining users reported by its totalRecords, a short page alone does not end
+ * the export as mod-users may return fewer users than requested. The response is sent with
+ * chunked transfer encoding. If a later page fails, the connection is closed without the final chunk, so the client
+ * sees an incomplete response. If the client disconnects, no more pages are listed.
+ */
+public class UserExporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UserExporter.class);
+
+  public static final String FORMAT_NDJSON = "ndjson";
+  public static final String FORMAT_CSV = "csv";
+  public static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+  public static final String CONTENT_TYPE_CSV = "text/csv";
+
+  private static final List<String> DEFAULT_CSV_FIELDS = Arrays.asList("id", "externalSystemId", "username", "barcode",
+    "active", "patronGroup", "personal.lastName", "personal.firstName", "personal.email");
+
+  private final HttpClientInterface httpClient;
+  private final Map<String, String> headers;
+  private final String query;
+  private final boolean csv;
+  private final List<String> fields;
+  private final String[][] paths;
+  private final int pageSize;
+  private String lastExternalSystemId;
+  private String lastId;
+  private int remainingRecords = -1;
+  private long exported;
+  private volatile boolean closed;
+
+  /**
+   * @param sourceType the sourceType of the exported users, null for all users with an externalSystemId
+   * @param format ndjson or csv
+   * @param fields the exported field paths separated by commas, e.g. <code>externalSystemId,personal.email</code>,
+   * empty for the whole user (NDJSON) or the default columns (CSV)
+   * @throws IllegalArgumentException if the format or the fields are invalid
+   */
+  public UserExporter(HttpClientInterface httpClient, Map<String, String> okapiHeaders, String sourceType, String format,
+    String fields, int pageSize) {
+    if (!Strings.isNullOrEmpty(format) && !FORMAT_NDJSON.equalsIgnoreCase(format) && !FORMAT_CSV.equalsIgnoreCase(format)) {
+      throw new IllegalArgumentException(INVALID_EXPORT_FORMAT + format);
+    }
+    this.httpClient = httpClient;
+    this.headers = HttpClientUtil.createHeaders(okapiHeaders, HTTP_HEADER_VALUE_APPLICATION_JSON, null);
+    this.query = CqlQueryBuilder.externalSystemIdQuery(sourceType);
+    this.csv = FORMAT_CSV.equalsIgnoreCase(format);
+    this.fields = parseFields(fields, csv);
+    this.paths = this.fields == null ? null : this.fields.stream().map(field -> field.split("\\.")).toArray(String[][]::new);
+    this.pageSize = pageSize;
+  }
+
+  public String getContentType() {
+    return csv ? CONTENT_TYPE_CSV : CONTENT_TYPE_NDJSON;
+  }
+
+  /**
+   * Stream the users to a response. The status and headers are only sent once the first page has been listed.
+   * @return the number of exported users, failed before anything was sent if the first page cannot be listed
+   */
+  public Future<Long> export(HttpServerResponse response) {
+    Future<Long> future = Future.future();
+    nextPage().setHandler(firstPage -> {
+      if (firstPage.failed()) {
+        future.fail(firstPage.cause());
+        return;
+      }
+      response.setChunked(true)
+        .setStatusCode(200)
+        .putHeader(HTTP_HEADER_CONTENT_TYPE, getContentType())
+        .closeHandler(v -> {
+          closed = true;
+          response.drainHandler(null);
+          if (!future.isComplete()) {
+            increment("export.clientDisconnected");
+            future.fail(CLIENT_DISCONNECTED);
+          }
+        });
+      if (csv) {
+        response.write(csvLine(new JsonArray(new ArrayList<>(fields))));
+      }
+      writePage(response, firstPage.result(), future);
+    });
+    return future;
+  }
+
+  /**
+   * Write a page and continue with the next one when the response can take more data.
+   */
+  private void writePage(HttpServerResponse response, JsonArray users, Future<Long> future) {
+    if (closed) {
+      return;
+    }
+    for (int i = 0; i < users.size(); i++) {
+      response.write(format(users.getJsonObject(i)));
+    }
+    exported += users.size();
+    add("export.users", users.size());
+    if (users.isEmpty() || (remainingRecords >= 0 && users.size() >= remainingRecords)) {
+      response.end();
+      future.complete(exported);
+      return;
+    }
+    if (response.writeQueueFull()) {
+      response.drainHandler(v -> {
+        response.drainHandler(null);
+        requestPage(response, future);
+      });
+    } else {
+      requestPage(response, future);
+    }
+  }
+
+  private void requestPage(HttpServerResponse response, Future<Long> future) {
+    nextPage().setHandler(page -> {
+      if (closed) {
+        return;
+      }
+      if (page.succeeded()) {
+        writePage(response, page.result(), future);
+      } else {
+        LOGGER.error(FAILED_TO_EXPORT_USERS + page.cause().getMessage());
+        increment("export.failed");
+        response.close();
+        future.fail(page.cause());
+      }
+    });
+  }
+
+  /**
+   * List the next page of users.
+   */
+  private Future<JsonArray> nextPage() {
+    Future<JsonArray> future = Future.future();
+    try {
+      httpClient.request(HttpMethod.GET, CqlQueryBuilder.keysetUserSearchUrl(query, lastExternalSystemId, lastId, pageSize), headers)
+        .whenComplete((response, ex) -> {
+          if (ex != null) {
+            future.fail(ex);
+          } else if (!org.folio.rest.tools.client.Response.isSuccess(response.getCode())) {
+            future.fail(FAILED_TO_LIST_USERS + " " + (response.getError() == null ? response.getCode() : response.getError().encode()));
+          } else if (response.getBody() == null) {
+            future.fail(FAILED_TO_LIST_USERS + " Empty response body");
+          } else {
+            JsonArray users = response.getBody().getJsonArray("users", new JsonArray());
+            // the page query starts after the previous page, so its totalRecords counts the remaining users
+            remainingRecords = response.getBody().getInteger("totalRecords", -1);
+            if (!users.isEmpty()) {
+              JsonObject lastUser = users.getJsonObject(users.size() - 1);
+              lastExternalSystemId = lastUser.getString("externalSystemId");
+              lastId = lastUser.getString("id");
+            }
+            future.complete(users);
+          }
+        });
+    } catch (Exception e) {
+      future.fail(e);
+    }
+    return future;
+  }
+
+  Buffer format(JsonObject user) {
+    if (csv) {
+      JsonArray values = new JsonArray();
+      for (String[] path : paths) {
+        values.add(get(user, path));
+      }
+      return csvLine(values);
+    }
+    return Buffer.buffer(project(user).encode()).appendString("\n");
+  }
+
+  /**
+   * Keep only the exported fields of a user. An array element selected by its number is kept in an object under the
+   * number, e.g. <code>{"personal":{"addresses":{"0":{"city":"..."}}}}</code>.
+   */
+  private JsonObject project(JsonObject user) {
+    if (paths == null) {
+      return user;
+    }
+    JsonObject projection = new JsonObject();
+    for (String[] path : paths) {
+      Object value = get(user, path);
+      if (value == null) {
+        continue;
+      }
+      JsonObject parent = projection;
+      for (int i = 0; i < path.length - 1; i++) {
+        Object child = parent.getValue(path[i]);
+        if (!(child instanceof JsonObject)) {
+          child = new JsonObject();
+          parent.put(path[i], child);
+        }
+        parent = (JsonObject) child;
+      }
+      parent.put(path[path.length - 1], value);
+    }
+    return projection;
+  }
+
+  /**
+   * Get the value of a field path, numbers select array elements.
+   * @return the value, null if the path does not exist
+   */
+  private static Object get(JsonObject user, String[] path) {
+    Object current = user;
+    for (String segment : path) {
+      if (current instanceof JsonObject) {
+        current = ((JsonObject) current).getValue(segment);
+      } else if (current instanceof JsonArray && segment.matches("\\d+")) {
+        JsonArray array = (JsonArray) current;
+        int index = Integer.parseInt(segment);
+        current = index < array.size() ? array.getValue(index) : null;
+      } else {
+        return null;
+      }
+    }
+    return current;
+  }
+
+  private static Buffer csvLine(JsonArray values) {
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      Object value = values.getValue(i);
+      if (value == null) {
+        continue;
+      }
+      String text = value instanceof JsonObject ? ((JsonObject) value).encode()
+        : value instanceof JsonArray ? ((JsonArray) value).encode() : value.toString();
+      if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+        line.append('"').append(text.replace("\"", "\"\"")).append('"');
+      } else {
+        line.append(text);
+      }
+    }
+    return Buffer.buffer(line.append("\r\n").toString());
+  }
+
+  private static List<String> parseFields(String fields, boolean csv) {
+    if (Strings.isNullOrEmpty(fields) || fields.trim().isEmpty()) {
+      return csv ? DEFAULT_CSV_FIELDS : null;
+    }
+    List<String> parsed = new ArrayList<>();
+    for (String field : fields.split(",")) {
+      String path = field.trim();
+      if (path.isEmpty() || path.startsWith(".") || path.endsWith(".") || path.contains("..")) {
+        throw new IllegalArgumentException(INVALID_EXPORT_FIELDS + fields);
+      }
+      parsed.add(path);
+    }
+    return parsed;
+  }
+}
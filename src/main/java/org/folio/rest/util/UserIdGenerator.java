@@ -0,0 +1,52 @@
+package org.folio.rest.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Derives the id of a new user from its tenant and its externalSystemId, so every attempt to create the same user
+ * uses the same id.
+ *
+ * The ids are name based UUIDs of version 5 (RFC 4122, SHA-1) in the namespace of the module. The externalSystemId
+ * is the stored one, including the sourceType prefix, so users of different source types get different ids.
+ */
+public class UserIdGenerator {
+
+  /**
+   * The namespace of the user ids derived by the module. Changing it changes the ids of all users created later.
+   */
+  public static final UUID NAMESPACE = UUID.fromString("4c5a1e9f-3b7d-4f0e-8a62-9d1b7c3e5f28");
+
+  private UserIdGenerator() {
+  }
+
+  /**
+   * Derive the id of a user.
+   * @param tenant the tenant of the import
+   * @param externalSystemId the externalSystemId of the user, with the sourceType prefix
+   * @return the name based UUID of the user
+   */
+  public static String nameBasedId(String tenant, String externalSystemId) {
+    return nameBasedUuid(NAMESPACE, tenant + ":" + externalSystemId).toString();
+  }
+
+  static UUID nameBasedUuid(UUID namespace, String name) {
+    MessageDigest sha1;
+    try {
+      sha1 = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    sha1.update(ByteBuffer.allocate(16)
+      .putLong(namespace.getMostSignificantBits())
+      .putLong(namespace.getLeastSignificantBits())
+      .array());
+    ByteBuffer hash = ByteBuffer.wrap(sha1.digest(name.getBytes(StandardCharsets.UTF_8)));
+    long msb = (hash.getLong() & ~0xF000L) | 0x5000L;
+    long lsb = (hash.getLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+    return new UUID(msb, lsb);
+  }
+}
@@ -13,15 +13,148 @@ public class UserImportAPIConstants {
   public static final String FAILED_TO_LIST_PATRON_GROUPS = "Failed to list patron groups.";
   public static final String ERROR_MESSAGE = " Error message: ";
   public static final String USERS_WERE_IMPORTED_SUCCESSFULLY = "Users were imported successfully.";
+  public static final String USER_WAS_IMPORTED_SUCCESSFULLY = "User was imported successfully.";
   public static final String USER_DEACTIVATION_SKIPPED = "Users were not deactivated because of import failures.";
+  public static final String USER_DEACTIVATION_LISTING_FAILED = "Users were not deactivated because the existing users could not be listed.";
+  public static final String FAILED_TO_LIST_USERS = "Failed to list existing users.";
+  public static final String USER_DEACTIVATION_STOPPED = "Users were not deactivated because the import was stopped.";
+  public static final String CLIENT_DISCONNECTED = "The client disconnected, the remaining users were not imported.";
+  public static final String UNREAD_USERS_NOT_COUNTED = "The users that were not read before the import was stopped are not counted in notAttemptedRecords.";
+  public static final String IMPORT_DEADLINE_EXCEEDED = "The import deadline has passed, the remaining users were not imported.";
+  public static final String USER_DEACTIVATION_READ_FAILED = "Users were not deactivated because not all users could be read.";
+  public static final String FAILED_TO_READ_USERS = "Failed to read users.";
+  public static final String INVALID_CSV_FIELD_PATH = "Invalid field path, array elements are numbered from 0 to " + CsvColumnMapping.MAX_ARRAY_INDEX + ": ";
+  public static final String INVALID_CSV_DELIMITER = "The delimiter should be a single character: ";
+  public static final String UNSUPPORTED_CONTENT_ENCODING = "Unsupported Content-Encoding, use gzip or deflate: ";
+  public static final String INVALID_COMPRESSED_BODY = "Failed to read the request body: ";
+  public static final String DUPLICATE_EXTERNAL_SYSTEM_ID = "An earlier user of the import has the same externalSystemId with different data.";
+  public static final String DUPLICATE_USERNAME = "An earlier user of the import with a different externalSystemId has the same username.";
+  public static final String FAILED_TO_VALIDATE_USERS = "Failed to validate users, importing them unvalidated: ";
+  public static final String MISSING_EXTERNAL_SYSTEM_ID = "The externalSystemId is missing.";
+  public static final String MISSING_USERNAME = "The username is missing.";
+  public static final String MISSING_LAST_NAME = "The personal.lastName is missing.";
+  public static final String UNKNOWN_PATRON_GROUP = "Unknown patron group: ";
+  public static final String UNKNOWN_ADDRESS_TYPE = "Unknown address type: ";
+  public static final String NO_DEFAULT_PATRON_GROUP = "Unknown patron group and no valid default patron group: ";
+  public static final String NO_DEFAULT_ADDRESS_TYPE = "Unknown address type and no valid default address type: ";
+  public static final String DEFAULT_ADDRESS_TYPE_IN_USE = "Unknown address type, the default address type is already used by another address: ";
+  public static final String SYNC_SESSION_NOT_FOUND = "Sync session not found: ";
+  public static final String SYNC_SESSION_CHUNKS_RUNNING = "Chunks of the sync session are still being imported: ";
+  public static final String INVALID_REFERENCE_DATA_POLICY = "Invalid reference data policy, expected drop, fail or default: ";
+  public static final String USERNAME_ALREADY_EXISTS = "The username is already used by an existing user: ";
+  public static final String BARCODE_ALREADY_EXISTS = "The barcode is already used by an existing user: ";
+  public static final String EXISTING_USER_ID = ", id of the existing user: ";
+  public static final String FAILED_TO_CHECK_COLLISIONS = "Failed to look up the usernames and barcodes of new users, creating them without the check.";
+  public static final String FILE_DROP_DISABLED = "File imports are disabled, set userImport.fileDrop.directory.";
+  public static final String INVALID_IMPORT_FILE_PATH = "The path should name a .csv, .tsv or .json file (optionally .gz) in the import directory: ";
+  public static final String IMPORT_FILE_NOT_FOUND = "Import file not found: ";
+  public static final String IMPORT_FILE_IN_PROGRESS = "The file is already being imported: ";
+  public static final String USERS_WERE_DEACTIVATED = "Deactivated missing users.";
+  public static final String FAILED_TO_DEACTIVATE_USERS = "Failed to deactivate some of the missing users.";
+  public static final String FAILED_TO_DEACTIVATE_USER_WITH_EXTERNAL_SYSTEM_ID = "Failed to deactivate user with externalSystemId: ";
+  public static final String IMPORT_REJECTED = "Too many concurrent imports, the import was rejected. Please retry later.";
+  public static final String IDEMPOTENCY_KEY_REUSED = "The Idempotency-Key was already used for a different request: ";
+  public static final String INVALID_EXPORT_FORMAT = "Invalid export format, expected ndjson or csv: ";
+  public static final String INVALID_EXPORT_FIELDS = "Invalid export fields, expected field paths separated by commas: ";
+  public static final String FAILED_TO_EXPORT_USERS = "Failed to export users: ";
   public static final String USER_SCHEMA_MISMATCH = "Failed to map existing users. This could be caused by schema mismatch.";
 
+  public static final String USERNAME_FIELD = "username";
+  public static final String BARCODE_FIELD = "barcode";
   public static final String HTTP_HEADER_CONTENT_TYPE = "Content-type";
   public static final String HTTP_HEADER_VALUE_APPLICATION_JSON = "application/json";
   public static final String HTTP_HEADER_ACCEPT = "Accept";
   public static final String OKAPI_URL_HEADER = "X-Okapi-URL";
   public static final String OKAPI_TOKEN_HEADER = "X-Okapi-Token";
   public static final String OKAPI_TENANT_HEADER = "X-Okapi-Tenant";
+  public static final String HTTP_HEADER_CONTENT_LENGTH = "Content-Length";
+  public static final String HTTP_HEADER_CONTENT_ENCODING = "Content-Encoding";
+  public static final String HTTP_HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+  public static final String HTTP_HEADER_RETRY_AFTER = "Retry-After";
+  public static final int HTTP_STATUS_UNPROCESSABLE_ENTITY = 422;
+  public static final int HTTP_STATUS_TOO_MANY_REQUESTS = 429;
+  public static final int HTTP_STATUS_SERVICE_UNAVAILABLE = 503;
+
+  public static final String CONFIG_PARTITION_SIZE = "userImport.partitionSize";
+  public static final String CONFIG_MAX_URL_LENGTH = "userImport.maxUrlLength";
+  public static final String CONFIG_SCHEDULER_MAX_CONCURRENT = "userImport.scheduler.maxConcurrentPartitions";
+  public static final String CONFIG_SCHEDULER_MAX_CONCURRENT_PER_TENANT = "userImport.scheduler.maxConcurrentPartitionsPerTenant";
+  public static final String CONFIG_SCHEDULER_TENANT_WEIGHTS = "userImport.scheduler.tenantWeights";
+  public static final String CONFIG_ADMISSION_MAX_IN_FLIGHT_BYTES = "userImport.admission.maxInFlightBytes";
+  public static final String CONFIG_ADMISSION_MODE = "userImport.admission.mode";
+  public static final String CONFIG_ADMISSION_MAX_QUEUED = "userImport.admission.maxQueuedImports";
+  public static final String CONFIG_ADMISSION_MAX_QUEUE_TIME_MS = "userImport.admission.maxQueueTimeMs";
+  public static final String CONFIG_ADMISSION_RETRY_AFTER_SECONDS = "userImport.admission.retryAfterSeconds";
+  public static final String CONFIG_MAPPING_EXECUTOR = "userImport.mapping.executor";
+  public static final String CONFIG_MAPPING_POOL_SIZE = "userImport.mapping.poolSize";
+  public static final String CONFIG_EVENT_LOOP_MONITOR_INTERVAL_MS = "userImport.eventLoopMonitor.intervalMs";
+  public static final String CONFIG_MAX_PARTITIONS_IN_FLIGHT = "userImport.maxPartitionsInFlightPerImport";
+  public static final String CONFIG_CSV_COLUMN_MAPPING = "userImport.csv.columnMapping";
+  public static final String CONFIG_DEACTIVATION_MAX_CONCURRENT = "userImport.deactivation.maxConcurrentUsers";
+  public static final String CONFIG_DEACTIVATION_MAX_USERS_PER_SECOND = "userImport.deactivation.maxUsersPerSecond";
+  public static final String CONFIG_COLLISION_CHECK = "userImport.collisionCheck.enabled";
+  public static final String CONFIG_FILE_DROP_DIRECTORY = "userImport.fileDrop.directory";
+  public static final String CONFIG_FILE_DROP_WATCH_INTERVAL_MS = "userImport.fileDrop.watchIntervalMs";
+  public static final String CONFIG_FILE_DROP_TENANT = "userImport.fileDrop.tenant";
+  public static final String CONFIG_FILE_DROP_OKAPI_URL = "userImport.fileDrop.okapiUrl";
+  public static final String CONFIG_FILE_DROP_TOKEN = "userImport.fileDrop.token";
+  public static final String CONFIG_DETERMINISTIC_IDS = "userImport.deterministicIds.enabled";
+  public static final String CONFIG_IDEMPOTENCY_MAX_KEYS = "userImport.idempotency.maxKeys";
+  public static final String CONFIG_IDEMPOTENCY_TTL_MS = "userImport.idempotency.ttlMs";
+  public static final String CONFIG_SYNC_SESSION_TTL_MS = "userImport.syncSession.ttlMs";
+  public static final String CONFIG_CONCURRENCY_ENABLED = "userImport.concurrency.enabled";
+  public static final String CONFIG_CONCURRENCY_INITIAL_LIMIT = "userImport.concurrency.initialLimit";
+  public static final String CONFIG_CONCURRENCY_MIN_LIMIT = "userImport.concurrency.minLimit";
+  public static final String CONFIG_CONCURRENCY_MAX_LIMIT = "userImport.concurrency.maxLimit";
+  public static final String CONFIG_CONCURRENCY_LATENCY_TARGET_MS = "userImport.concurrency.latencyTargetMs";
+  public static final String CONFIG_CONCURRENCY_MAX_RETRIES = "userImport.concurrency.maxRetries";
+  public static final String CONFIG_HEDGING_ENABLED = "userImport.hedging.enabled";
+  public static final String CONFIG_HEDGING_MIN_DELAY_MS = "userImport.hedging.minDelayMs";
+  public static final String CONFIG_HEDGING_BUDGET_PERCENT = "userImport.hedging.budgetPercent";
+  public static final String CONFIG_HTTP2_ENABLED = "userImport.http2.enabled";
+  public static final String CONFIG_HTTP2_MAX_CONCURRENT_STREAMS = "userImport.http2.maxConcurrentStreams";
+  public static final String CONFIG_HTTP2_MAX_CONNECTIONS = "userImport.http2.maxConnections";
+  public static final String CONFIG_IMPORT_TIMEOUT_MS = "userImport.timeoutMs";
+  public static final String CONFIG_REFERENCE_DATA_POLICY = "userImport.referenceData.policy";
+  public static final String CONFIG_DEFAULT_PATRON_GROUP = "userImport.referenceData.defaultPatronGroup";
+  public static final String CONFIG_DEFAULT_ADDRESS_TYPE = "userImport.referenceData.defaultAddressType";
+  public static final String CONFIG_REFERENCE_DATA_CACHE_TTL_MS = "userImport.referenceData.cacheTtlMs";
+  public static final String CONFIG_EXPORT_PAGE_SIZE = "userImport.export.pageSize";
+  public static final String CONFIG_UPSERT_REFERENCE_DATA_MAX_AGE_MS = "userImport.upsert.referenceDataMaxAgeMs";
+  public static final String CONFIG_WARM_UP_ENABLED = "userImport.warmUp.enabled";
+  public static final String CONFIG_WARM_UP_TENANT = "userImport.warmUp.tenant";
+  public static final String CONFIG_WARM_UP_OKAPI_URL = "userImport.warmUp.okapiUrl";
+  public static final String CONFIG_WARM_UP_TOKEN = "userImport.warmUp.token";
+  public static final String CONFIG_WARM_UP_MAX_WAIT_MS = "userImport.warmUp.maxWaitMs";
+
+  public static final int DEFAULT_PARTITION_SIZE = 10;
+  public static final int DEFAULT_SCHEDULER_MAX_CONCURRENT = 32;
+  public static final int DEFAULT_SCHEDULER_MAX_CONCURRENT_PER_TENANT = 16;
+  public static final int DEFAULT_ADMISSION_MAX_QUEUED = 10;
+  public static final long DEFAULT_ADMISSION_MAX_QUEUE_TIME_MS = 60000;
+  public static final long DEFAULT_ADMISSION_RETRY_AFTER_SECONDS = 30;
+  public static final long DEFAULT_EVENT_LOOP_MONITOR_INTERVAL_MS = 100;
+  public static final int DEFAULT_MAX_PARTITIONS_IN_FLIGHT = 16;
+  public static final int DEFAULT_DEACTIVATION_MAX_CONCURRENT = 5;
+  public static final int DEFAULT_DEACTIVATION_MAX_USERS_PER_SECOND = 50;
+  public static final long DEFAULT_FILE_DROP_WATCH_INTERVAL_MS = 0;
+  public static final int DEFAULT_IDEMPOTENCY_MAX_KEYS = 1000;
+  public static final long DEFAULT_IDEMPOTENCY_TTL_MS = 24 * 60 * 60 * 1000L;
+  public static final long DEFAULT_SYNC_SESSION_TTL_MS = 60 * 60 * 1000L;
+  public static final int DEFAULT_CONCURRENCY_INITIAL_LIMIT = 32;
+  public static final int DEFAULT_CONCURRENCY_MIN_LIMIT = 2;
+  public static final int DEFAULT_CONCURRENCY_MAX_LIMIT = 256;
+  public static final long DEFAULT_CONCURRENCY_LATENCY_TARGET_MS = 500;
+  public static final int DEFAULT_CONCURRENCY_MAX_RETRIES = 3;
+  public static final long DEFAULT_CONCURRENCY_RETRY_AFTER_MS = 1000;
+  public static final long DEFAULT_HEDGING_MIN_DELAY_MS = 50;
+  public static final int DEFAULT_HEDGING_BUDGET_PERCENT = 5;
+  public static final int DEFAULT_HTTP2_MAX_CONCURRENT_STREAMS = 100;
+  public static final int DEFAULT_HTTP2_MAX_CONNECTIONS = 1;
+  public static final long DEFAULT_REFERENCE_DATA_CACHE_TTL_MS = 0;
+  public static final int DEFAULT_EXPORT_PAGE_SIZE = 1000;
+  public static final long DEFAULT_UPSERT_REFERENCE_DATA_MAX_AGE_MS = 60000;
+  public static final long DEFAULT_WARM_UP_MAX_WAIT_MS = 30000;
 
   private UserImportAPIConstants() {
 
@@ -0,0 +1,50 @@
+package org.folio.rest.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.User;
+
+/**
+ * The users of an import, read one partition at a time.
+ */
+public interface UserSource {
+
+  /**
+   * Read the next users.
+   * @param size the maximum number of users to read
+   * @return the next users, an empty list if all users were read
+   * @throws IOException if the users could not be read
+   */
+  List<User> nextPartition(int size) throws IOException;
+
+  /**
+   * Get the number of users that were not read yet.
+   * @return the number of remaining users, -1 if it is not known without reading them, e.g. for a stream
+   */
+  default int remaining() {
+    return -1;
+  }
+
+  /**
+   * Create a source of users that are already in memory.
+   */
+  static UserSource of(List<User> users) {
+    return new UserSource() {
+      private int position;
+
+      @Override
+      public List<User> nextPartition(int size) {
+        int from = position;
+        position = Math.min(users.size(), from + size);
+        return new ArrayList<>(users.subList(from, position));
+      }
+
+      @Override
+      public int remaining() {
+        return users.size() - position;
+      }
+    };
+  }
+}
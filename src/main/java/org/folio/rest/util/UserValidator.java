@@ -0,0 +1,70 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.FailedUser;
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.InvalidUser;
+import org.folio.rest.model.UserImportData;
+import org.folio.rest.model.ValidatedPartition;
+
+import com.google.common.base.Strings;
+
+/**
+ * Validates the users of a partition before any request is sent for them.
+ *
+ * The checks only use the user and the patron groups and address types loaded at the start of the import, so they
+ * run on the mapping executor, for several partitions in parallel. Unknown patron groups and address types are
+ * handled by the reference data policy of the import, see {@link ReferenceDataResolver}. Records that could not be
+ * mapped to users, e.g. because of an invalid date, are reported here too.
+ */
+public class UserValidator {
+
+  private UserValidator() {
+  }
+
+  /**
+   * Validate the users of a partition.
+   * @param users the users as given in the import
+   * @param userImportData the import data with the reference data resolver
+   * @return the valid users and the failed records of the invalid users
+   */
+  public static ValidatedPartition validate(List<User> users, UserImportData userImportData) {
+    ValidatedPartition validatedPartition = new ValidatedPartition();
+    for (User user : users) {
+      String error = validate(user, userImportData.getReferenceDataResolver());
+      if (error == null) {
+        validatedPartition.getValidUsers().add(user);
+      } else {
+        ImportMetrics.increment("validation.failed");
+        validatedPartition.getInvalidUsers().add(new FailedUser()
+          .withExternalSystemId(user.getExternalSystemId())
+          .withUsername(user.getUsername())
+          .withErrorMessage(error));
+      }
+    }
+    return validatedPartition;
+  }
+
+  /**
+   * Validate a single user and apply the reference data policy of the import to it.
+   * @return the reason why the user is invalid, null for a valid user
+   */
+  static String validate(User user, ReferenceDataResolver referenceDataResolver) {
+    if (user instanceof InvalidUser) {
+      return ((InvalidUser) user).getReason();
+    }
+    if (Strings.isNullOrEmpty(user.getExternalSystemId())) {
+      return MISSING_EXTERNAL_SYSTEM_ID;
+    }
+    if (Strings.isNullOrEmpty(user.getUsername())) {
+      return MISSING_USERNAME;
+    }
+    if (user.getPersonal() != null && Strings.isNullOrEmpty(user.getPersonal().getLastName())) {
+      return MISSING_LAST_NAME;
+    }
+    return referenceDataResolver.apply(user);
+  }
+}
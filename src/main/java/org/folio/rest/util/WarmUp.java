@@ -0,0 +1,184 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.ImportMetrics.*;
+import static org.folio.rest.util.UserImportAPIConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.jaxrs.model.UserdataimportCollection;
+import org.folio.rest.model.MappedPartition;
+import org.folio.rest.model.UserImportData;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+
+import com.google.common.collect.Lists;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Warms up the module before the first import: maps and merges generated users through {@link UserDataUtil} on the
+ * mapping executor, so the mapping code is compiled by the JIT, and lists the patron groups and address types of a
+ * tenant into the {@link ReferenceDataCache}. The reference data is listed with the pooled client of the single user
+ * imports of the tenant (see {@link HttpClientUtil#getPooledHttpClient}), so its connections to Okapi are open for the
+ * first single user imports until they are idle for too long. Bulk imports create their own client and do not reuse
+ * these connections. Bulk imports only use the preloaded reference data if the cache is enabled with
+ * userImport.referenceData.cacheTtlMs above 0, otherwise they list it again for every import.
+ *
+ * The module is ready when the warm-up is finished, failed requests to Okapi are logged but do not keep it from being
+ * ready. The module start waits for the warm-up, see {@link org.folio.rest.impl.InitAPIs}, and the warmUp.ready gauge
+ * shows whether it is finished.
+ */
+public class WarmUp {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WarmUp.class);
+  private static final Map<Vertx, WarmUp> instances = new WeakHashMap<>();
+
+  private static final int USERS = 1000;
+  private static final String PATRON_GROUP = "warm-up";
+  private static final String ADDRESS_TYPE = "warm-up";
+
+  private volatile boolean ready;
+
+  WarmUp() {
+    registerGauge("warmUp.ready", () -> isReady() ? 1 : 0);
+  }
+
+  /**
+   * Get the module wide warm-up of the Vert.x instance.
+   */
+  public static synchronized WarmUp getInstance(Context context) {
+    return instances.computeIfAbsent(context.owner(), vertx -> new WarmUp());
+  }
+
+  /**
+   * Warm up the module.
+   * @param okapiHeaders the headers of the tenant whose reference data is preloaded, null to only warm up the mapping
+   * @return completed when the module is ready
+   */
+  public Future<Void> run(Map<String, String> okapiHeaders, Context context) {
+    return run(okapiHeaders, okapiHeaders == null ? null : HttpClientUtil.getPooledHttpClient(okapiHeaders, context), context);
+  }
+
+  /**
+   * Warm up the module, the reference data is listed with the given client.
+   */
+  Future<Void> run(Map<String, String> okapiHeaders, HttpClientInterface httpClient, Context context) {
+    Future<Void> future = Future.future();
+    if (!ConfigurationUtil.getBoolean(context, CONFIG_WARM_UP_ENABLED, true)) {
+      ready = true;
+      future.complete();
+      return future;
+    }
+    long start = System.currentTimeMillis();
+    Future<Integer> mapping = MappingExecutor.getInstance(context).execute(WarmUp::mapGeneratedUsers);
+    Future<Void> referenceData = okapiHeaders == null ? Future.succeededFuture() : preloadReferenceData(httpClient, okapiHeaders, context);
+    CompositeFuture.join(mapping, referenceData).setHandler(result -> {
+      if (mapping.failed()) {
+        LOGGER.warn("Failed to warm up the mapping of users: " + mapping.cause().getMessage());
+      }
+      if (referenceData.failed()) {
+        LOGGER.warn("Failed to preload the reference data of " + okapiHeaders.get(OKAPI_TENANT_HEADER) + ": "
+          + referenceData.cause().getMessage());
+      }
+      ready = true;
+      LOGGER.info("Warm-up finished in " + (System.currentTimeMillis() - start) + " ms");
+      future.complete();
+    });
+    return future;
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  private static Future<Void> preloadReferenceData(HttpClientInterface httpClient, Map<String, String> okapiHeaders, Context context) {
+    Future<Void> future = Future.future();
+    ReferenceDataCache cache = ReferenceDataCache.getInstance(context);
+    CompositeFuture.all(cache.getPatronGroups(httpClient, okapiHeaders), cache.getAddressTypes(httpClient, okapiHeaders))
+      .setHandler(result -> {
+        if (!cache.isEnabled()) {
+          LOGGER.info("The preloaded reference data is only used by single user imports, set " + CONFIG_REFERENCE_DATA_CACHE_TTL_MS
+            + " to use it for all imports");
+        }
+        if (result.succeeded()) {
+          future.complete();
+        } else {
+          future.fail(result.cause());
+        }
+      });
+    return future;
+  }
+
+  /**
+   * Map generated users from JSON, merge them with generated existing users like an import does, with and without
+   * updateOnlyPresentFields, and map the results back to JSON.
+   * @return the number of mapped users
+   */
+  static int mapGeneratedUsers() throws Exception {
+    int mapped = 0;
+    for (boolean updateOnlyPresentFields : new boolean[] { false, true }) {
+      UserImportData userImportData = new UserImportData(new UserdataimportCollection()
+        .withSourceType("warmup")
+        .withUpdateOnlyPresentFields(updateOnlyPresentFields));
+      userImportData.setPatronGroups(Collections.singletonMap(PATRON_GROUP, UUID.randomUUID().toString()));
+      userImportData.setAddressTypes(Collections.singletonMap(ADDRESS_TYPE, UUID.randomUUID().toString()));
+      userImportData.setTenant("warmup");
+
+      List<User> users = new ArrayList<>(USERS);
+      List<Map> existingUsers = new ArrayList<>(USERS / 2);
+      for (int i = 0; i < USERS; i++) {
+        JsonObject user = generateUser(i);
+        users.add(user.mapTo(User.class));
+        if (i % 2 == 0) {
+          existingUsers.add(user.copy()
+            .put("id", UUID.randomUUID().toString())
+            .put("externalSystemId", "warmup_" + user.getString("externalSystemId"))
+            .getMap());
+        }
+      }
+      Map<String, User> existing = UserDataUtil.extractExistingUsers(existingUsers);
+      for (List<User> partition : Lists.partition(users, DEFAULT_PARTITION_SIZE)) {
+        MappedPartition mappedPartition = UserDataUtil.mapPartition(partition, existing, userImportData);
+        for (User user : mappedPartition.getUsersToCreate()) {
+          mapped += JsonObject.mapFrom(user).isEmpty() ? 0 : 1;
+        }
+        for (User user : mappedPartition.getUsersToUpdate()) {
+          mapped += JsonObject.mapFrom(user).isEmpty() ? 0 : 1;
+        }
+      }
+    }
+    return mapped;
+  }
+
+  private static JsonObject generateUser(int i) {
+    String externalSystemId = String.format("warmup%06d", i);
+    return new JsonObject()
+      .put("username", externalSystemId)
+      .put("externalSystemId", externalSystemId)
+      .put("barcode", externalSystemId)
+      .put("active", true)
+      .put("patronGroup", PATRON_GROUP)
+      .put("personal", new JsonObject()
+        .put("lastName", "Warm")
+        .put("firstName", "Up " + i)
+        .put("email", externalSystemId + "@example.org")
+        .put("preferredContactTypeId", "email")
+        .put("addresses", new JsonArray().add(new JsonObject()
+          .put("addressLine1", "Main street " + i)
+          .put("city", "Warm-up")
+          .put("addressTypeId", ADDRESS_TYPE)
+          .put("primaryAddress", true))));
+  }
+}
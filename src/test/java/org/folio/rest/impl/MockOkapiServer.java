@@ -0,0 +1,234 @@
+package org.folio.rest.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A local stand-in for the Okapi endpoints used by the import: /users, /groups, /addresstypes and /perms/users.
+ *
+ * The server keeps the users in memory, answers after a configurable latency, fails a configurable ratio of the
+ * requests and counts the received requests per endpoint.
+ */
+public class MockOkapiServer {
+
+  public static final String PATRON_GROUP = "undergrad";
+  public static final String ADDRESS_TYPE = "Home";
+
+  private static final Pattern QUOTED_TERM = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+  private static final Pattern PREFIX = Pattern.compile("externalSystemId=\"\\^((?:[^*\\\\]|\\\\.)*)\\*\"");
+  private static final Pattern KEYSET = Pattern.compile("externalSystemId>" + QUOTED_TERM.pattern()
+    + " or \\(externalSystemId==" + QUOTED_TERM.pattern() + " and id>" + QUOTED_TERM.pattern() + "\\)");
+
+  private final Vertx vertx;
+  private final long latencyMs;
+  private final double errorRate;
+  private final Random random = new Random(42);
+  private final Map<String, JsonObject> usersById = new ConcurrentHashMap<>();
+  private final NavigableMap<String, JsonObject> usersByExternalSystemId = new ConcurrentSkipListMap<>();
+  private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+  private final AtomicLong connectionCount = new AtomicLong();
+  private final AtomicLong concurrentRequests = new AtomicLong();
+  private final AtomicLong maxConcurrentRequests = new AtomicLong();
+  private volatile int maxLimit = Integer.MAX_VALUE;
+  private HttpServer server;
+
+  public MockOkapiServer(Vertx vertx, long latencyMs, double errorRate) {
+    this.vertx = vertx;
+    this.latencyMs = latencyMs;
+    this.errorRate = errorRate;
+  }
+
+  public void start(int port, Handler<AsyncResult<HttpServer>> handler) {
+    server = vertx.createHttpServer()
+      .connectionHandler(connection -> connectionCount.incrementAndGet())
+      .requestHandler(request -> request.bodyHandler(body -> {
+        count(request);
+        maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+        if (latencyMs > 0) {
+          vertx.setTimer(latencyMs, id -> respond(request, body.length() == 0 ? null : body.toJsonObject()));
+        } else {
+          respond(request, body.length() == 0 ? null : body.toJsonObject());
+        }
+      }))
+      .listen(port, handler);
+  }
+
+  public void stop(Handler<AsyncResult<Void>> handler) {
+    if (server == null) {
+      handler.handle(Future.succeededFuture());
+    } else {
+      server.close(handler);
+    }
+  }
+
+  /**
+   * Create existing users with the given externalSystemIds.
+   */
+  public void addUsers(List<String> externalSystemIds) {
+    for (String externalSystemId : externalSystemIds) {
+      JsonObject user = new JsonObject()
+        .put("id", UUID.randomUUID().toString())
+        .put("username", externalSystemId)
+        .put("externalSystemId", externalSystemId)
+        .put("active", true)
+        .put("patronGroup", PATRON_GROUP);
+      usersById.put(user.getString("id"), user);
+      usersByExternalSystemId.put(externalSystemId, user);
+    }
+  }
+
+  /**
+   * Return at most the given number of users per search, whatever limit is requested.
+   */
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public void reset() {
+    usersById.clear();
+    usersByExternalSystemId.clear();
+    requestCounts.clear();
+    connectionCount.set(0);
+    maxConcurrentRequests.set(0);
+  }
+
+  /**
+   * Get the number of received requests per endpoint, e.g. "GET /users".
+   */
+  public Map<String, Long> getRequestCounts() {
+    Map<String, Long> result = new TreeMap<>();
+    requestCounts.forEach((key, value) -> result.put(key, value.get()));
+    return result;
+  }
+
+  public long getTotalRequestCount() {
+    return requestCounts.values().stream().mapToLong(AtomicLong::get).sum();
+  }
+
+  /**
+   * Get the number of connections opened since the last reset, HTTP/1.1 and HTTP/2 (h2c) connections are accepted.
+   */
+  public long getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  /**
+   * Get the highest number of requests that were waiting for their response at the same time since the last reset.
+   */
+  public long getMaxConcurrentRequests() {
+    return maxConcurrentRequests.get();
+  }
+
+  private void count(HttpServerRequest request) {
+    String path = request.path();
+    String endpoint = path.startsWith("/users/") ? "/users/{id}" : path;
+    requestCounts.computeIfAbsent(request.method() + " " + endpoint, key -> new AtomicLong()).incrementAndGet();
+  }
+
+  private void respond(HttpServerRequest request, JsonObject body) {
+    concurrentRequests.decrementAndGet();
+    handle(request, body);
+  }
+
+  private void handle(HttpServerRequest request, JsonObject body) {
+    if (errorRate > 0 && random.nextDouble() < errorRate) {
+      request.response().setStatusCode(500).end("Mock error");
+      return;
+    }
+    String path = request.path();
+    HttpMethod method = request.method();
+    if (method == HttpMethod.GET && "/groups".equals(path)) {
+      json(request, 200, new JsonObject()
+        .put("usergroups", new JsonArray().add(new JsonObject().put("group", PATRON_GROUP).put("id", UUID.randomUUID().toString())))
+        .put("totalRecords", 1));
+    } else if (method == HttpMethod.GET && "/addresstypes".equalsIgnoreCase(path)) {
+      json(request, 200, new JsonObject()
+        .put("addressTypes", new JsonArray().add(new JsonObject().put("addressType", ADDRESS_TYPE).put("id", UUID.randomUUID().toString())))
+        .put("totalRecords", 1));
+    } else if (method == HttpMethod.GET && "/users".equals(path)) {
+      searchUsers(request);
+    } else if (method == HttpMethod.GET && path.startsWith("/users/")) {
+      JsonObject user = usersById.get(path.substring("/users/".length()));
+      if (user == null) {
+        request.response().setStatusCode(404).end("Not found");
+      } else {
+        json(request, 200, user);
+      }
+    } else if (method == HttpMethod.POST && "/users".equals(path)) {
+      usersById.put(body.getString("id"), body);
+      usersByExternalSystemId.put(body.getString("externalSystemId"), body);
+      json(request, 201, body);
+    } else if (method == HttpMethod.PUT && path.startsWith("/users/")) {
+      usersById.put(body.getString("id"), body);
+      usersByExternalSystemId.put(body.getString("externalSystemId"), body);
+      request.response().setStatusCode(204).end();
+    } else if (method == HttpMethod.POST && "/perms/users".equals(path)) {
+      json(request, 201, body);
+    } else {
+      request.response().setStatusCode(404).end("Not found");
+    }
+  }
+
+  private void searchUsers(HttpServerRequest request) {
+    String query = request.getParam("query");
+    int limit = Math.min(maxLimit, Integer.parseInt(request.getParam("limit") == null ? "10" : request.getParam("limit")));
+    int offset = Integer.parseInt(request.getParam("offset") == null ? "0" : request.getParam("offset"));
+    List<JsonObject> result = new ArrayList<>();
+    int totalRecords;
+
+    if (query != null && query.startsWith("externalSystemId==(")) {
+      Matcher matcher = QUOTED_TERM.matcher(query);
+      while (matcher.find()) {
+        JsonObject user = usersByExternalSystemId.get(unescape(matcher.group(1)));
+        if (user != null) {
+          result.add(user);
+        }
+      }
+      totalRecords = result.size();
+    } else {
+      Matcher prefixMatcher = PREFIX.matcher(query == null ? "" : query);
+      String prefix = prefixMatcher.find() ? unescape(prefixMatcher.group(1)) : "";
+      NavigableMap<String, JsonObject> matching = prefix.isEmpty() ? usersByExternalSystemId
+        : usersByExternalSystemId.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+      Matcher keysetMatcher = KEYSET.matcher(query == null ? "" : query);
+      if (keysetMatcher.find()) {
+        // the users are unique by externalSystemId, so the page starts after the last externalSystemId
+        matching = matching.tailMap(unescape(keysetMatcher.group(1)), false);
+      }
+      totalRecords = matching.size();
+      matching.values().stream().skip(offset).limit(limit).forEach(result::add);
+    }
+    json(request, 200, new JsonObject().put("users", new JsonArray(result)).put("totalRecords", totalRecords));
+  }
+
+  private static String unescape(String term) {
+    return term.replaceAll("\\\\(.)", "$1");
+  }
+
+  private void json(HttpServerRequest request, int status, JsonObject body) {
+    request.response()
+      .setStatusCode(status)
+      .putHeader("Content-Type", "application/json")
+      .end(body.encode());
+  }
+}
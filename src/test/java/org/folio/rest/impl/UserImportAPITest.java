@@ -2,10 +2,15 @@ package org.folio.rest.impl;
 
 import static io.restassured.RestAssured.*;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import org.folio.rest.RestVerticle;
 import org.folio.rest.jaxrs.model.Address;
@@ -16,7 +21,9 @@ import org.folio.rest.tools.client.test.HttpClientMock2;
 import org.folio.rest.util.UserImportAPIConstants;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 
 import io.restassured.RestAssured;
@@ -31,6 +38,11 @@ import io.vertx.ext.unit.junit.VertxUnitRunner;
 public class UserImportAPITest {
 
   private static final String USER_IMPORT = "/user-import";
+  private static final String USER_IMPORT_CSV = "/user-import/csv";
+  private static final String USER_IMPORT_JSON = "/user-import/json";
+  private static final String USER_IMPORT_FILE = "/user-import/file";
+  private static final String USER_IMPORT_EXPORT = "/user-import/export";
+  private static final String USER_IMPORT_USER = "/user-import/user";
   private static final String FAILED_USERS = "failedUsers";
   private static final String FAILED_RECORDS = "failedRecords";
   private static final String UPDATED_RECORDS = "updatedRecords";
@@ -39,6 +51,9 @@ public class UserImportAPITest {
   private static final String EXTERNAL_SYSTEM_ID = "externalSystemId";
   private static final String USERNAME = "username";
   private static final String USER_ERROR_MESSAGE = "errorMessage";
+  private static final String DEACTIVATED_RECORDS = "deactivatedRecords";
+  private static final String FAILED_DEACTIVATIONS = "failedDeactivations";
+  private static final String DUPLICATE_RECORDS = "duplicateRecords";
 
   private static final String ERROR = "error";
   private static final String MESSAGE = "message";
@@ -46,8 +61,14 @@ public class UserImportAPITest {
   private static final Header TOKEN_HEADER = new Header("X-Okapi-Token", "import-test");
   private static final Header OKAPI_URL_HEADER = new Header("X-Okapi-Url", "http://localhost:9130");
   private static final Header JSON_CONTENT_TYPE_HEADER = new Header("Content-Type", "application/json");
+  private static final Header OCTET_STREAM_CONTENT_TYPE_HEADER = new Header("Content-Type", "application/octet-stream");
+  private static final Header GZIP_CONTENT_ENCODING_HEADER = new Header("Content-Encoding", "gzip");
 
   public static final int PORT = 8081;
+
+  @Rule
+  public TemporaryFolder importDirectory = new TemporaryFolder();
+
   private Vertx vertx;
   private HttpClientMock2 mock;
 
@@ -57,7 +78,8 @@ public class UserImportAPITest {
 
     DeploymentOptions options = new DeploymentOptions()
       .setConfig(new JsonObject().put("http.port", PORT)
-        .put(HttpClientMock2.MOCK_MODE, "true"));
+        .put(HttpClientMock2.MOCK_MODE, "true")
+        .put(UserImportAPIConstants.CONFIG_FILE_DROP_DIRECTORY, importDirectory.getRoot().getAbsolutePath()));
 
     vertx.deployVerticle(new RestVerticle(),
       options,
@@ -91,6 +113,131 @@ public class UserImportAPITest {
       .statusCode(400);
   }
 
+  @Test
+  public void testExportWithInvalidFormat() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .queryParam("format", "xml")
+      .get(USER_IMPORT_EXPORT)
+      .then()
+      .body(equalTo(UserImportAPIConstants.INVALID_EXPORT_FORMAT + "xml"))
+      .statusCode(400);
+  }
+
+  @Test
+  public void testUpsertWithUserCreation() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(generateUser("1234567", "Amy", "Cabble", null))
+      .post(USER_IMPORT_USER)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USER_WAS_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(UPDATED_RECORDS, equalTo(0))
+      .body(FAILED_RECORDS, equalTo(0))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testUpsertWithUserUpdate() throws IOException {
+
+    mock.setMockJsonContent("mock_user_update.json");
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(generateUser("89101112", "User", "Update", "58512926-9a29-483b-b801-d36aced855d3"))
+      .post(USER_IMPORT_USER)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USER_WAS_IMPORTED_SUCCESSFULLY))
+      .body(CREATED_RECORDS, equalTo(0))
+      .body(UPDATED_RECORDS, equalTo(1))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testUpsertWithInvalidUser() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation_with_non_existing_patron_group.json");
+
+    User user = generateUser("1234567", "Amy", "Cabble", null);
+    user.setPatronGroup("nonExistingTestPatronGroup");
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(user)
+      .post(USER_IMPORT_USER)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_IMPORT_USERS))
+      .body(FAILED_RECORDS, equalTo(1))
+      .body(FAILED_USERS + "[0]." + USER_ERROR_MESSAGE, equalTo(UserImportAPIConstants.UNKNOWN_PATRON_GROUP + "nonExistingTestPatronGroup"))
+      .statusCode(422);
+  }
+
+  @Test
+  public void testUpsertWithInvalidReferenceDataPolicy() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .queryParam("referenceDataPolicy", "ignore")
+      .body(generateUser("1234567", "Amy", "Cabble", null))
+      .post(USER_IMPORT_USER)
+      .then()
+      .body(equalTo(UserImportAPIConstants.INVALID_REFERENCE_DATA_POLICY + "ignore"))
+      .statusCode(400);
+  }
+
+  @Test
+  public void testMetricsEndpoint() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    List<User> users = new ArrayList<>();
+    users.add(generateUser("1234567", "Amy", "Cabble", null));
+
+    UserdataimportCollection collection = new UserdataimportCollection()
+      .withUsers(users)
+      .withTotalRecords(1);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(collection)
+      .post(USER_IMPORT)
+      .then()
+      .statusCode(200);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .get(USER_IMPORT + "/metrics")
+      .then()
+      .body("metrics.name", hasItem("scheduler.completed.import-test"))
+      .body("metrics.name", hasItem("scheduler.queued.import-test"))
+      .statusCode(200);
+  }
+
   @Test
   public void testImportWithoutUsers() throws IOException {
 
@@ -208,6 +355,355 @@ public class UserImportAPITest {
       .statusCode(200);
   }
 
+  @Test
+  public void testImportReusingIdempotencyKey() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    List<User> users = new ArrayList<>();
+    users.add(generateUser("1234567", "Amy", "Cabble", null));
+    List<User> otherUsers = new ArrayList<>();
+    otherUsers.add(generateUser("7654321", "Bob", "Cabble", null));
+    Header idempotencyKey = new Header(UserImportAPIConstants.HTTP_HEADER_IDEMPOTENCY_KEY, "idempotency-key-reuse-test");
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .header(idempotencyKey)
+      .body(new UserdataimportCollection().withUsers(users).withTotalRecords(1))
+      .post(USER_IMPORT)
+      .then()
+      .body(CREATED_RECORDS, equalTo(1))
+      .statusCode(200);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .header(idempotencyKey)
+      .body(new UserdataimportCollection().withUsers(otherUsers).withTotalRecords(1))
+      .post(USER_IMPORT)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_IMPORT_USERS))
+      .body(ERROR, equalTo(UserImportAPIConstants.IDEMPOTENCY_KEY_REUSED + "idempotency-key-reuse-test"))
+      .statusCode(422);
+  }
+
+  @Test
+  public void testCsvImportWithUserCreation() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    String csv = "externalSystemId,username,barcode,active,patronGroup,personal.firstName,personal.lastName,personal.email,personal.preferredContactTypeId\n"
+      + "amy_cabble,amy_cabble,1234567,true,undergrad,Amy,Cabble,amy_cabble@user.org,email\n";
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .body(csv)
+      .post(USER_IMPORT_CSV)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(UPDATED_RECORDS, equalTo(0))
+      .body(FAILED_RECORDS, equalTo(0))
+      .body(FAILED_USERS, hasSize(0))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testCsvImportWithInvalidArrayIndexInHeader() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .body("externalSystemId,personal.addresses.2000000000.city
+amy_cabble,Springfield
+")
+      .post(USER_IMPORT_CSV)
+      .then()
+      .body(equalTo(UserImportAPIConstants.INVALID_CSV_FIELD_PATH + "personal.addresses.2000000000.city"))
+      .statusCode(400);
+  }
+
+  @Test
+  public void testCsvImportWithMalformedCsv() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .body("externalSystemId,username\n\"amy_cabble,amy_cabble\n")
+      .post(USER_IMPORT_CSV)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_IMPORT_USERS))
+      .body(ERROR, startsWith(UserImportAPIConstants.FAILED_TO_READ_USERS))
+      .body(TOTAL_RECORDS, equalTo(0))
+      .statusCode(500);
+  }
+
+  @Test
+  public void testCsvImportWithInvalidDelimiter() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .queryParam("delimiter", ";;")
+      .body("externalSystemId\n")
+      .post(USER_IMPORT_CSV)
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  public void testCsvImportWithInvalidReferenceDataPolicy() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .queryParam("referenceDataPolicy", "ignore")
+      .body("externalSystemId\n")
+      .post(USER_IMPORT_CSV)
+      .then()
+      .body(equalTo(UserImportAPIConstants.INVALID_REFERENCE_DATA_POLICY + "ignore"))
+      .statusCode(400);
+  }
+
+  @Test
+  public void testCsvImportWithDroppedPatronGroup() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    String csv = "externalSystemId,username,barcode,active,patronGroup,personal.firstName,personal.lastName,personal.email,personal.preferredContactTypeId\n"
+      + "amy_cabble,amy_cabble,1234567,true,alumni,Amy,Cabble,amy_cabble@user.org,email\n";
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .queryParam("referenceDataPolicy", "drop")
+      .body(csv)
+      .post(USER_IMPORT_CSV)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(FAILED_RECORDS, equalTo(0))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testCsvImportWithGzipCompression() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    String csv = "externalSystemId,username,barcode,active,patronGroup,personal.firstName,personal.lastName,personal.email,personal.preferredContactTypeId\n"
+      + "amy_cabble,amy_cabble,1234567,true,undergrad,Amy,Cabble,amy_cabble@user.org,email\n";
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .header(GZIP_CONTENT_ENCODING_HEADER)
+      .body(gzip(csv))
+      .post(USER_IMPORT_CSV)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(FAILED_RECORDS, equalTo(0))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testCsvImportWithUnsupportedContentEncoding() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .header(new Header("Content-Encoding", "br"))
+      .body("externalSystemId\n")
+      .post(USER_IMPORT_CSV)
+      .then()
+      .statusCode(415);
+  }
+
+  @Test
+  public void testJsonImportWithGzipCompression() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    List<User> users = new ArrayList<>();
+    users.add(generateUser("1234567", "Amy", "Cabble", null));
+
+    UserdataimportCollection collection = new UserdataimportCollection()
+      .withUsers(users)
+      .withTotalRecords(1);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .header(GZIP_CONTENT_ENCODING_HEADER)
+      .body(gzip(JsonObject.mapFrom(collection).encode()))
+      .post(USER_IMPORT_JSON)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(FAILED_RECORDS, equalTo(0))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testJsonImportWithInvalidCompressedBody() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(OCTET_STREAM_CONTENT_TYPE_HEADER)
+      .header(GZIP_CONTENT_ENCODING_HEADER)
+      .body("{\"users\": []}")
+      .post(USER_IMPORT_JSON)
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  public void testFileImportWithUserCreation() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    String csv = "externalSystemId\tusername\tbarcode\tactive\tpatronGroup\tpersonal.firstName\tpersonal.lastName\tpersonal.email\tpersonal.preferredContactTypeId\n"
+      + "amy_cabble\tamy_cabble\t1234567\ttrue\tundergrad\tAmy\tCabble\tamy_cabble@user.org\temail\n";
+    Files.write(importDirectory.newFolder("nightly").toPath().resolve("users.tsv"), csv.getBytes(StandardCharsets.UTF_8));
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .queryParam("path", "nightly/users.tsv")
+      .post(USER_IMPORT_FILE)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(FAILED_RECORDS, equalTo(0))
+      .statusCode(200);
+
+    JsonObject report = new JsonObject(new String(Files.readAllBytes(importDirectory.getRoot().toPath().resolve("nightly/users.tsv.report.json")),
+      StandardCharsets.UTF_8));
+    assertEquals(1, report.getInteger(CREATED_RECORDS).intValue());
+  }
+
+  @Test
+  public void testFileImportWithPathOutsideImportDirectory() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .queryParam("path", "../users.csv")
+      .post(USER_IMPORT_FILE)
+      .then()
+      .statusCode(400);
+  }
+
+  @Test
+  public void testFileImportWithMissingFile() throws IOException {
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .queryParam("path", "missing.csv")
+      .post(USER_IMPORT_FILE)
+      .then()
+      .statusCode(404);
+  }
+
+  @Test
+  public void testImportWithDuplicateUsers() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    List<User> users = new ArrayList<>();
+    users.add(generateUser("1234567", "Amy", "Cabble", null));
+    users.add(generateUser("1234567", "Amy", "Cabble", null));
+    users.add(generateUser("7654321", "Amy", "Cabble", null));
+
+    UserdataimportCollection collection = new UserdataimportCollection()
+      .withUsers(users)
+      .withTotalRecords(3);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(collection)
+      .post(USER_IMPORT)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(3))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(UPDATED_RECORDS, equalTo(0))
+      .body(FAILED_RECORDS, equalTo(1))
+      .body(DUPLICATE_RECORDS, equalTo(1))
+      .body(FAILED_USERS + "." + USER_ERROR_MESSAGE, contains(UserImportAPIConstants.DUPLICATE_EXTERNAL_SYSTEM_ID))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testImportWithUsernameCollision() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation_with_username_collision.json");
+
+    List<User> users = new ArrayList<>();
+    users.add(generateUser("1234567", "Amy", "Cabble", null));
+
+    UserdataimportCollection collection = new UserdataimportCollection()
+      .withUsers(users)
+      .withTotalRecords(1);
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(collection)
+      .post(USER_IMPORT)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(0))
+      .body(FAILED_RECORDS, equalTo(1))
+      .body(FAILED_USERS + "." + USER_ERROR_MESSAGE, contains(UserImportAPIConstants.USERNAME_ALREADY_EXISTS + "amy_cabble"
+        + UserImportAPIConstants.EXISTING_USER_ID + "5a5d5e1a-9c3b-4f5c-8d2e-2f4b6a1c0e11"))
+      .statusCode(200);
+  }
+
   @Test
   public void testImportWithUserCreationWithoutPersonalData() throws IOException {
 
@@ -239,6 +735,37 @@ public class UserImportAPITest {
       .statusCode(200);
   }
 
+  @Test
+  public void testImportWithDerivedIdOfAlreadyCreatedUser() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation_already_created.json");
+
+    List<User> users = new ArrayList<>();
+    users.add(generateUser("1234567", "Amy", "Cabble", null));
+
+    UserdataimportCollection collection = new UserdataimportCollection()
+      .withUsers(users)
+      .withTotalRecords(1);
+
+    System.setProperty(UserImportAPIConstants.CONFIG_DETERMINISTIC_IDS, "true");
+    try {
+      given()
+        .header(TENANT_HEADER)
+        .header(TOKEN_HEADER)
+        .header(OKAPI_URL_HEADER)
+        .header(JSON_CONTENT_TYPE_HEADER)
+        .body(collection)
+        .post(USER_IMPORT)
+        .then()
+        .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+        .body(CREATED_RECORDS, equalTo(1))
+        .body(FAILED_RECORDS, equalTo(0))
+        .statusCode(200);
+    } finally {
+      System.clearProperty(UserImportAPIConstants.CONFIG_DETERMINISTIC_IDS);
+    }
+  }
+
   @Test
   public void testImportWithUserCreationWithNonExistingPatronGroup() throws IOException {
 
@@ -269,7 +796,38 @@ public class UserImportAPITest {
       .body(FAILED_USERS, hasSize(1))
       .body(FAILED_USERS + "[0]." + EXTERNAL_SYSTEM_ID, equalTo(users.get(0).getExternalSystemId()))
       .body(FAILED_USERS + "[0]." + USERNAME, equalTo(users.get(0).getUsername()))
-      .body(FAILED_USERS + "[0]." + USER_ERROR_MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_CREATE_NEW_USER_WITH_EXTERNAL_SYSTEM_ID + users.get(0).getExternalSystemId()))
+      .body(FAILED_USERS + "[0]." + USER_ERROR_MESSAGE, equalTo(UserImportAPIConstants.UNKNOWN_PATRON_GROUP + "nonExistingTestPatronGroup"))
+      .statusCode(200);
+  }
+
+  @Test
+  public void testImportWithUserCreationWithDefaultPatronGroup() throws IOException {
+
+    mock.setMockJsonContent("mock_user_creation.json");
+
+    User user = generateUser("1234567", "Amy", "Cabble", null);
+    user.setPatronGroup("nonExistingTestPatronGroup");
+    List<User> users = new ArrayList<>();
+    users.add(user);
+
+    UserdataimportCollection collection = new UserdataimportCollection()
+      .withUsers(users)
+      .withTotalRecords(1)
+      .withReferenceDataPolicy(UserdataimportCollection.ReferenceDataPolicy.DEFAULT)
+      .withDefaultPatronGroup("undergrad");
+
+    given()
+      .header(TENANT_HEADER)
+      .header(TOKEN_HEADER)
+      .header(OKAPI_URL_HEADER)
+      .header(JSON_CONTENT_TYPE_HEADER)
+      .body(collection)
+      .post(USER_IMPORT)
+      .then()
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY))
+      .body(TOTAL_RECORDS, equalTo(1))
+      .body(CREATED_RECORDS, equalTo(1))
+      .body(FAILED_RECORDS, equalTo(0))
       .statusCode(200);
   }
 
@@ -576,6 +1134,9 @@ public class UserImportAPITest {
       .withTotalRecords(1)
       .withDeactivateMissingUsers(true);
 
+    StringBuilder resultMessageBuilder = new StringBuilder(UserImportAPIConstants.FAILED_TO_PROCESS_USER_SEARCH_RESULT);
+    resultMessageBuilder.append(UserImportAPIConstants.USER_SCHEMA_MISMATCH);
+
     given()
       .header(TENANT_HEADER)
       .header(TOKEN_HEADER)
@@ -584,7 +1145,8 @@ public class UserImportAPITest {
       .body(collection)
       .post(USER_IMPORT)
       .then()
-      .body(MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_IMPORT_USERS))
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY + " " + UserImportAPIConstants.USER_DEACTIVATION_LISTING_FAILED))
+      .body(ERROR, equalTo(UserImportAPIConstants.USER_SCHEMA_MISMATCH))
       .body(TOTAL_RECORDS, equalTo(1))
       .body(CREATED_RECORDS, equalTo(0))
       .body(UPDATED_RECORDS, equalTo(0))
@@ -592,7 +1154,7 @@ public class UserImportAPITest {
       .body(FAILED_USERS, hasSize(1))
       .body(FAILED_USERS + "[0]." + EXTERNAL_SYSTEM_ID, equalTo(users.get(0).getExternalSystemId()))
       .body(FAILED_USERS + "[0]." + USERNAME, equalTo(users.get(0).getUsername()))
-      .body(FAILED_USERS + "[0]." + USER_ERROR_MESSAGE, equalTo(UserImportAPIConstants.USER_SCHEMA_MISMATCH))
+      .body(FAILED_USERS + "[0]." + USER_ERROR_MESSAGE, equalTo(resultMessageBuilder.toString()))
       .statusCode(500);
   }
 
@@ -665,6 +1227,8 @@ public class UserImportAPITest {
       .body(UPDATED_RECORDS, equalTo(10))
       .body(FAILED_RECORDS, equalTo(0))
       .body(FAILED_USERS, hasSize(0))
+      .body(DEACTIVATED_RECORDS, equalTo(1))
+      .body(FAILED_DEACTIVATIONS, equalTo(0))
       .statusCode(200);
   }
 
@@ -970,6 +1534,8 @@ public class UserImportAPITest {
       .body(UPDATED_RECORDS, equalTo(0))
       .body(FAILED_RECORDS, equalTo(0))
       .body(FAILED_USERS, hasSize(0))
+      .body(DEACTIVATED_RECORDS, equalTo(1))
+      .body(FAILED_DEACTIVATIONS, equalTo(0))
       .statusCode(200);
   }
 
@@ -995,12 +1561,14 @@ public class UserImportAPITest {
       .body(collection)
       .post(USER_IMPORT)
       .then()
-      .body(MESSAGE, equalTo("Deactivated missing users."))
+      .body(MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_DEACTIVATE_USERS))
       .body(TOTAL_RECORDS, equalTo(1))
       .body(CREATED_RECORDS, equalTo(1))
       .body(UPDATED_RECORDS, equalTo(0))
       .body(FAILED_RECORDS, equalTo(0))
       .body(FAILED_USERS, hasSize(0))
+      .body(DEACTIVATED_RECORDS, equalTo(0))
+      .body(FAILED_DEACTIVATIONS, equalTo(1))
       .statusCode(200);
   }
 
@@ -1057,16 +1625,13 @@ public class UserImportAPITest {
       .body(collection)
       .post(USER_IMPORT)
       .then()
-      .body(MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_IMPORT_USERS))
-      .body(ERROR, equalTo(UserImportAPIConstants.FAILED_TO_IMPORT_USERS + UserImportAPIConstants.ERROR_MESSAGE + UserImportAPIConstants.FAILED_TO_PROCESS_USER_SEARCH_RESULT))
+      .body(MESSAGE, equalTo(UserImportAPIConstants.USERS_WERE_IMPORTED_SUCCESSFULLY + " " + UserImportAPIConstants.USER_DEACTIVATION_LISTING_FAILED))
+      .body(ERROR, equalTo(UserImportAPIConstants.FAILED_TO_LIST_USERS + UserImportAPIConstants.ERROR_MESSAGE + UserImportAPIConstants.FAILED_TO_PROCESS_USER_SEARCH_RESULT))
       .body(TOTAL_RECORDS, equalTo(1))
-      .body(CREATED_RECORDS, equalTo(0))
+      .body(CREATED_RECORDS, equalTo(1))
       .body(UPDATED_RECORDS, equalTo(0))
-      .body(FAILED_RECORDS, equalTo(1))
-      .body(FAILED_USERS + "[0]." + EXTERNAL_SYSTEM_ID, equalTo(users.get(0).getExternalSystemId()))
-      .body(FAILED_USERS + "[0]." + USERNAME, equalTo(users.get(0).getUsername()))
-      .body(FAILED_USERS + "[0]." + USER_ERROR_MESSAGE, equalTo(UserImportAPIConstants.FAILED_TO_IMPORT_USERS + UserImportAPIConstants.ERROR_MESSAGE + UserImportAPIConstants.FAILED_TO_PROCESS_USER_SEARCH_RESULT))
-      .body(FAILED_USERS, hasSize(1))
+      .body(FAILED_RECORDS, equalTo(0))
+      .body(FAILED_USERS, hasSize(0))
       .statusCode(500);
   }
 
@@ -1122,4 +1687,12 @@ public class UserImportAPITest {
     user.setPersonal(personal);
     return user;
   }
+
+  private static byte[] gzip(String text) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
 }
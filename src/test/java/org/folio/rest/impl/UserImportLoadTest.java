@@ -0,0 +1,200 @@
+package org.folio.rest.impl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.folio.rest.RestVerticle;
+import org.folio.rest.tools.client.test.HttpClientMock2;
+import org.folio.rest.util.UserImportAPIConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+/**
+ * Imports generated users against a local mock Okapi and reports throughput, import durations, heap usage and the number
+ * of requests and connections to Okapi, once with the RMB client (HTTP/1.1) and once with HTTP/2 (h2c).
+ *
+ * Not run by default, use <code>mvn test -Pload-test</code>. Settings (system properties):
+ * - loadtest.sizes: comma separated import sizes (default 1000)
+ * - loadtest.iterations: imports per size (default 3)
+ * - loadtest.existingRatio: ratio of the imported users that already exist (default 0.5)
+ * - loadtest.latencyMs: latency of the mock Okapi (default 5)
+ * - loadtest.errorRate: ratio of the failed mock Okapi requests (default 0)
+ * - loadtest.minThroughput: minimum users per second, the test fails under it (default 0)
+ * - loadtest.protocols: comma separated clients of the requests to Okapi, <code>http1</code> (the RMB client) and
+ *   <code>http2</code> (h2c), every size is imported with every client (default http1,http2)
+ */
+@RunWith(VertxUnitRunner.class)
+public class UserImportLoadTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UserImportLoadTest.class);
+
+  private static final int PORT = 8082;
+  private static final int OKAPI_PORT = 9131;
+  private static final long IMPORT_TIMEOUT_MS = 30 * 60 * 1000L;
+
+  private Vertx vertx;
+  private MockOkapiServer okapi;
+  private HttpClient client;
+
+  @Before
+  public void setUp(TestContext context) {
+    System.clearProperty(HttpClientMock2.MOCK_MODE);
+    vertx = Vertx.vertx();
+    okapi = new MockOkapiServer(vertx, Long.getLong("loadtest.latencyMs", 5),
+      Double.parseDouble(System.getProperty("loadtest.errorRate", "0")));
+    client = vertx.createHttpClient(new HttpClientOptions().setDefaultPort(PORT).setIdleTimeout(0));
+
+    Async okapiStarted = context.async();
+    okapi.start(OKAPI_PORT, context.asyncAssertSuccess(server -> okapiStarted.complete()));
+    okapiStarted.awaitSuccess();
+
+    DeploymentOptions options = new DeploymentOptions()
+      .setConfig(new JsonObject().put("http.port", PORT));
+    vertx.deployVerticle(new RestVerticle(), options, context.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    System.clearProperty(UserImportAPIConstants.CONFIG_HTTP2_ENABLED);
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testImportThroughput(TestContext context) {
+    int iterations = Integer.getInteger("loadtest.iterations", 3);
+    double existingRatio = Double.parseDouble(System.getProperty("loadtest.existingRatio", "0.5"));
+    double minThroughput = Double.parseDouble(System.getProperty("loadtest.minThroughput", "0"));
+
+    for (String protocol : System.getProperty("loadtest.protocols", "http1,http2").split(",")) {
+      System.setProperty(UserImportAPIConstants.CONFIG_HTTP2_ENABLED, Boolean.toString("http2".equals(protocol.trim())));
+      for (String size : System.getProperty("loadtest.sizes", "1000").split(",")) {
+        importUsers(context, protocol.trim(), Integer.parseInt(size.trim()), iterations, existingRatio, minThroughput);
+      }
+    }
+  }
+
+  private void importUsers(TestContext context, String protocol, int userCount, int iterations, double existingRatio,
+    double minThroughput) {
+    List<Long> durations = new ArrayList<>();
+    long heapPeak = 0;
+    long requests = 0;
+    long connections = 0;
+
+    for (int i = 0; i < iterations; i++) {
+      okapi.reset();
+      List<String> externalSystemIds = generateExternalSystemIds(userCount);
+      okapi.addUsers(externalSystemIds.subList(0, (int) (userCount * existingRatio)));
+      String body = generateImport(externalSystemIds).encode();
+
+      resetHeapPeak();
+      long start = System.nanoTime();
+      JsonObject response = postImport(context, body);
+      durations.add((System.nanoTime() - start) / 1000000);
+      heapPeak = Math.max(heapPeak, getHeapPeak());
+      requests += okapi.getTotalRequestCount();
+      connections += okapi.getConnectionCount();
+
+      LOGGER.info("Import of " + userCount + " users: " + response.encode());
+      LOGGER.info("Mock Okapi requests: " + okapi.getRequestCounts());
+    }
+
+    Collections.sort(durations);
+    long totalMs = durations.stream().mapToLong(Long::longValue).sum();
+    double throughput = totalMs == 0 ? userCount * iterations : userCount * iterations * 1000.0 / totalMs;
+    LOGGER.info(String.format("Load test: protocol=%s users=%d iterations=%d throughput=%.1f users/s importMinMs=%d importMedianMs=%d importMaxMs=%d heapPeak=%dMB okapiRequests/import=%d okapiConnections/import=%d",
+      protocol, userCount, iterations, throughput, durations.get(0), median(durations), durations.get(durations.size() - 1),
+      heapPeak / (1024 * 1024), requests / iterations, connections / iterations));
+
+    context.assertTrue(throughput >= minThroughput,
+      "Throughput " + throughput + " users/s is under the minimum " + minThroughput + " for " + userCount + " users");
+  }
+
+  private JsonObject postImport(TestContext context, String body) {
+    Async async = context.async();
+    Future<JsonObject> result = Future.future();
+    client.post("/user-import", response -> response.bodyHandler(buffer -> {
+      context.assertEquals(200, response.statusCode(), buffer.toString());
+      result.complete(buffer.toJsonObject());
+      async.complete();
+    }))
+      .setTimeout(IMPORT_TIMEOUT_MS)
+      .exceptionHandler(context::fail)
+      .putHeader("X-Okapi-Tenant", "load-test")
+      .putHeader("X-Okapi-Token", "load-test")
+      .putHeader("X-Okapi-Url", "http://localhost:" + OKAPI_PORT)
+      .putHeader("Content-Type", "application/json")
+      .putHeader("Accept", "application/json, text/plain")
+      .end(body);
+    async.awaitSuccess(IMPORT_TIMEOUT_MS);
+    return result.result();
+  }
+
+  private static List<String> generateExternalSystemIds(int count) {
+    List<String> externalSystemIds = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      externalSystemIds.add(String.format("load%08d", i));
+    }
+    return externalSystemIds;
+  }
+
+  private static JsonObject generateImport(List<String> externalSystemIds) {
+    JsonArray users = new JsonArray();
+    for (String externalSystemId : externalSystemIds) {
+      users.add(new JsonObject()
+        .put("username", externalSystemId)
+        .put("externalSystemId", externalSystemId)
+        .put("active", true)
+        .put("patronGroup", MockOkapiServer.PATRON_GROUP)
+        .put("personal", new JsonObject()
+          .put("lastName", "Load")
+          .put("firstName", externalSystemId)
+          .put("email", externalSystemId + "@example.org")
+          .put("addresses", new JsonArray().add(new JsonObject()
+            .put("addressLine1", "Main street 1")
+            .put("city", "Test")
+            .put("addressTypeId", MockOkapiServer.ADDRESS_TYPE)))));
+    }
+    return new JsonObject().put("users", users).put("totalRecords", externalSystemIds.size());
+  }
+
+  /**
+   * Get the median of a few sorted values, there are too few imports per size for higher percentiles.
+   */
+  private static long median(List<Long> sortedValues) {
+    int middle = sortedValues.size() / 2;
+    return sortedValues.size() % 2 == 1 ? sortedValues.get(middle) : (sortedValues.get(middle - 1) + sortedValues.get(middle)) / 2;
+  }
+
+  private static void resetHeapPeak() {
+    heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+  }
+
+  private static long getHeapPeak() {
+    return heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+  }
+
+  private static List<MemoryPoolMXBean> heapPools() {
+    List<MemoryPoolMXBean> pools = new ArrayList<>(ManagementFactory.getMemoryPoolMXBeans());
+    pools.removeIf(pool -> pool.getType() != MemoryType.HEAP);
+    return pools;
+  }
+}
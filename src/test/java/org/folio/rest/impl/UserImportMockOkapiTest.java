@@ -0,0 +1,205 @@
+package org.folio.rest.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.folio.rest.RestVerticle;
+import org.folio.rest.tools.client.test.HttpClientMock2;
+import org.folio.rest.util.UserImportAPIConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+
+/**
+ * Tests against a local mock Okapi for the cases the mocked RMB client cannot reproduce, e.g. slow responses or
+ * paged user searches.
+ */
+@RunWith(VertxUnitRunner.class)
+public class UserImportMockOkapiTest {
+
+  private static final int PORT = 8083;
+  private static final int OKAPI_PORT = 9132;
+  private static final long LATENCY_MS = 20;
+  private static final int USER_COUNT = 300;
+  private static final int TIMEOUT_MS = 300;
+  private static final int EXPORT_PAGE_SIZE = 10;
+
+  private Vertx vertx;
+  private MockOkapiServer okapi;
+  private HttpClient client;
+
+  @Before
+  public void setUp(TestContext context) {
+    System.clearProperty(HttpClientMock2.MOCK_MODE);
+    vertx = Vertx.vertx();
+    okapi = new MockOkapiServer(vertx, LATENCY_MS, 0);
+    client = vertx.createHttpClient(new HttpClientOptions().setDefaultPort(PORT));
+
+    Async okapiStarted = context.async();
+    okapi.start(OKAPI_PORT, context.asyncAssertSuccess(server -> okapiStarted.complete()));
+    okapiStarted.awaitSuccess();
+
+    DeploymentOptions options = new DeploymentOptions()
+      .setConfig(new JsonObject()
+        .put("http.port", PORT)
+        .put(UserImportAPIConstants.CONFIG_PARTITION_SIZE, 10)
+        .put(UserImportAPIConstants.CONFIG_MAX_PARTITIONS_IN_FLIGHT, 1)
+        .put(UserImportAPIConstants.CONFIG_EXPORT_PAGE_SIZE, EXPORT_PAGE_SIZE));
+    vertx.deployVerticle(new RestVerticle(), options, context.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext context) {
+    vertx.close(context.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testStoppedImportCountsUnreadUsers(TestContext context) {
+    List<String> externalSystemIds = generateExternalSystemIds(USER_COUNT);
+    okapi.addUsers(externalSystemIds.subList(0, USER_COUNT / 2));
+    JsonObject body = generateImport(externalSystemIds).put("timeoutMs", TIMEOUT_MS);
+
+    JsonObject response = post(context, "/user-import", "application/json", body.encode());
+
+    context.assertEquals(UserImportAPIConstants.FAILED_TO_IMPORT_USERS, response.getString("message"));
+    context.assertEquals(UserImportAPIConstants.IMPORT_DEADLINE_EXCEEDED, response.getString("error"));
+    context.assertTrue(response.getInteger("notAttemptedRecords") > 0, response.encode());
+    context.assertEquals(USER_COUNT, response.getInteger("totalRecords"));
+    context.assertEquals(USER_COUNT, response.getInteger("createdRecords") + response.getInteger("updatedRecords")
+      + response.getInteger("failedRecords") + response.getInteger("notAttemptedRecords"), response.encode());
+  }
+
+  @Test
+  public void testStoppedCsvImportReportsUncountedUsers(TestContext context) {
+    StringBuilder csv = new StringBuilder("externalSystemId,username,active,patronGroup,personal.lastName\n");
+    for (String externalSystemId : generateExternalSystemIds(USER_COUNT)) {
+      csv.append(externalSystemId).append(',').append(externalSystemId).append(",true,")
+        .append(MockOkapiServer.PATRON_GROUP).append(",Test\n");
+    }
+
+    JsonObject response = post(context, "/user-import/csv?timeoutMs=" + TIMEOUT_MS, "application/octet-stream", csv.toString());
+
+    context.assertEquals(UserImportAPIConstants.FAILED_TO_IMPORT_USERS, response.getString("message"));
+    context.assertEquals(UserImportAPIConstants.IMPORT_DEADLINE_EXCEEDED + " " + UserImportAPIConstants.UNREAD_USERS_NOT_COUNTED,
+      response.getString("error"));
+    context.assertTrue(response.getInteger("totalRecords") < USER_COUNT, response.encode());
+    context.assertEquals(response.getInteger("totalRecords"), response.getInteger("createdRecords") + response.getInteger("updatedRecords")
+      + response.getInteger("failedRecords") + response.getInteger("notAttemptedRecords"), response.encode());
+  }
+
+  @Test
+  public void testExportInPages(TestContext context) {
+    List<String> externalSystemIds = new ArrayList<>();
+    for (int i = 0; i < EXPORT_PAGE_SIZE * 2 + 5; i++) {
+      externalSystemIds.add(String.format("mock_%05d", i));
+    }
+    okapi.addUsers(externalSystemIds);
+    okapi.addUsers(Arrays.asList("other_00000", "other_00001"));
+
+    String body = send(context, HttpMethod.GET, "/user-import/export?sourceType=mock&fields=externalSystemId", null, null).toString();
+
+    List<String> exported = new ArrayList<>();
+    for (String line : body.split("\n")) {
+      exported.add(new JsonObject(line).getString("externalSystemId"));
+    }
+    context.assertEquals(externalSystemIds, exported);
+    context.assertEquals(3L, okapi.getRequestCounts().get("GET /users"));
+  }
+
+  @Test
+  public void testExportWithShortPages(TestContext context) {
+    List<String> externalSystemIds = new ArrayList<>();
+    for (int i = 0; i < EXPORT_PAGE_SIZE * 2 + 5; i++) {
+      externalSystemIds.add(String.format("mock_%05d", i));
+    }
+    okapi.addUsers(externalSystemIds);
+    okapi.setMaxLimit(EXPORT_PAGE_SIZE - 3);
+
+    String body = send(context, HttpMethod.GET, "/user-import/export?sourceType=mock&fields=externalSystemId", null, null).toString();
+
+    List<String> exported = new ArrayList<>();
+    for (String line : body.split("\n")) {
+      exported.add(new JsonObject(line).getString("externalSystemId"));
+    }
+    context.assertEquals(externalSystemIds, exported);
+    context.assertEquals(4L, okapi.getRequestCounts().get("GET /users"));
+  }
+
+  @Test
+  public void testUpsertSearchesWhileValidatingWithCachedReferenceData(TestContext context) {
+    List<String> externalSystemIds = generateExternalSystemIds(2);
+    okapi.addUsers(externalSystemIds.subList(1, 2));
+    JsonArray users = generateImport(externalSystemIds).getJsonArray("users");
+
+    JsonObject created = post(context, "/user-import/user", "application/json", users.getJsonObject(0).encode());
+
+    context.assertEquals(1, created.getInteger("createdRecords"), created.encode());
+    context.assertEquals(3L, okapi.getMaxConcurrentRequests(), okapi.getRequestCounts().toString());
+
+    JsonObject updated = post(context, "/user-import/user", "application/json", users.getJsonObject(1).encode());
+
+    context.assertEquals(1, updated.getInteger("updatedRecords"), updated.encode());
+    context.assertEquals(1L, okapi.getRequestCounts().get("GET /groups"));
+    context.assertEquals(1L, okapi.getRequestCounts().get("GET /addresstypes"));
+    context.assertEquals(2L, okapi.getRequestCounts().get("GET /users"));
+  }
+
+  private JsonObject post(TestContext context, String uri, String contentType, String body) {
+    return send(context, HttpMethod.POST, uri, contentType, body).toJsonObject();
+  }
+
+  private Buffer send(TestContext context, HttpMethod method, String uri, String contentType, String body) {
+    Async async = context.async();
+    Future<Buffer> result = Future.future();
+    client.request(method, uri, response -> response.bodyHandler(buffer -> {
+      context.assertEquals(200, response.statusCode(), buffer.toString());
+      result.complete(buffer);
+      async.complete();
+    }))
+      .exceptionHandler(context::fail)
+      .putHeader("X-Okapi-Tenant", "mock-okapi-test")
+      .putHeader("X-Okapi-Token", "mock-okapi-test")
+      .putHeader("X-Okapi-Url", "http://localhost:" + OKAPI_PORT)
+      .putHeader("Content-Type", contentType == null ? "application/json" : contentType)
+      .putHeader("Accept", "application/json, application/x-ndjson, text/plain")
+      .end(body == null ? "" : body);
+    async.awaitSuccess();
+    return result.result();
+  }
+
+  private static List<String> generateExternalSystemIds(int count) {
+    List<String> externalSystemIds = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      externalSystemIds.add(String.format("mock%05d", i));
+    }
+    return externalSystemIds;
+  }
+
+  private static JsonObject generateImport(List<String> externalSystemIds) {
+    JsonArray users = new JsonArray();
+    for (String externalSystemId : externalSystemIds) {
+      users.add(new JsonObject()
+        .put("username", externalSystemId)
+        .put("externalSystemId", externalSystemId)
+        .put("active", true)
+        .put("patronGroup", MockOkapiServer.PATRON_GROUP)
+        .put("personal", new JsonObject().put("lastName", "Test")));
+    }
+    return new JsonObject().put("users", users).put("totalRecords", externalSystemIds.size());
+  }
+}
@@ -0,0 +1,104 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.folio.rest.tools.client.Response;
+import org.junit.Test;
+
+import io.vertx.core.MultiMap;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+  @Test
+  public void testRequestsOverTheLimitWait() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(null, 2, 1, 10, 60000, 0);
+    List<CompletableFuture<Response>> sent = new ArrayList<>();
+    List<CompletableFuture<Response>> results = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      results.add(limiter.execute(() -> send(sent)));
+    }
+    assertEquals(2, sent.size());
+    assertEquals(1, limiter.getQueued());
+
+    sent.get(0).complete(response(200, null));
+    assertSame(sent.get(0).join(), results.get(0).join());
+    assertEquals(3, sent.size());
+    assertEquals(0, limiter.getQueued());
+  }
+
+  @Test
+  public void testFastResponsesRaiseTheLimit() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(null, 2, 1, 4, 60000, 0);
+    for (int i = 0; i < 100; i++) {
+      limiter.execute(() -> CompletableFuture.completedFuture(response(200, null)));
+    }
+    assertEquals(4, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testSlowResponsesLowerTheLimit() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(null, 10, 2, 10, 0, 0);
+    limiter.execute(() -> CompletableFuture.completedFuture(response(200, null)));
+    assertEquals(9, limiter.getLimit());
+    for (int i = 0; i < 100; i++) {
+      limiter.execute(() -> CompletableFuture.completedFuture(response(200, null)));
+    }
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  public void testThrottledRequestsAreRetried() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(null, 8, 1, 10, 60000, 2);
+    List<CompletableFuture<Response>> sent = new ArrayList<>();
+    CompletableFuture<Response> result = limiter.execute(() -> send(sent));
+
+    sent.get(0).complete(response(429, "0"));
+    assertEquals(4, limiter.getLimit());
+    assertEquals(2, sent.size());
+    assertFalse(result.isDone());
+
+    sent.get(1).complete(response(503, "0"));
+    assertEquals(2, limiter.getLimit());
+    assertEquals(3, sent.size());
+    sent.get(2).complete(response(201, null));
+    assertEquals(201, result.join().getCode());
+  }
+
+  @Test
+  public void testLastThrottledResponseIsReturned() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(null, 8, 1, 10, 60000, 0);
+    CompletableFuture<Response> result = limiter.execute(() -> CompletableFuture.completedFuture(response(429, "0")));
+    assertEquals(429, result.join().getCode());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testRetryAfter() {
+    assertEquals(3000, AdaptiveConcurrencyLimiter.getRetryAfterMs(response(429, "3")));
+    assertEquals(UserImportAPIConstants.DEFAULT_CONCURRENCY_RETRY_AFTER_MS, AdaptiveConcurrencyLimiter.getRetryAfterMs(response(429, null)));
+    assertEquals(UserImportAPIConstants.DEFAULT_CONCURRENCY_RETRY_AFTER_MS,
+      AdaptiveConcurrencyLimiter.getRetryAfterMs(response(503, "Wed, 21 Oct 2015 07:28:00 GMT")));
+  }
+
+  private static CompletableFuture<Response> send(List<CompletableFuture<Response>> sent) {
+    CompletableFuture<Response> response = new CompletableFuture<>();
+    sent.add(response);
+    return response;
+  }
+
+  private static Response response(int code, String retryAfter) {
+    Response response = new Response();
+    response.setCode(code);
+    MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+    if (retryAfter != null) {
+      headers.add(UserImportAPIConstants.HTTP_HEADER_RETRY_AFTER, retryAfter);
+    }
+    response.setHeaders(headers);
+    return response;
+  }
+}
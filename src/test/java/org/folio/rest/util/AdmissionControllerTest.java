@@ -0,0 +1,77 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import org.folio.rest.model.ImportRejectedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+public class AdmissionControllerTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  public void testRejectOverBudget() {
+    AdmissionController controller = new AdmissionController(vertx, 1000, false, 0, 1000, 15);
+
+    assertTrue(controller.acquire(600).succeeded());
+    Future<Void> rejected = controller.acquire(600);
+
+    assertTrue(rejected.failed());
+    assertTrue(rejected.cause() instanceof ImportRejectedException);
+    assertEquals(15, ((ImportRejectedException) rejected.cause()).getRetryAfterSeconds());
+
+    controller.release(600);
+    assertTrue(controller.acquire(600).succeeded());
+  }
+
+  @Test
+  public void testImportOverWholeBudgetIsAdmittedAlone() {
+    AdmissionController controller = new AdmissionController(vertx, 1000, false, 0, 1000, 15);
+
+    assertTrue(controller.acquire(5000).succeeded());
+    assertTrue(controller.acquire(1).failed());
+  }
+
+  @Test
+  public void testQueueUntilReleased() {
+    AdmissionController controller = new AdmissionController(vertx, 1000, true, 1, 60000, 15);
+
+    assertTrue(controller.acquire(800).succeeded());
+    Future<Void> queued = controller.acquire(800);
+    assertFalse(queued.isComplete());
+    assertEquals(1, controller.getQueuedImports());
+
+    assertTrue(controller.acquire(800).failed());
+
+    controller.release(800);
+    assertTrue(queued.succeeded());
+    assertEquals(800, controller.getInFlightBytes());
+  }
+
+  @Test
+  public void testEstimateCost() {
+    assertEquals(3000 + 2 * 2048, AdmissionController.estimateCost(2, 1000));
+    assertEquals(3 * 1024 * 1024 + 2048, AdmissionController.estimateCost(1, -1));
+  }
+
+  @Test
+  public void testEstimateStreamingCost() {
+    assertEquals(1024 * 1024 + 100 * 4 * 2048, AdmissionController.estimateStreamingCost(100, 4));
+    assertTrue(AdmissionController.estimateStreamingCost(0, 0) > 0);
+  }
+}
@@ -0,0 +1,38 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ConfigurationUtilTest {
+
+  private static final String KEY = "userImport.test.size";
+
+  @After
+  public void tearDown() {
+    System.clearProperty(KEY);
+  }
+
+  @Test
+  public void testPositiveValue() {
+    System.setProperty(KEY, "25");
+    assertEquals(25, ConfigurationUtil.getPositiveInt(null, KEY, 10));
+    assertEquals(25L, ConfigurationUtil.getPositiveLong(null, KEY, 10L));
+  }
+
+  @Test
+  public void testValueNotPositiveFallsBackToDefault() {
+    System.setProperty(KEY, "0");
+    assertEquals(10, ConfigurationUtil.getPositiveInt(null, KEY, 10));
+    System.setProperty(KEY, "-5");
+    assertEquals(10, ConfigurationUtil.getPositiveInt(null, KEY, 10));
+    assertEquals(10L, ConfigurationUtil.getPositiveLong(null, KEY, 10L));
+  }
+
+  @Test
+  public void testMissingValue() {
+    assertEquals(10, ConfigurationUtil.getPositiveInt(null, KEY, 10));
+    assertEquals(0, ConfigurationUtil.getInt(null, KEY, 0));
+  }
+}
@@ -0,0 +1,109 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.folio.rest.util.CqlQueryBuilder.UserSearchQuery;
+import org.junit.Test;
+
+public class CqlQueryBuilderTest {
+
+  @Test
+  public void testCqlQuote() {
+    assertEquals("\"amy_cabble\"", CqlQueryBuilder.cqlQuote("amy_cabble"));
+    assertEquals("\"a \\\"b\\\" c\"", CqlQueryBuilder.cqlQuote("a \"b\" c"));
+    assertEquals("\"\\\\\\*\\?\\^\"", CqlQueryBuilder.cqlQuote("\\*?^"));
+    assertEquals("\"\"", CqlQueryBuilder.cqlQuote(null));
+  }
+
+  @Test
+  public void testUrlEncode() {
+    assertEquals("externalSystemId%3D%3D%28%22amy_cabble%22%29", CqlQueryBuilder.urlEncode("externalSystemId==(\"amy_cabble\")"));
+    assertEquals("a+or+b", CqlQueryBuilder.urlEncode("a or b"));
+    assertEquals("externalSystemId%3D%5Etest_%2A", CqlQueryBuilder.urlEncode("externalSystemId=^test_*"));
+    assertEquals("%C3%A1%7B%7D%25~", CqlQueryBuilder.urlEncode("á{}%~"));
+  }
+
+  @Test
+  public void testUserSearchUrl() {
+    assertEquals("/users?query=externalSystemId%3C%3E%27%27&limit=10&offset=20&orderBy=externalSystemId&order=asc",
+      CqlQueryBuilder.userSearchUrl("externalSystemId<>''", 10, 20));
+  }
+
+  @Test
+  public void testKeysetUserSearchUrl() {
+    assertEquals("externalSystemId=\"^test\\*_*\"", CqlQueryBuilder.externalSystemIdQuery("test*"));
+    assertEquals("externalSystemId=\"^a b\\\"c_*\"", CqlQueryBuilder.externalSystemIdQuery("a b\"c"));
+    assertEquals("externalSystemId<>''", CqlQueryBuilder.externalSystemIdQuery(null));
+    assertEquals("/users?query=externalSystemId%3C%3E%27%27+sortBy+externalSystemId%2Fsort.ascending+id%2Fsort.ascending&limit=100&offset=0",
+      CqlQueryBuilder.keysetUserSearchUrl("externalSystemId<>''", null, null, 100));
+    assertEquals("/users?query=" + CqlQueryBuilder.urlEncode("(externalSystemId<>'') and (externalSystemId>\"test_12\" or "
+      + "(externalSystemId==\"test_12\" and id>\"7\")) sortBy externalSystemId/sort.ascending id/sort.ascending") + "&limit=100&offset=0",
+      CqlQueryBuilder.keysetUserSearchUrl("externalSystemId<>''", "test_12", "7", 100));
+  }
+
+  @Test
+  public void testSingleQuery() {
+    List<UserSearchQuery> queries = new CqlQueryBuilder(CqlQueryBuilder.DEFAULT_MAX_URL_LENGTH)
+      .buildExternalSystemIdQueries(Arrays.asList("11_12", "21_22"));
+
+    assertEquals(1, queries.size());
+    assertEquals(2, queries.get(0).getSize());
+    assertEquals("/users?query=externalSystemId%3D%3D%28%2211_12%22+or+%2221_22%22%29&limit=4&offset=0&orderBy=externalSystemId&order=asc",
+      queries.get(0).getUrl());
+  }
+
+  @Test
+  public void testFieldQuery() {
+    List<UserSearchQuery> queries = new CqlQueryBuilder(CqlQueryBuilder.DEFAULT_MAX_URL_LENGTH)
+      .buildQueries("username", Arrays.asList("amy", "bob"));
+
+    assertEquals(1, queries.size());
+    assertEquals("/users?query=username%3D%3D%28%22amy%22+or+%22bob%22%29&limit=4&offset=0&orderBy=username&order=asc",
+      queries.get(0).getUrl());
+    assertTrue(new CqlQueryBuilder(CqlQueryBuilder.DEFAULT_MAX_URL_LENGTH).buildQueries("barcode", new ArrayList<>()).isEmpty());
+  }
+
+  @Test
+  public void testChunkingByUrlLength() {
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      ids.add("test_" + String.format("%08d", i));
+    }
+    int maxUrlLength = 1000;
+
+    List<UserSearchQuery> queries = new CqlQueryBuilder(maxUrlLength).buildExternalSystemIdQueries(ids);
+
+    assertTrue(queries.size() > 1);
+    int total = 0;
+    for (UserSearchQuery query : queries) {
+      assertTrue(query.getUrl().length() <= maxUrlLength);
+      assertTrue(query.getUrl().contains("&limit=" + query.getSize() * 2 + "&"));
+      total += query.getSize();
+    }
+    assertEquals(ids.size(), total);
+    assertTrue(queries.get(0).getSize() > 10);
+  }
+
+  @Test
+  public void testTooLongIdGetsOwnQuery() {
+    StringBuilder longId = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      longId.append('x');
+    }
+
+    List<UserSearchQuery> queries = new CqlQueryBuilder(200)
+      .buildExternalSystemIdQueries(Arrays.asList("a", longId.toString(), "b"));
+
+    assertEquals(3, queries.size());
+    assertEquals(1, queries.get(1).getSize());
+  }
+
+  @Test
+  public void testEmptyIdList() {
+    assertTrue(new CqlQueryBuilder(200).buildExternalSystemIdQueries(new ArrayList<>()).isEmpty());
+  }
+}
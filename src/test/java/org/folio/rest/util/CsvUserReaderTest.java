@@ -0,0 +1,101 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.ImportFormatException;
+import org.junit.Test;
+
+public class CsvUserReaderTest {
+
+  private static CsvUserReader reader(String csv, char delimiter, String mapping) {
+    return new CsvUserReader(new StringReader(csv), delimiter, CsvColumnMapping.parse(mapping));
+  }
+
+  @Test
+  public void testReadRecords() throws IOException {
+    CsvUserReader reader = reader("a,\"b,c\",\"d \"\"e\"\"\"\r\n\"multi\nline\",,x\n", ',', null);
+    assertEquals(Arrays.asList("a", "b,c", "d \"e\""), reader.readRecord());
+    assertEquals(Arrays.asList("multi\nline", "", "x"), reader.readRecord());
+    assertNull(reader.readRecord());
+  }
+
+  @Test
+  public void testHeaderNamesAsPaths() throws IOException {
+    CsvUserReader reader = reader("\uFEFFexternalSystemId,username,active,personal.lastName,personal.addresses.0.city\n"
+      + "amy_cabble,amy,true,Cabble,Springfield\n", ',', null);
+    List<User> users = reader.nextPartition(10);
+    assertEquals(1, users.size());
+    User user = users.get(0);
+    assertEquals("amy_cabble", user.getExternalSystemId());
+    assertEquals("amy", user.getUsername());
+    assertTrue(user.getActive());
+    assertEquals("Cabble", user.getPersonal().getLastName());
+    assertEquals("Springfield", user.getPersonal().getAddresses().get(0).getCity());
+    assertTrue(reader.nextPartition(10).isEmpty());
+  }
+
+  @Test
+  public void testColumnMappingAndPartitions() throws IOException {
+    CsvUserReader reader = reader("EMPLID;NETID;IGNORED\n1;user1;x\n\n2;user2;y\n3;user3;z\n", ';', "EMPLID:externalSystemId, NETID:username");
+    List<User> first = reader.nextPartition(2);
+    assertEquals(2, first.size());
+    assertEquals("1", first.get(0).getExternalSystemId());
+    assertEquals("user2", first.get(1).getUsername());
+    List<User> second = reader.nextPartition(2);
+    assertEquals(1, second.size());
+    assertEquals("3", second.get(0).getExternalSystemId());
+    assertTrue(reader.nextPartition(2).isEmpty());
+  }
+
+  @Test
+  public void testEmptyInput() throws IOException {
+    assertTrue(reader("", ',', null).nextPartition(10).isEmpty());
+  }
+
+  @Test(expected = ImportFormatException.class)
+  public void testUnterminatedQuote() throws IOException {
+    reader("externalSystemId\n\"abc\n", ',', null).nextPartition(10);
+  }
+
+  @Test(expected = ImportFormatException.class)
+  public void testHugeArrayIndexInHeader() throws IOException {
+    reader("externalSystemId,personal.addresses.2000000000.city
+1,Springfield
+", ',', null).nextPartition(10);
+  }
+
+  @Test(expected = ImportFormatException.class)
+  public void testArrayIndexOverflowInHeader() throws IOException {
+    reader("externalSystemId,personal.addresses.99999999999.city
+1,Springfield
+", ',', null).readHeader();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testArrayIndexOverMaximumInMapping() {
+    CsvColumnMapping.parse("CITY:personal.addresses." + (CsvColumnMapping.MAX_ARRAY_INDEX + 1) + ".city");
+  }
+
+  @Test
+  public void testSparseArrayIndex() throws IOException {
+    CsvUserReader reader = reader("externalSystemId,personal.lastName,personal.addresses.5.city,personal.addresses.5.addressLine1,"
+      + "personal.addresses.2.city
+1,Cabble,Springfield,Main street 1,
+", ',', null);
+    User user = reader.nextPartition(10).get(0);
+    assertEquals(1, user.getPersonal().getAddresses().size());
+    assertEquals("Springfield", user.getPersonal().getAddresses().get(0).getCity());
+    assertEquals("Main street 1", user.getPersonal().getAddresses().get(0).getAddressLine1());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMapping() {
+    CsvColumnMapping.parse("EMPLID");
+  }
+}
@@ -0,0 +1,66 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.jaxrs.model.User;
+import org.junit.Test;
+
+public class DuplicateDetectorTest {
+
+  private static User user(String externalSystemId, String username, String barcode) {
+    return new User().withExternalSystemId(externalSystemId).withUsername(username).withBarcode(barcode);
+  }
+
+  @Test
+  public void testDuplicatesAcrossPartitions() {
+    DuplicateDetector detector = new DuplicateDetector();
+    List<User> first = detector.filter(Arrays.asList(user("1", "user1", "a"), user("2", "user2", "b"), user("1", "user1", "a")));
+    assertEquals(2, first.size());
+    List<User> second = detector.filter(Arrays.asList(user("2", "user2", "changed"), user("3", "user1", "c"), user("4", "user4", "d")));
+    assertEquals(1, second.size());
+    assertEquals("4", second.get(0).getExternalSystemId());
+
+    ImportResponse response = detector.getResponse();
+    assertEquals(1, response.getDuplicateRecords().intValue());
+    assertEquals(2, response.getFailedRecords().intValue());
+    assertEquals(3, response.getTotalRecords().intValue());
+    assertEquals(UserImportAPIConstants.DUPLICATE_EXTERNAL_SYSTEM_ID, response.getFailedUsers().get(0).getErrorMessage());
+    assertEquals(UserImportAPIConstants.DUPLICATE_USERNAME, response.getFailedUsers().get(1).getErrorMessage());
+  }
+
+  @Test
+  public void testManyUniqueUsers() {
+    DuplicateDetector detector = new DuplicateDetector();
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      users.add(user("id" + i, "user" + i, null));
+    }
+    assertEquals(5000, detector.filter(users).size());
+    assertTrue(detector.filter(users).isEmpty());
+    assertEquals(5000, detector.getResponse().getDuplicateRecords().intValue());
+    assertEquals(0, detector.getResponse().getFailedRecords().intValue());
+  }
+
+  @Test
+  public void testUsersWithoutExternalSystemId() {
+    DuplicateDetector detector = new DuplicateDetector();
+    assertEquals(2, detector.filter(Arrays.asList(user(null, "user1", null), user(null, "user1", null))).size());
+  }
+
+  @Test
+  public void testUsernamesDifferingInCase() {
+    DuplicateDetector detector = new DuplicateDetector();
+    List<User> accepted = detector.filter(Arrays.asList(user("1", "Amy.Cabble", null), user("2", "amy.cabble", null),
+      user("3", "AMY.CABBLE", null), user("4", "bob", null)));
+    assertEquals(2, accepted.size());
+    assertEquals("1", accepted.get(0).getExternalSystemId());
+    assertEquals("4", accepted.get(1).getExternalSystemId());
+    assertEquals(2, detector.getResponse().getFailedRecords().intValue());
+    assertEquals(UserImportAPIConstants.DUPLICATE_USERNAME, detector.getResponse().getFailedUsers().get(0).getErrorMessage());
+  }
+}
@@ -0,0 +1,44 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+public class EventLoopMonitorTest {
+
+  @Test
+  public void testLagOfBlockedEventLoop() throws InterruptedException {
+    Vertx vertx = Vertx.vertx();
+    try {
+      Context context = vertx.getOrCreateContext();
+      long blockedBefore = ImportMetrics.getCounter("eventLoop.blockedMs");
+      CountDownLatch blocked = new CountDownLatch(1);
+      context.runOnContext(v -> EventLoopMonitor.start(vertx, 10));
+      context.runOnContext(v -> {
+        sleep(300);
+        blocked.countDown();
+      });
+      assertTrue(blocked.await(10, TimeUnit.SECONDS));
+      Thread.sleep(100);
+
+      assertTrue(ImportMetrics.getGauges().get("eventLoop.maxLagMs").longValue() >= 200);
+      assertTrue(ImportMetrics.getCounter("eventLoop.blockedMs") - blockedBefore >= 200);
+    } finally {
+      vertx.close();
+    }
+  }
+
+  private static void sleep(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.folio.rest.tools.client.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+
+public class Http2OkapiClientTest {
+
+  private static final int PORT = 9132;
+  private static final String OKAPI_URL = "http://localhost:" + PORT;
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() throws Exception {
+    vertx = Vertx.vertx();
+    CompletableFuture<Void> started = new CompletableFuture<>();
+    vertx.createHttpServer()
+      .requestHandler(request -> request.bodyHandler(body -> {
+        if (request.path().equals("/missing")) {
+          request.response().setStatusCode(404).end("Not found");
+          return;
+        }
+        if (request.path().equals("/text")) {
+          request.response().setStatusCode(200).end("not json");
+          return;
+        }
+        if (request.path().equals("/slow")) {
+          return;
+        }
+        request.response()
+          .setStatusCode(request.method() == HttpMethod.POST ? 201 : 200)
+          .putHeader("Content-Type", "application/json")
+          .end(new JsonObject()
+            .put("version", request.version().name())
+            .put("method", request.method().name())
+            .put("path", request.uri())
+            .put("tenant", request.getHeader(UserImportAPIConstants.OKAPI_TENANT_HEADER))
+            .put("token", request.getHeader("X-Okapi-Token"))
+            .put("body", body.toString())
+            .encode());
+      }))
+      .listen(PORT, ar -> {
+        if (ar.succeeded()) {
+          started.complete(null);
+        } else {
+          started.completeExceptionally(ar.cause());
+        }
+      });
+    started.get(5, TimeUnit.SECONDS);
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  public void testGetIsSentOverH2c() throws Exception {
+    Http2OkapiClient client = new Http2OkapiClient(vertx, 10, 1);
+    Response response = client.request(OKAPI_URL, "diku", new Object[] { "/users?query=a" }).get(5, TimeUnit.SECONDS);
+
+    assertEquals(200, response.getCode());
+    assertEquals(HttpVersion.HTTP_2.name(), response.getBody().getString("version"));
+    assertEquals("GET", response.getBody().getString("method"));
+    assertEquals("/users?query=a", response.getBody().getString("path"));
+    assertEquals("diku", response.getBody().getString("tenant"));
+  }
+
+  @Test
+  public void testPostWithBodyAndHeaders() throws Exception {
+    Http2OkapiClient client = new Http2OkapiClient(vertx, 10, 1);
+    Map<String, String> headers = new HashMap<>();
+    headers.put("X-Okapi-Token", "token");
+    Response response = client.request(OKAPI_URL, "diku",
+      new Object[] { HttpMethod.POST, new JsonObject().put("username", "a"), "/users", headers }).get(5, TimeUnit.SECONDS);
+
+    assertEquals(201, response.getCode());
+    assertEquals("POST", response.getBody().getString("method"));
+    assertEquals("/users", response.getBody().getString("path"));
+    assertEquals("token", response.getBody().getString("token"));
+    assertEquals("a", new JsonObject(response.getBody().getString("body")).getString("username"));
+  }
+
+  @Test
+  public void testErrorResponse() throws Exception {
+    Http2OkapiClient client = new Http2OkapiClient(vertx, 10, 1);
+    Response response = client.request(OKAPI_URL, "diku", new Object[] { HttpMethod.GET, "/missing", new HashMap<>() })
+      .get(5, TimeUnit.SECONDS);
+
+    assertEquals(404, response.getCode());
+    assertNull(response.getBody());
+    assertNotNull(response.getError());
+  }
+
+  @Test
+  public void testInvalidJsonFailsRequest() throws Exception {
+    Http2OkapiClient client = new Http2OkapiClient(vertx, 10, 1);
+    try {
+      client.request(OKAPI_URL, "diku", new Object[] { "/text" }).get(5, TimeUnit.SECONDS);
+      fail("The request should fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof DecodeException);
+    }
+  }
+
+  @Test
+  public void testRequestTimeout() throws Exception {
+    Http2OkapiClient client = new Http2OkapiClient(vertx, 10, 1, 200);
+    try {
+      client.request(OKAPI_URL, "diku", new Object[] { "/slow" }).get(5, TimeUnit.SECONDS);
+      fail("The request should time out");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof java.util.concurrent.TimeoutException);
+    }
+  }
+
+  @Test
+  public void testUnsupportedRequests() {
+    assertNull(new Http2OkapiClient(vertx, 10, 1).request(OKAPI_URL, "diku", new Object[] { HttpMethod.GET }));
+    assertTrue(Http2OkapiClient.supports(OKAPI_URL));
+    assertFalse(Http2OkapiClient.supports("https://okapi.example.org"));
+  }
+}
@@ -0,0 +1,183 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.model.IdempotencyKeyReusedException;
+import org.junit.Test;
+
+import io.vertx.core.Future;
+
+public class IdempotencyStoreTest {
+
+  @Test
+  public void testRunningAndFinishedImports() {
+    IdempotencyStore store = new IdempotencyStore(10, 60000);
+    AtomicInteger runs = new AtomicInteger();
+    Future<ImportResponse> running = Future.future();
+
+    Future<ImportResponse> first = store.execute("diku", "key1", () -> {
+      runs.incrementAndGet();
+      return running;
+    });
+    Future<ImportResponse> attached = store.execute("diku", "key1", () -> {
+      runs.incrementAndGet();
+      return Future.future();
+    });
+    assertFalse(attached.isComplete());
+
+    ImportResponse response = new ImportResponse().withCreatedRecords(1);
+    running.complete(response);
+    assertSame(response, first.result());
+    assertSame(response, attached.result());
+
+    Future<ImportResponse> replayed = store.execute("diku", "key1", () -> {
+      runs.incrementAndGet();
+      return Future.succeededFuture(new ImportResponse());
+    });
+    assertSame(response, replayed.result());
+    assertEquals(1, runs.get());
+
+    store.execute("other", "key1", () -> {
+      runs.incrementAndGet();
+      return Future.succeededFuture(new ImportResponse());
+    });
+    assertEquals(2, runs.get());
+  }
+
+  @Test
+  public void testFailedImportIsNotCached() {
+    IdempotencyStore store = new IdempotencyStore(10, 60000);
+    AtomicInteger runs = new AtomicInteger();
+    for (int i = 0; i < 2; i++) {
+      store.execute("diku", "key1", () -> {
+        runs.incrementAndGet();
+        return Future.succeededFuture(new ImportResponse().withError("failed"));
+      });
+      store.execute("diku", "key2", () -> {
+        runs.incrementAndGet();
+        return Future.failedFuture("rejected");
+      });
+    }
+    assertEquals(4, runs.get());
+  }
+
+  @Test
+  public void testBoundedAndExpiringKeys() throws InterruptedException {
+    IdempotencyStore store = new IdempotencyStore(2, 50);
+    AtomicInteger runs = new AtomicInteger();
+    for (String key : new String[] { "a", "b", "c", "a" }) {
+      store.execute("diku", key, () -> {
+        runs.incrementAndGet();
+        return Future.succeededFuture(new ImportResponse());
+      });
+    }
+    assertEquals(4, runs.get());
+
+    Thread.sleep(100);
+    store.execute("diku", "a", () -> {
+      runs.incrementAndGet();
+      return Future.succeededFuture(new ImportResponse());
+    });
+    assertEquals(5, runs.get());
+  }
+
+  @Test
+  public void testWithoutKey() {
+    IdempotencyStore store = new IdempotencyStore(10, 60000);
+    AtomicInteger runs = new AtomicInteger();
+    store.execute("diku", null, () -> {
+      runs.incrementAndGet();
+      return Future.succeededFuture(new ImportResponse());
+    });
+    store.execute("diku", null, () -> {
+      runs.incrementAndGet();
+      return Future.succeededFuture(new ImportResponse());
+    });
+    assertEquals(2, runs.get());
+  }
+
+  @Test
+  public void testDisconnectWhileRetryIsAttached() {
+    IdempotencyStore store = new IdempotencyStore(10, 60000);
+    AtomicInteger abandoned = new AtomicInteger();
+    List<Runnable> disconnects = new ArrayList<>();
+    Future<ImportResponse> running = Future.future();
+
+    store.execute("diku", "key1", null, () -> running, disconnects::add, abandoned::incrementAndGet);
+    Future<ImportResponse> attached = store.execute("diku", "key1", null, Future::future, disconnects::add, abandoned::incrementAndGet);
+    assertEquals(2, disconnects.size());
+
+    disconnects.get(0).run();
+    assertEquals(0, abandoned.get());
+
+    disconnects.get(1).run();
+    assertEquals(1, abandoned.get());
+
+    running.complete(new ImportResponse());
+    assertTrue(attached.succeeded());
+  }
+
+  @Test
+  public void testRetryAfterDisconnectStartsNewImport() {
+    IdempotencyStore store = new IdempotencyStore(10, 60000);
+    AtomicInteger abandoned = new AtomicInteger();
+    List<Runnable> disconnects = new ArrayList<>();
+    Future<ImportResponse> cancelled = Future.future();
+    Future<ImportResponse> restarted = Future.future();
+
+    Future<ImportResponse> first = store.execute("diku", "key1", null, () -> cancelled, disconnects::add, abandoned::incrementAndGet);
+    disconnects.get(0).run();
+    assertEquals(1, abandoned.get());
+
+    Future<ImportResponse> retry = store.execute("diku", "key1", null, () -> restarted, disconnects::add, abandoned::incrementAndGet);
+    cancelled.complete(new ImportResponse().withError(UserImportAPIConstants.CLIENT_DISCONNECTED));
+    assertTrue(first.isComplete());
+    assertFalse(retry.isComplete());
+
+    ImportResponse response = new ImportResponse().withCreatedRecords(1);
+    restarted.complete(response);
+    assertSame(response, retry.result());
+    assertSame(response, store.execute("diku", "key1", Future::future).result());
+  }
+
+  @Test
+  public void testDisconnectAfterImportFinished() {
+    IdempotencyStore store = new IdempotencyStore(10, 60000);
+    AtomicInteger abandoned = new AtomicInteger();
+    List<Runnable> disconnects = new ArrayList<>();
+
+    store.execute("diku", "key1", null, () -> Future.succeededFuture(new ImportResponse()), disconnects::add, abandoned::incrementAndGet);
+    store.execute("diku", null, null, () -> Future.succeededFuture(new ImportResponse()), disconnects::add, abandoned::incrementAndGet);
+    disconnects.forEach(Runnable::run);
+    assertEquals(0, abandoned.get());
+  }
+
+  @Test
+  public void testKeyReusedForDifferentRequest() {
+    IdempotencyStore store = new IdempotencyStore(10, 60000);
+    AtomicInteger runs = new AtomicInteger();
+    String fingerprint = IdempotencyStore.fingerprint("/user-import", "{\"users\":[]}");
+    String otherFingerprint = IdempotencyStore.fingerprint("/user-import", "{\"users\":[{}]}");
+    Future<ImportResponse> running = Future.future();
+
+    store.execute("diku", "key1", fingerprint, () -> {
+      runs.incrementAndGet();
+      return running;
+    }, null, null);
+    Future<ImportResponse> reusedWhileRunning = store.execute("diku", "key1", otherFingerprint, Future::future, null, null);
+    assertTrue(reusedWhileRunning.cause() instanceof IdempotencyKeyReusedException);
+
+    ImportResponse response = new ImportResponse().withCreatedRecords(1);
+    running.complete(response);
+    Future<ImportResponse> reusedAfterwards = store.execute("diku", "key1", otherFingerprint, Future::future, null, null);
+    assertTrue(reusedAfterwards.cause() instanceof IdempotencyKeyReusedException);
+    assertSame(response, store.execute("diku", "key1", fingerprint, Future::future, null, null).result());
+    assertEquals(1, runs.get());
+    assertEquals(fingerprint, IdempotencyStore.fingerprint("/user-import", "{\"users\":[]}"));
+  }
+}
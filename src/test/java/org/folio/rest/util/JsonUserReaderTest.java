@@ -0,0 +1,117 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.ImportFormatException;
+import org.folio.rest.model.InvalidUser;
+import org.junit.Test;
+
+public class JsonUserReaderTest {
+
+  private static final String USERS = "[{\"externalSystemId\": \"1\", \"username\": \"user1\"},"
+    + " {\"externalSystemId\": \"2\", \"username\": \"user2\", \"personal\": {\"lastName\": \"Two\"}},"
+    + " {\"externalSystemId\": \"3\", \"username\": \"user3\"}]";
+
+  private static JsonUserReader reader(String json) throws IOException {
+    return new JsonUserReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testOptionsAndPartitions() throws IOException {
+    JsonUserReader reader = reader("{\"sourceType\": \"test\", \"deactivateMissingUsers\": true, \"extra\": {\"a\": [1]},"
+      + " \"users\": " + USERS + ", \"totalRecords\": 3, \"updateOnlyPresentFields\": false}");
+    assertEquals("test", reader.getOptions().getSourceType());
+    assertTrue(reader.getOptions().getDeactivateMissingUsers());
+    assertNull(reader.getOptions().getUpdateOnlyPresentFields());
+    List<User> first = reader.nextPartition(2);
+    assertEquals(2, first.size());
+    assertEquals("user1", first.get(0).getUsername());
+    assertEquals("Two", first.get(1).getPersonal().getLastName());
+    List<User> second = reader.nextPartition(2);
+    assertEquals(1, second.size());
+    assertEquals("3", second.get(0).getExternalSystemId());
+    assertTrue(reader.nextPartition(2).isEmpty());
+  }
+
+  @Test
+  public void testTimeoutOption() throws IOException {
+    assertEquals(Integer.valueOf(60000), reader("{\"timeoutMs\": 60000, \"users\": " + USERS + "}").getOptions().getTimeoutMs());
+    assertNull(reader("{\"timeoutMs\": 0, \"users\": " + USERS + "}").getOptions().getTimeoutMs());
+  }
+
+  @Test
+  public void testWithoutUsers() throws IOException {
+    assertTrue(reader("{\"totalRecords\": 0}").nextPartition(10).isEmpty());
+  }
+
+  @Test(expected = ImportFormatException.class)
+  public void testOptionAfterUsers() throws IOException {
+    JsonUserReader reader = reader("{\"users\": " + USERS + ", \"deactivateMissingUsers\": true}");
+    reader.nextPartition(10);
+  }
+
+  @Test
+  public void testUserWithInvalidDate() throws IOException {
+    List<User> users = reader("{\"users\": [{\"externalSystemId\": \"1\", \"username\": \"user1\", \"expirationDate\": \"soon\"},"
+      + " {\"externalSystemId\": \"2\", \"username\": \"user2\"}]}").nextPartition(10);
+    assertEquals(2, users.size());
+    assertTrue(users.get(0) instanceof InvalidUser);
+    assertEquals("user1", users.get(0).getUsername());
+    assertFalse(users.get(1) instanceof InvalidUser);
+  }
+
+  @Test(expected = ImportFormatException.class)
+  public void testNotAnObject() throws IOException {
+    reader("[]");
+  }
+
+  @Test(expected = ImportFormatException.class)
+  public void testTruncatedBody() throws IOException {
+    reader("{\"users\": [{\"externalSystemId\": \"1\"},").nextPartition(10);
+  }
+
+  @Test
+  public void testCompressedBodies() throws IOException {
+    byte[] json = ("{\"users\": " + USERS + "}").getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(gzip)) {
+      out.write(json);
+    }
+    ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+    try (OutputStream out = new DeflaterOutputStream(zlib)) {
+      out.write(json);
+    }
+    ByteArrayOutputStream rawDeflate = new ByteArrayOutputStream();
+    try (OutputStream out = new DeflaterOutputStream(rawDeflate, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+      out.write(json);
+    }
+    assertEquals(3, countUsers(ContentEncoding.decode(new ByteArrayInputStream(gzip.toByteArray()), "gzip")));
+    assertEquals(3, countUsers(ContentEncoding.decode(new ByteArrayInputStream(zlib.toByteArray()), "deflate")));
+    assertEquals(3, countUsers(ContentEncoding.decode(new ByteArrayInputStream(rawDeflate.toByteArray()), "deflate")));
+    assertEquals(3, countUsers(ContentEncoding.decode(new ByteArrayInputStream(json), null)));
+  }
+
+  @Test
+  public void testSupportedContentEncodings() {
+    assertTrue(ContentEncoding.isSupported(null));
+    assertTrue(ContentEncoding.isSupported("gzip, identity"));
+    assertTrue(ContentEncoding.isSupported("Deflate"));
+    assertFalse(ContentEncoding.isSupported("br"));
+  }
+
+  private static int countUsers(InputStream body) throws IOException {
+    return new JsonUserReader(body).nextPartition(10).size();
+  }
+}
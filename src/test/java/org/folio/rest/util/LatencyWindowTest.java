@@ -0,0 +1,33 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyWindowTest {
+
+  @Test
+  public void testPercentiles() {
+    LatencyWindow window = new LatencyWindow(100);
+    assertEquals(-1, window.getPercentile(50));
+
+    for (int i = 100; i >= 1; i--) {
+      window.record(i);
+    }
+    assertEquals(50, window.getPercentile(50));
+    assertEquals(99, window.getPercentile(99));
+    assertEquals(100, window.getPercentile(100));
+  }
+
+  @Test
+  public void testOldLatenciesAreReplaced() {
+    LatencyWindow window = new LatencyWindow(10);
+    for (int i = 0; i < 10; i++) {
+      window.record(1000);
+    }
+    for (int i = 0; i < 10; i++) {
+      window.record(5);
+    }
+    assertEquals(5, window.getPercentile(99));
+  }
+}
@@ -0,0 +1,51 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileInputStreamTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testReadAcrossWindows() throws IOException {
+    byte[] content = new byte[10000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    File file = folder.newFile("users.csv");
+    Files.write(file.toPath(), content);
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MappedFileInputStream in = new MappedFileInputStream(channel, 4096);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      out.write(in.read());
+      byte[] buffer = new byte[3000];
+      int count;
+      while ((count = in.read(buffer, 0, buffer.length)) != -1) {
+        out.write(buffer, 0, count);
+      }
+      assertArrayEquals(content, out.toByteArray());
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    File file = folder.newFile("empty.csv");
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      assertEquals(-1, new MappedFileInputStream(channel).read());
+    }
+  }
+}
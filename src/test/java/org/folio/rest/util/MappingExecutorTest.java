@@ -0,0 +1,91 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+public class MappingExecutorTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  public void testFullQueueFailsTask() throws InterruptedException {
+    ExecutorService threadPool = MappingExecutor.createThreadPool(1, 1);
+    MappingExecutor executor = new MappingExecutor(null, threadPool);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      Future<Integer> running = executor.execute(() -> {
+        release.await();
+        return 1;
+      });
+      Future<Integer> queued = executor.execute(() -> 2);
+      Future<Integer> rejected = executor.execute(() -> 3);
+
+      assertTrue(rejected.failed());
+      assertTrue(rejected.cause() instanceof RejectedExecutionException);
+      assertFalse(running.isComplete());
+      assertFalse(queued.isComplete());
+    } finally {
+      release.countDown();
+      threadPool.shutdown();
+    }
+  }
+
+  @Test
+  public void testResultIsHandledOnCallingContext() throws InterruptedException {
+    ExecutorService threadPool = MappingExecutor.createThreadPool(1, 10);
+    assertResultOnCallingContext(new MappingExecutor(null, threadPool));
+    assertResultOnCallingContext(new MappingExecutor(vertx.createSharedWorkerExecutor("mapping-test", 1), null));
+    threadPool.shutdown();
+  }
+
+  @Test
+  public void testThreadPoolWithoutVirtualThreads() {
+    ExecutorService executorService = MappingExecutor.createVirtualThreadExecutor("noSuchExecutorFactory", 2);
+    try {
+      assertTrue(executorService instanceof ThreadPoolExecutor);
+      assertEquals(2, ((ThreadPoolExecutor) executorService).getMaximumPoolSize());
+      assertEquals(MappingExecutor.MAX_QUEUED_TASKS, ((ThreadPoolExecutor) executorService).getQueue().remainingCapacity());
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private void assertResultOnCallingContext(MappingExecutor executor) throws InterruptedException {
+    Context context = vertx.getOrCreateContext();
+    AtomicReference<Context> resultContext = new AtomicReference<>();
+    AtomicReference<Integer> result = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    context.runOnContext(v -> executor.execute(() -> 42).setHandler(ar -> {
+      resultContext.set(Vertx.currentContext());
+      result.set(ar.result());
+      done.countDown();
+    }));
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertSame(context, resultContext.get());
+    assertEquals(Integer.valueOf(42), result.get());
+  }
+}
@@ -0,0 +1,88 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.folio.rest.tools.client.Response;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+import org.junit.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class ReferenceDataCacheTest {
+
+  @Test
+  public void testReferenceDataIsCached() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpClientInterface client = client(requests);
+    ReferenceDataCache cache = new ReferenceDataCache(60000);
+
+    assertEquals("1", cache.getPatronGroups(client, headers("diku")).result().get("staff"));
+    assertEquals("2", cache.getAddressTypes(client, headers("diku")).result().get("Home"));
+    assertEquals("1", cache.getPatronGroups(client, headers("diku")).result().get("staff"));
+    assertEquals(2, requests.get());
+
+    cache.getPatronGroups(client, headers("other"));
+    assertEquals(3, requests.get());
+  }
+
+  @Test
+  public void testReferenceDataIsListedWithoutTtl() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpClientInterface client = client(requests);
+    ReferenceDataCache cache = new ReferenceDataCache(0);
+
+    cache.getPatronGroups(client, headers("diku"));
+    cache.getPatronGroups(client, headers("diku"));
+    assertEquals(2, requests.get());
+    assertFalse(cache.isEnabled());
+  }
+
+  @Test
+  public void testListedReferenceDataIsUsedUpToMaxAge() {
+    AtomicInteger requests = new AtomicInteger();
+    HttpClientInterface client = client(requests);
+    ReferenceDataCache cache = new ReferenceDataCache(0);
+
+    cache.getPatronGroups(client, headers("diku"));
+    assertEquals("1", cache.getPatronGroups(client, headers("diku"), 60000).result().get("staff"));
+    assertEquals(1, requests.get());
+
+    cache.getAddressTypes(client, headers("diku"), 60000);
+    cache.getAddressTypes(client, headers("diku"), 0);
+    assertEquals(3, requests.get());
+  }
+
+  private static Map<String, String> headers(String tenant) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put(OKAPI_TENANT_HEADER, tenant);
+    headers.put(OKAPI_URL_HEADER, "http://localhost:9130");
+    headers.put(OKAPI_TOKEN_HEADER, "token");
+    return headers;
+  }
+
+  /**
+   * A client answering the requests for patron groups and address types.
+   */
+  private static HttpClientInterface client(AtomicInteger requests) {
+    return (HttpClientInterface) Proxy.newProxyInstance(HttpClientInterface.class.getClassLoader(), new Class<?>[] { HttpClientInterface.class },
+      (proxy, method, args) -> {
+        requests.incrementAndGet();
+        Response response = new Response();
+        response.setCode(200);
+        if (((String) args[0]).startsWith("/groups")) {
+          response.setBody(new JsonObject().put("usergroups", new JsonArray().add(new JsonObject().put("group", "staff").put("id", "1"))));
+        } else {
+          response.setBody(new JsonObject().put("addressTypes", new JsonArray().add(new JsonObject().put("addressType", "Home").put("id", "2"))));
+        }
+        return CompletableFuture.completedFuture(response);
+      });
+  }
+}
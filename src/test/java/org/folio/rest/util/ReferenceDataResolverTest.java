@@ -0,0 +1,87 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.folio.rest.jaxrs.model.Address;
+import org.folio.rest.jaxrs.model.Personal;
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.jaxrs.model.UserdataimportCollection.ReferenceDataPolicy;
+import org.junit.Test;
+
+public class ReferenceDataResolverTest {
+
+  private static final Map<String, String> PATRON_GROUPS = new HashMap<>();
+  private static final Map<String, String> ADDRESS_TYPES = new HashMap<>();
+
+  static {
+    PATRON_GROUPS.put("undergrad", "5fc96cbd-a860-42b7-a8fd-bc3c7af5ed5b");
+    PATRON_GROUPS.put("staff", "3684a786-6671-4268-8ed0-9db82ebca60b");
+    ADDRESS_TYPES.put("Home", "8d9b6d1c-4a16-4d4c-9b0d-a1b2c3d4e5f6");
+    ADDRESS_TYPES.put("Work", "1c4b225f-f669-4e9b-afcd-ebc0e273a34e");
+  }
+
+  private static User user(String patronGroup, String... addressTypes) {
+    User user = new User().withExternalSystemId("1").withUsername("user1").withPatronGroup(patronGroup)
+      .withPersonal(new Personal().withLastName("One").withAddresses(new ArrayList<>()));
+    for (String addressType : addressTypes) {
+      user.getPersonal().getAddresses().add(new Address().withAddressTypeId(addressType));
+    }
+    return user;
+  }
+
+  private static ReferenceDataResolver resolver(ReferenceDataPolicy policy, String defaultPatronGroup, String defaultAddressType) {
+    return new ReferenceDataResolver(PATRON_GROUPS, ADDRESS_TYPES, policy, defaultPatronGroup, defaultAddressType);
+  }
+
+  @Test
+  public void testKnownValues() {
+    User user = user("staff", "Home", "Work");
+    assertNull(resolver(ReferenceDataPolicy.FAIL, null, null).apply(user));
+    assertEquals("staff", user.getPatronGroup());
+    assertEquals(2, user.getPersonal().getAddresses().size());
+  }
+
+  @Test
+  public void testFail() {
+    ReferenceDataResolver resolver = resolver(ReferenceDataPolicy.FAIL, "undergrad", "Home");
+    assertEquals(UserImportAPIConstants.UNKNOWN_PATRON_GROUP + "alumni", resolver.apply(user("alumni")));
+    assertEquals(UserImportAPIConstants.UNKNOWN_ADDRESS_TYPE + "Campus", resolver.apply(user("staff", "Home", "Campus")));
+  }
+
+  @Test
+  public void testDrop() {
+    User user = user("alumni", "Campus", "Home");
+    assertNull(resolver(ReferenceDataPolicy.DROP, null, null).apply(user));
+    assertNull(user.getPatronGroup());
+    assertEquals(1, user.getPersonal().getAddresses().size());
+    assertEquals("Home", user.getPersonal().getAddresses().get(0).getAddressTypeId());
+  }
+
+  @Test
+  public void testDefault() {
+    ReferenceDataResolver resolver = resolver(ReferenceDataPolicy.DEFAULT, "undergrad", "Home");
+    User user = user("alumni", "Campus", "Work");
+    assertNull(resolver.apply(user));
+    assertEquals("undergrad", user.getPatronGroup());
+    assertEquals(Arrays.asList("Work", "Home"), Arrays.asList(user.getPersonal().getAddresses().get(0).getAddressTypeId(),
+      user.getPersonal().getAddresses().get(1).getAddressTypeId()));
+    assertEquals(UserImportAPIConstants.DEFAULT_ADDRESS_TYPE_IN_USE + "Campus", resolver.apply(user("staff", "Home", "Campus")));
+  }
+
+  @Test
+  public void testDefaultWithoutValidDefaults() {
+    ReferenceDataResolver resolver = resolver(ReferenceDataPolicy.DEFAULT, "alumni", null);
+    assertEquals(UserImportAPIConstants.NO_DEFAULT_PATRON_GROUP + "faculty", resolver.apply(user("faculty")));
+    assertEquals(UserImportAPIConstants.NO_DEFAULT_ADDRESS_TYPE + "Campus", resolver.apply(user("staff", "Campus")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPolicy() {
+    ReferenceDataResolver.parsePolicy("ignore");
+  }
+}
@@ -0,0 +1,97 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.folio.rest.tools.client.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Vertx;
+
+public class RequestHedgerTest {
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  public void testDelayIsThe95thPercentile() {
+    RequestHedger hedger = new RequestHedger(vertx, 10, 5);
+    for (int i = 1; i < 20; i++) {
+      hedger.record(i * 10L);
+    }
+    assertEquals(-1, hedger.getDelayMs());
+    hedger.record(200);
+    assertEquals(190, hedger.getDelayMs());
+
+    hedger = new RequestHedger(vertx, 500, 5);
+    for (int i = 1; i <= 20; i++) {
+      hedger.record(i);
+    }
+    assertEquals(500, hedger.getDelayMs());
+  }
+
+  @Test
+  public void testSlowRequestIsHedged() throws Exception {
+    RequestHedger hedger = new RequestHedger(vertx, 10, 100);
+    for (int i = 0; i < 20; i++) {
+      hedger.record(1);
+    }
+    List<CompletableFuture<Response>> sent = new ArrayList<>();
+    CompletableFuture<Response> result = hedger.execute(() -> {
+      CompletableFuture<Response> response = new CompletableFuture<>();
+      synchronized (sent) {
+        sent.add(response);
+      }
+      if (sent.size() == 2) {
+        response.complete(response(200));
+      }
+      return response;
+    });
+
+    assertEquals(200, result.get(5, TimeUnit.SECONDS).getCode());
+    assertEquals(2, sent.size());
+    assertFalse(sent.get(0).isDone());
+  }
+
+  @Test
+  public void testHedgesAreLimitedByTheBudget() throws Exception {
+    RequestHedger hedger = new RequestHedger(vertx, 10, 0);
+    for (int i = 0; i < 20; i++) {
+      hedger.record(1);
+    }
+    List<CompletableFuture<Response>> sent = new ArrayList<>();
+    CompletableFuture<Response> result = hedger.execute(() -> {
+      CompletableFuture<Response> response = new CompletableFuture<>();
+      synchronized (sent) {
+        sent.add(response);
+      }
+      return response;
+    });
+
+    Thread.sleep(100);
+    assertEquals(1, sent.size());
+    sent.get(0).complete(response(200));
+    assertEquals(200, result.get(5, TimeUnit.SECONDS).getCode());
+  }
+
+  private static Response response(int code) {
+    Response response = new Response();
+    response.setCode(code);
+    return response;
+  }
+}
@@ -0,0 +1,88 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import org.folio.rest.jaxrs.model.ImportResponse;
+import org.folio.rest.jaxrs.model.SyncSession;
+import org.junit.Test;
+
+public class SyncSessionStoreTest {
+
+  @Test
+  public void testSessionsOfTenants() {
+    SyncSessionStore store = new SyncSessionStore(60000);
+    SyncSessionStore.Session session = store.open("diku", "test");
+
+    assertSame(session, store.get("diku", session.getId()));
+    assertNull(store.get("other", session.getId()));
+    assertNull(store.remove("other", session.getId()));
+    assertSame(session, store.remove("diku", session.getId()));
+    assertNull(store.get("diku", session.getId()));
+  }
+
+  @Test
+  public void testSessionTotals() {
+    SyncSessionStore store = new SyncSessionStore(60000);
+    SyncSessionStore.Session session = store.open("diku", "test");
+    session.getSeenExternalSystemIds().add("test_1");
+    session.getSeenExternalSystemIds().add("test_2");
+    session.getSeenExternalSystemIds().add("test_1");
+
+    session.chunkStarted();
+    session.chunkStarted();
+    session.chunkStarted();
+    assertEquals(3, session.getChunksInFlight());
+    session.chunkFinished(new ImportResponse().withCreatedRecords(1).withUpdatedRecords(1).withFailedRecords(0).withTotalRecords(2));
+    session.chunkFinished(new ImportResponse().withCreatedRecords(0).withUpdatedRecords(2).withFailedRecords(0).withTotalRecords(2));
+    session.chunkFinished(null);
+    assertEquals(0, session.getChunksInFlight());
+    assertTrue(session.isComplete());
+
+    SyncSession syncSession = session.toSyncSession();
+    assertEquals("test", syncSession.getSourceType());
+    assertEquals(Integer.valueOf(2), syncSession.getChunks());
+    assertEquals(Integer.valueOf(1), syncSession.getCreatedRecords());
+    assertEquals(Integer.valueOf(3), syncSession.getUpdatedRecords());
+    assertEquals(Integer.valueOf(4), syncSession.getTotalRecords());
+    assertEquals(Integer.valueOf(2), syncSession.getSeenRecords());
+    assertEquals(Integer.valueOf(4), session.getResponse().getTotalRecords());
+  }
+
+  @Test
+  public void testFailedChunkSkipsDeactivation() {
+    SyncSessionStore.Session session = new SyncSessionStore(60000).open("diku", null);
+    session.chunkStarted();
+    session.chunkFinished(new ImportResponse().withCreatedRecords(1).withUpdatedRecords(0).withFailedRecords(1).withTotalRecords(2));
+    assertFalse(session.isComplete());
+
+    session = new SyncSessionStore(60000).open("diku", null);
+    session.chunkStarted();
+    session.chunkFinished(new ImportResponse().withError("Failed to list patron groups"));
+    assertFalse(session.isComplete());
+  }
+
+  @Test
+  public void testUnusedSessionsExpire() throws InterruptedException {
+    SyncSessionStore store = new SyncSessionStore(10);
+    SyncSessionStore.Session idle = store.open("diku", null);
+    SyncSessionStore.Session running = store.open("diku", null);
+    running.chunkStarted();
+    Thread.sleep(50);
+
+    assertNull(store.get("diku", idle.getId()));
+    assertSame(running, store.get("diku", running.getId()));
+  }
+
+  @Test
+  public void testExternalSystemIdSet() {
+    ExternalSystemIdSet set = new ExternalSystemIdSet();
+    for (int i = 0; i < 10000; i++) {
+      set.add("test_" + i);
+    }
+    assertEquals(10000, set.size());
+    assertTrue(set.contains("test_0"));
+    assertTrue(set.contains("test_9999"));
+    assertFalse(set.contains("test_10000"));
+    assertFalse(set.contains("other_0"));
+  }
+}
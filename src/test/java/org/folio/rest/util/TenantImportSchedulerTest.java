@@ -0,0 +1,87 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import io.vertx.core.Future;
+
+public class TenantImportSchedulerTest {
+
+  @Test
+  public void testSmallTenantIsNotStarved() {
+    TenantImportScheduler scheduler = new TenantImportScheduler(1, 1, new HashMap<>());
+    List<String> started = new ArrayList<>();
+    List<Future<Void>> works = new ArrayList<>();
+
+    for (int i = 0; i < 5; i++) {
+      submit(scheduler, "big", started, works);
+    }
+    submit(scheduler, "small", started, works);
+
+    while (!works.isEmpty()) {
+      works.remove(0).complete();
+    }
+
+    assertEquals(6, started.size());
+    assertEquals("big", started.get(0));
+    assertTrue(started.indexOf("small") <= 2);
+  }
+
+  @Test
+  public void testWeightedTenantGetsMoreTurns() {
+    Map<String, Integer> weights = TenantImportScheduler.parseWeights("heavy:3, light:1");
+    TenantImportScheduler scheduler = new TenantImportScheduler(1, 1, weights);
+    List<String> started = new ArrayList<>();
+    List<Future<Void>> works = new ArrayList<>();
+
+    for (int i = 0; i < 8; i++) {
+      submit(scheduler, "light", started, works);
+      submit(scheduler, "heavy", started, works);
+    }
+    for (int i = 0; i < 8; i++) {
+      works.remove(0).complete();
+    }
+
+    long heavy = started.stream().limit(8).filter("heavy"::equals).count();
+    assertTrue(heavy >= 5);
+  }
+
+  @Test
+  public void testPerTenantCap() {
+    TenantImportScheduler scheduler = new TenantImportScheduler(10, 2, new HashMap<>());
+    List<String> started = new ArrayList<>();
+    List<Future<Void>> works = new ArrayList<>();
+
+    for (int i = 0; i < 5; i++) {
+      submit(scheduler, "diku", started, works);
+    }
+
+    assertEquals(2, started.size());
+    works.remove(0).complete();
+    assertEquals(3, started.size());
+  }
+
+  @Test
+  public void testParseWeights() {
+    Map<String, Integer> weights = TenantImportScheduler.parseWeights("a:2,b:x,c,d:0");
+    assertEquals(Integer.valueOf(2), weights.get("a"));
+    assertFalse(weights.containsKey("b"));
+    assertFalse(weights.containsKey("c"));
+    assertEquals(Integer.valueOf(1), weights.get("d"));
+  }
+
+  private void submit(TenantImportScheduler scheduler, String tenant, List<String> started, List<Future<Void>> works) {
+    scheduler.submit(tenant, 10, () -> {
+      started.add(tenant);
+      Future<Void> work = Future.future();
+      works.add(work);
+      return work;
+    });
+  }
+}
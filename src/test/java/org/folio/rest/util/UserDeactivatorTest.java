@@ -0,0 +1,121 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.model.DeactivationResult;
+import org.folio.rest.tools.client.Response;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+
+public class UserDeactivatorTest {
+
+  private static final long LATENCY_MS = 20;
+  private static final String USER_WITHOUT_BODY = "without-body";
+
+  private Vertx vertx;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicInteger updated = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  public void testConcurrencyAndRateAreLimited() throws InterruptedException {
+    UserDeactivator deactivator = new UserDeactivator(vertx.getOrCreateContext(), client(), new HashMap<>(), 2, 20);
+
+    long start = System.nanoTime();
+    DeactivationResult result = deactivate(deactivator, users("1", "2", "3", "4", "5", "6", "7", "8", "9", "10"));
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertEquals(10, result.getDeactivatedRecords());
+    assertEquals(0, result.getFailedRecords());
+    assertEquals(10, updated.get());
+    assertTrue("max in flight: " + maxInFlight.get(), maxInFlight.get() <= 2);
+    // 20 users per second start a user every 50 ms
+    assertTrue("elapsed: " + elapsedMs, elapsedMs >= 9 * 50 - 10);
+  }
+
+  @Test
+  public void testEmptyResponseBodyFailsUser() throws InterruptedException {
+    UserDeactivator deactivator = new UserDeactivator(vertx.getOrCreateContext(), client(), new HashMap<>(), 2, 0);
+
+    DeactivationResult result = deactivate(deactivator, users("1", USER_WITHOUT_BODY, "2"));
+
+    assertEquals(2, result.getDeactivatedRecords());
+    assertEquals(1, result.getFailedRecords());
+  }
+
+  private static DeactivationResult deactivate(UserDeactivator deactivator, List<User> users) throws InterruptedException {
+    AtomicReference<DeactivationResult> result = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    deactivator.deactivate(users).setHandler(ar -> {
+      result.set(ar.result());
+      done.countDown();
+    });
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    return result.get();
+  }
+
+  private static List<User> users(String... ids) {
+    List<User> users = new ArrayList<>();
+    for (String id : ids) {
+      users.add(new User().withId(id).withExternalSystemId("test_" + id).withActive(true));
+    }
+    return users;
+  }
+
+  /*
+   * A client answering the requests for a user after a delay. A user counts as in flight from fetching it until it is updated.
+   */
+  private HttpClientInterface client() {
+    return (HttpClientInterface) Proxy.newProxyInstance(HttpClientInterface.class.getClassLoader(), new Class<?>[] { HttpClientInterface.class },
+      (proxy, method, args) -> {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        Response response = new Response();
+        response.setCode(200);
+        if (args[0] == HttpMethod.GET) {
+          String path = (String) args[1];
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          if (path.endsWith(USER_WITHOUT_BODY)) {
+            inFlight.decrementAndGet();
+          } else {
+            response.setBody(new JsonObject().put("id", path.substring(path.lastIndexOf('/') + 1)).put("active", true));
+          }
+          vertx.setTimer(LATENCY_MS, id -> future.complete(response));
+        } else {
+          response.setCode(204);
+          vertx.setTimer(LATENCY_MS, id -> {
+            updated.incrementAndGet();
+            inFlight.decrementAndGet();
+            future.complete(response);
+          });
+        }
+        return future;
+      });
+  }
+}
@@ -0,0 +1,59 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class UserExporterTest {
+
+  private static final JsonObject USER = new JsonObject()
+    .put("id", "1")
+    .put("externalSystemId", "test_1")
+    .put("username", "amy")
+    .put("active", true)
+    .put("personal", new JsonObject()
+      .put("lastName", "Cabble, Jr.")
+      .put("firstName", "Amy \"A\"")
+      .put("addresses", new JsonArray().add(new JsonObject().put("city", "Test"))));
+
+  @Test
+  public void testNdjson() {
+    UserExporter exporter = new UserExporter(null, new HashMap<>(), "test", null, null, 10);
+    assertEquals(UserExporter.CONTENT_TYPE_NDJSON, exporter.getContentType());
+    assertEquals(USER.encode() + "\n", exporter.format(USER).toString());
+  }
+
+  @Test
+  public void testNdjsonProjection() {
+    UserExporter exporter = new UserExporter(null, new HashMap<>(), "test", "ndjson",
+      "externalSystemId, personal.lastName,personal.addresses.0.city,barcode", 10);
+    JsonObject projection = new JsonObject(exporter.format(USER).toString());
+    assertEquals("test_1", projection.getString("externalSystemId"));
+    assertEquals("Cabble, Jr.", projection.getJsonObject("personal").getString("lastName"));
+    assertEquals("Test", projection.getJsonObject("personal").getJsonObject("addresses").getJsonObject("0").getString("city"));
+    assertFalse(projection.containsKey("barcode"));
+    assertFalse(projection.containsKey("username"));
+  }
+
+  @Test
+  public void testCsv() {
+    UserExporter exporter = new UserExporter(null, new HashMap<>(), "test", "CSV", "externalSystemId,active,personal.lastName,personal.firstName,barcode", 10);
+    assertEquals(UserExporter.CONTENT_TYPE_CSV, exporter.getContentType());
+    assertEquals("test_1,true,\"Cabble, Jr.\",\"Amy \"\"A\"\"\",\r\n", exporter.format(USER).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidFormat() {
+    new UserExporter(null, new HashMap<>(), "test", "xml", null, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidFields() {
+    new UserExporter(null, new HashMap<>(), "test", "csv", "personal..lastName", 10);
+  }
+}
@@ -0,0 +1,27 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class UserIdGeneratorTest {
+
+  @Test
+  public void testNameBasedUuid() {
+    // RFC 4122 version 5 UUID of python.org in the DNS namespace
+    assertEquals(UUID.fromString("886313e1-3b8a-5372-9b90-0c9aee199e5d"),
+      UserIdGenerator.nameBasedUuid(UUID.fromString("6ba7b810-9dad-11d1-80b4-00c04fd430c8"), "python.org"));
+  }
+
+  @Test
+  public void testNameBasedId() {
+    String id = UserIdGenerator.nameBasedId("diku", "test_amy_cabble");
+    assertEquals(id, UserIdGenerator.nameBasedId("diku", "test_amy_cabble"));
+    assertNotEquals(id, UserIdGenerator.nameBasedId("other", "test_amy_cabble"));
+    assertNotEquals(id, UserIdGenerator.nameBasedId("diku", "amy_cabble"));
+    assertEquals(5, UUID.fromString(id).version());
+    assertEquals(2, UUID.fromString(id).variant());
+  }
+}
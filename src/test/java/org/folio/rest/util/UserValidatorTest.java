@@ -0,0 +1,56 @@
+package org.folio.rest.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.folio.rest.jaxrs.model.Address;
+import org.folio.rest.jaxrs.model.Personal;
+import org.folio.rest.jaxrs.model.User;
+import org.folio.rest.jaxrs.model.UserdataimportCollection;
+import org.folio.rest.jaxrs.model.UserdataimportCollection.ReferenceDataPolicy;
+import org.folio.rest.model.InvalidUser;
+import org.folio.rest.model.UserImportData;
+import org.folio.rest.model.ValidatedPartition;
+import org.junit.Test;
+
+public class UserValidatorTest {
+
+  private static User user(String externalSystemId, String patronGroup, String lastName) {
+    return new User().withExternalSystemId(externalSystemId).withUsername("user" + externalSystemId)
+      .withPatronGroup(patronGroup).withPersonal(new Personal().withLastName(lastName));
+  }
+
+  @Test
+  public void testValidate() {
+    Map<String, String> patronGroups = new HashMap<>();
+    patronGroups.put("undergrad", "5fc96cbd-a860-42b7-a8fd-bc3c7af5ed5b");
+    Map<String, String> addressTypes = new HashMap<>();
+    addressTypes.put("Home", "8d9b6d1c-4a16-4d4c-9b0d-a1b2c3d4e5f6");
+    UserImportData userImportData = new UserImportData(new UserdataimportCollection());
+    userImportData.setReferenceDataResolver(new ReferenceDataResolver(patronGroups, addressTypes, ReferenceDataPolicy.FAIL, null, null));
+
+    User unknownAddressType = user("5", "undergrad", "Five");
+    unknownAddressType.getPersonal().setAddresses(Collections.singletonList(new Address().withAddressTypeId("Work")));
+    ValidatedPartition partition = UserValidator.validate(Arrays.asList(
+      user("1", "undergrad", "One"),
+      user("2", "staff", "Two"),
+      user("3", null, null),
+      new InvalidUser("4", "user4", "Invalid date"),
+      unknownAddressType,
+      new User().withExternalSystemId("6").withUsername("user6")), userImportData);
+
+    assertEquals(2, partition.getValidUsers().size());
+    assertEquals("1", partition.getValidUsers().get(0).getExternalSystemId());
+    assertEquals("6", partition.getValidUsers().get(1).getExternalSystemId());
+    assertEquals(4, partition.getInvalidUsers().size());
+    assertEquals(UserImportAPIConstants.UNKNOWN_PATRON_GROUP + "staff", partition.getInvalidUsers().get(0).getErrorMessage());
+    assertEquals(UserImportAPIConstants.MISSING_LAST_NAME, partition.getInvalidUsers().get(1).getErrorMessage());
+    assertEquals("Invalid date", partition.getInvalidUsers().get(2).getErrorMessage());
+    assertEquals(UserImportAPIConstants.UNKNOWN_ADDRESS_TYPE + "Work", partition.getInvalidUsers().get(3).getErrorMessage());
+    assertEquals(4, partition.getInvalidUsersResponse().getFailedRecords().intValue());
+  }
+}
@@ -0,0 +1,117 @@
+package org.folio.rest.util;
+
+import static org.folio.rest.util.UserImportAPIConstants.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.folio.rest.tools.client.Response;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+public class WarmUpTest {
+
+  private Vertx vertx;
+  private Context context;
+
+  @Before
+  public void setUp() {
+    vertx = Vertx.vertx();
+    context = vertx.getOrCreateContext();
+  }
+
+  @After
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  public void testGeneratedUsersAreMapped() throws Exception {
+    assertEquals(2000, WarmUp.mapGeneratedUsers());
+  }
+
+  @Test
+  public void testWarmUpMakesModuleReady() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    WarmUp warmUp = new WarmUp();
+    assertFalse(warmUp.isReady());
+    assertEquals(0, ImportMetrics.getGauges().get("warmUp.ready").intValue());
+
+    run(warmUp, headers("diku"), client(requests, 200));
+
+    assertTrue(warmUp.isReady());
+    assertEquals(1, ImportMetrics.getGauges().get("warmUp.ready").intValue());
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testWarmUpIsReadyAfterFailedRequests() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    WarmUp warmUp = new WarmUp();
+
+    run(warmUp, headers("diku"), client(requests, 500));
+
+    assertTrue(warmUp.isReady());
+    assertEquals(1, ImportMetrics.getGauges().get("warmUp.ready").intValue());
+  }
+
+  @Test
+  public void testWarmUpFillsReferenceDataCache() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpClientInterface client = client(requests, 200);
+
+    run(new WarmUp(), headers("warm-up-tenant"), client);
+
+    ReferenceDataCache cache = ReferenceDataCache.getInstance(context);
+    assertEquals("1", cache.getPatronGroups(client, headers("warm-up-tenant"), 60000).result().get("staff"));
+    assertEquals("2", cache.getAddressTypes(client, headers("warm-up-tenant"), 60000).result().get("Home"));
+    assertEquals(2, requests.get());
+  }
+
+  private void run(WarmUp warmUp, Map<String, String> okapiHeaders, HttpClientInterface client) throws InterruptedException {
+    CountDownLatch finished = new CountDownLatch(1);
+    context.runOnContext(v -> warmUp.run(okapiHeaders, client, context).setHandler(result -> finished.countDown()));
+    assertTrue(finished.await(30, TimeUnit.SECONDS));
+  }
+
+  private static Map<String, String> headers(String tenant) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put(OKAPI_TENANT_HEADER, tenant);
+    headers.put(OKAPI_URL_HEADER, "http://localhost:9130");
+    headers.put(OKAPI_TOKEN_HEADER, "token");
+    return headers;
+  }
+
+  /**
+   * A client answering the requests for patron groups and address types with the given status.
+   */
+  private static HttpClientInterface client(AtomicInteger requests, int status) {
+    return (HttpClientInterface) Proxy.newProxyInstance(HttpClientInterface.class.getClassLoader(), new Class<?>[] { HttpClientInterface.class },
+      (proxy, method, args) -> {
+        requests.incrementAndGet();
+        Response response = new Response();
+        response.setCode(status);
+        if (status != 200) {
+          response.setBody(new JsonObject());
+        } else if (((String) args[0]).startsWith("/groups")) {
+          response.setBody(new JsonObject().put("usergroups", new JsonArray().add(new JsonObject().put("group", "staff").put("id", "1"))));
+        } else {
+          response.setBody(new JsonObject().put("addressTypes", new JsonArray().add(new JsonObject().put("addressType", "Home").put("id", "2"))));
+        }
+        return CompletableFuture.completedFuture(response);
+      });
+  }
+}